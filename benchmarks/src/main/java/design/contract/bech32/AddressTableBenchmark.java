@@ -0,0 +1,66 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// membership tests for bech32 strings as they arrive (in either case): a HashSet of
+// lowercased Strings against an AddressTable and an AddressFilter, which both verify
+// each string
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AddressTableBenchmark {
+
+    @Param({"p2wpkh", "p2tr", "mixed"})
+    public String mix;
+
+    private final Set<String> stringSet = new HashSet<>();
+    private final AddressTable table = new AddressTable();
+    private final AddressFilter filter = new AddressFilter(BenchmarkData.SIZE, 0.01);
+    private String[] queries;
+    private int index;
+
+    @Setup
+    public void setup() {
+        String[] encoded = new BenchmarkData(mix).encoded();
+        queries = new String[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            stringSet.add(encoded[i].toLowerCase(Locale.ROOT));
+            table.add(encoded[i]);
+            filter.add(encoded[i]);
+            queries[i] = new String(encoded[i].toCharArray());
+        }
+    }
+
+    @Benchmark
+    public boolean stringSetContains() {
+        return stringSet.contains(queries[index++ & BenchmarkData.MASK].toLowerCase(Locale.ROOT));
+    }
+
+    @Benchmark
+    public boolean tableContains() {
+        return table.contains(queries[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public boolean filterMightContain() {
+        return filter.mightContain(queries[index++ & BenchmarkData.MASK]);
+    }
+}
@@ -0,0 +1,57 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// decoding a batch of 64k strings, with and without fork/join
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchDecodeBenchmark {
+
+    private static final int BATCH_SIZE = 64 * BenchmarkData.SIZE;
+
+    @Param({"mixed"})
+    public String mix;
+
+    @Param({"512", "4096"})
+    public int threshold;
+
+    private String[] bstrings;
+    private BatchDecodeResult results;
+
+    @Setup
+    public void setup() {
+        String[] encoded = new BenchmarkData(mix).encoded();
+        bstrings = new String[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++)
+            bstrings[i] = encoded[i & BenchmarkData.MASK];
+        results = new BatchDecodeResult(BATCH_SIZE);
+    }
+
+    @Benchmark
+    public BatchDecodeResult sequentialLoop() {
+        Bech32.decodeAll(bstrings, results, Integer.MAX_VALUE);
+        return results;
+    }
+
+    @Benchmark
+    public BatchDecodeResult forkJoin() {
+        Bech32.decodeAll(bstrings, results, threshold);
+        return results;
+    }
+}
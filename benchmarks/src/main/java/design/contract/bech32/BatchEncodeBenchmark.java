@@ -0,0 +1,61 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// encoding a batch of data parts that all share one HRP, item by item with
+// Bech32.encode() and columnar with Bech32BatchEncoder
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchEncodeBenchmark {
+
+    @Param({"p2wpkh", "p2tr"})
+    public String mix;
+
+    private String hrp;
+    private char[][] dps;
+    private char[] data;
+    private int[] offsets;
+    private Bech32BatchEncoder encoder;
+
+    @Setup
+    public void setup() {
+        BenchmarkData benchmarkData = new BenchmarkData(mix);
+        hrp = benchmarkData.hrps[0];
+        dps = benchmarkData.dps;
+        offsets = new int[BenchmarkData.SIZE + 1];
+        for (int i = 0; i < BenchmarkData.SIZE; i++)
+            offsets[i + 1] = offsets[i] + dps[i].length;
+        data = new char[offsets[BenchmarkData.SIZE]];
+        for (int i = 0; i < BenchmarkData.SIZE; i++)
+            System.arraycopy(dps[i], 0, data, offsets[i], dps[i].length);
+        encoder = new Bech32BatchEncoder(hrp);
+    }
+
+    @Benchmark
+    public void encodeLoop(Blackhole bh) {
+        for (char[] dp : dps)
+            bh.consume(Bech32.encode(hrp, dp));
+    }
+
+    @Benchmark
+    public EncodedBatch batchEncoder() {
+        return encoder.encode(data, offsets);
+    }
+}
@@ -0,0 +1,137 @@
+package design.contract.bech32;
+
+import java.util.Random;
+
+// Deterministic inputs shared by the benchmarks. Each "mix" names a realistic
+// combination of human-readable parts and data part lengths:
+//
+//   p2wpkh : "bc" with 33 data values (witness v0, 20-byte program)
+//   p2tr   : "bc" with 53 data values (witness v1, 32-byte program)
+//   mixed  : "bc", "tb", "bcrt" and a long custom HRP with data lengths
+//            ranging from empty up to the maximum allowed for the HRP
+final class BenchmarkData {
+
+    // number of distinct inputs per benchmark; a power of two so the
+    // benchmarks can cycle through them with a mask
+    static final int SIZE = 1024;
+    static final int MASK = SIZE - 1;
+
+    private static final long SEED = 0xb3c832L;
+
+    private static final String[] MIXED_HRPS = {"bc", "tb", "bcrt", "customnetworkhrp"};
+
+    final String[] hrps = new String[SIZE];
+    final char[][] dps = new char[SIZE][];
+
+    BenchmarkData(String mix) {
+        Random random = new Random(SEED);
+        for (int i = 0; i < SIZE; i++) {
+            switch (mix) {
+                case "p2wpkh":
+                    hrps[i] = "bc";
+                    dps[i] = randomDp(random, 33);
+                    break;
+                case "p2tr":
+                    hrps[i] = "bc";
+                    dps[i] = randomDp(random, 53);
+                    break;
+                case "mixed":
+                    hrps[i] = MIXED_HRPS[random.nextInt(MIXED_HRPS.length)];
+                    int maxDp = Bech32.Limits.MAX_BECH32_LENGTH - hrps[i].length() - 1 - Bech32.Limits.CHECKSUM_LENGTH;
+                    dps[i] = randomDp(random, random.nextInt(maxDp + 1));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown mix: " + mix);
+            }
+        }
+    }
+
+    // bech32m encodings of all inputs
+    String[] encoded() {
+        String[] result = new String[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            result[i] = Bech32.encode(hrps[i], dps[i]);
+        return result;
+    }
+
+    // bech32 (original constant) encodings of all inputs
+    String[] encodedUsingOriginalConstant() {
+        String[] result = new String[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            result[i] = Bech32.encodeUsingOriginalConstant(hrps[i], dps[i]);
+        return result;
+    }
+
+    // bech32m encodings with one data or checksum character substituted, so
+    // that they are well-formed but fail checksum verification
+    String[] encodedWithBadChecksum() {
+        Random random = new Random(SEED + 1);
+        String[] result = encoded();
+        for (int i = 0; i < SIZE; i++) {
+            char[] chars = result[i].toCharArray();
+            int pos = hrps[i].length() + 1 + random.nextInt(chars.length - hrps[i].length() - 1);
+            int value = Bech32.REVERSE_CHARSET[chars[pos]];
+            chars[pos] = Bech32.CHARSET.charAt((value + 1 + random.nextInt(31)) % 32);
+            result[i] = new String(chars);
+        }
+        return result;
+    }
+
+    // strings rejected before checksum verification: mixed case, missing separator,
+    // invalid data characters, too long, etc.
+    String[] malformed() {
+        String[] valid = encoded();
+        String[] result = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            String s = valid[i];
+            switch (i % 5) {
+                case 0: // mixed case
+                    result[i] = Character.toUpperCase(s.charAt(0)) + s.substring(1);
+                    break;
+                case 1: // no separator
+                    result[i] = s.replace(Bech32.SEPARATOR, 'q');
+                    break;
+                case 2: // 'b' is not part of the charset
+                    result[i] = s.substring(0, s.length() - 1) + 'b';
+                    break;
+                case 3: // too long
+                    result[i] = s + "qqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqqq";
+                    break;
+                default: // value out of range
+                    result[i] = s.substring(0, s.length() - 1) + ' ';
+                    break;
+            }
+        }
+        return result;
+    }
+
+    // expanded HRP followed by data and an all-zero checksum, i.e. the exact
+    // input polymod sees when creating a checksum
+    char[][] polymodInputs() {
+        char[][] result = new char[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            char[] combined = Bech32.Impl.cat(Bech32.Impl.expandHrp(hrps[i]).toCharArray(), dps[i]);
+            result[i] = java.util.Arrays.copyOf(combined, combined.length + Bech32.Limits.CHECKSUM_LENGTH);
+        }
+        return result;
+    }
+
+    // byte payloads of the same shape: 20 bytes for p2wpkh, 32 for p2tr, and for
+    // mixed as many as fit in each data part
+    byte[][] payloads() {
+        Random random = new Random(SEED + 2);
+        byte[][] result = new byte[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            result[i] = new byte[dps[i].length * 5 / 8];
+            random.nextBytes(result[i]);
+        }
+        return result;
+    }
+
+    private static char[] randomDp(Random random, int length) {
+        char[] dp = new char[length];
+        for (int i = 0; i < length; i++)
+            dp[i] = (char) random.nextInt(Bech32.Limits.VALID_CHARSET_SIZE);
+        return dp;
+    }
+}
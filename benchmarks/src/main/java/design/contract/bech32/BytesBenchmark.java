@@ -0,0 +1,107 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Encoding byte payloads directly, compared with the usual route of regrouping them
+// into a 5-bit char[] first (and back again after decoding).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BytesBenchmark {
+
+    @Param({"p2wpkh", "p2tr", "mixed"})
+    public String mix;
+
+    private String[] hrps;
+    private byte[][] payloads;
+    private String[] encoded;
+    private int index;
+
+    private final Bech32Decoder decoder = new Bech32Decoder();
+    private final MutableDecodedResult result = new MutableDecodedResult();
+    private final byte[] bytes = new byte[64];
+
+    @Setup
+    public void setup() {
+        BenchmarkData data = new BenchmarkData(mix);
+        hrps = data.hrps;
+        payloads = data.payloads();
+        encoded = new String[BenchmarkData.SIZE];
+        for (int i = 0; i < BenchmarkData.SIZE; i++)
+            encoded[i] = Bech32.encodeBytes(hrps[i], payloads[i]);
+    }
+
+    @Benchmark
+    public String encodeBytes() {
+        int i = index++ & BenchmarkData.MASK;
+        return Bech32.encodeBytes(hrps[i], payloads[i]);
+    }
+
+    @Benchmark
+    public String regroupThenEncode() {
+        int i = index++ & BenchmarkData.MASK;
+        return Bech32.encode(hrps[i], toFiveBit(payloads[i]));
+    }
+
+    @Benchmark
+    public byte[] decodeToBytes() {
+        return Bech32.decodeToBytes(encoded[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public int decoderDecodeToBytes() {
+        return decoder.decodeToBytes(encoded[index++ & BenchmarkData.MASK], result, bytes, 0);
+    }
+
+    @Benchmark
+    public byte[] decodeThenRegroup() {
+        return toEightBit(Bech32.decode(encoded[index++ & BenchmarkData.MASK]).getDp());
+    }
+
+    // the convertbits loops callers typically write themselves
+    private static char[] toFiveBit(byte[] data) {
+        char[] ret = new char[(data.length * 8 + 4) / 5];
+        int acc = 0, bits = 0, j = 0;
+        for (byte b : data) {
+            acc = (acc << 8 | b & 0xff) & 0xfff;
+            bits += 8;
+            while (bits >= 5) {
+                bits -= 5;
+                ret[j++] = (char) ((acc >> bits) & 31);
+            }
+        }
+        if (bits > 0)
+            ret[j] = (char) ((acc << (5 - bits)) & 31);
+        return ret;
+    }
+
+    private static byte[] toEightBit(char[] dp) {
+        byte[] ret = new byte[dp.length * 5 / 8];
+        int acc = 0, bits = 0, j = 0;
+        for (char c : dp) {
+            acc = (acc << 5 | c) & 0xfff;
+            bits += 5;
+            if (bits >= 8) {
+                bits -= 8;
+                ret[j++] = (byte) (acc >> bits);
+            }
+        }
+        return Arrays.copyOf(ret, j);
+    }
+}
@@ -0,0 +1,161 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+
+    @Param({"p2wpkh", "p2tr", "mixed"})
+    public String mix;
+
+    private String[] bech32;
+    private String[] bech32m;
+    private String[] badChecksum;
+    private String[] malformed;
+    private String[] hrps;
+    private Bech32Codec[] codecs;
+    private int index;
+
+    @Param({"TABLE_10BIT"})
+    public ChecksumEngine engine;
+
+    private ByteBuffer[] bech32mDirect;
+    private byte[][] bech32mBytes;
+    private Bech32Decoder decoder;
+    private final MutableDecodedResult result = new MutableDecodedResult();
+
+    @Setup
+    public void setup() {
+        BenchmarkData data = new BenchmarkData(mix);
+        bech32 = data.encodedUsingOriginalConstant();
+        bech32m = data.encoded();
+        badChecksum = data.encodedWithBadChecksum();
+        malformed = data.malformed();
+        hrps = data.hrps;
+        // one codec per HRP, as an application pinning its HRPs would have
+        Map<String, Bech32Codec> byHrp = new HashMap<>();
+        codecs = new Bech32Codec[hrps.length];
+        for (int i = 0; i < hrps.length; i++)
+            codecs[i] = byHrp.computeIfAbsent(hrps[i], Bech32::forHrp);
+        decoder = new Bech32Decoder(engine);
+        bech32mDirect = new ByteBuffer[bech32m.length];
+        bech32mBytes = new byte[bech32m.length][];
+        for (int i = 0; i < bech32m.length; i++) {
+            byte[] bytes = bech32m[i].getBytes(StandardCharsets.US_ASCII);
+            bech32mBytes[i] = bytes;
+            bech32mDirect[i] = ByteBuffer.allocateDirect(bytes.length);
+            bech32mDirect[i].put(bytes).flip();
+        }
+    }
+
+    @Benchmark
+    public DecodedResult decodeBech32() {
+        return Bech32.decode(bech32[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public DecodedResult decodeBech32m() {
+        return Bech32.decode(bech32m[index++ & BenchmarkData.MASK]);
+    }
+
+    // the same strings through a codec pinned to their HRP
+    @Benchmark
+    public DecodedResult codecDecodeBech32m() {
+        int i = index++ & BenchmarkData.MASK;
+        return codecs[i].decode(bech32m[i]);
+    }
+
+    // "is this a valid bech32m string for this HRP?", by full decode and by verify()
+    @Benchmark
+    public boolean decodeAndCheckHrp() {
+        int i = index++ & BenchmarkData.MASK;
+        DecodedResult result = Bech32.decode(bech32m[i]);
+        return result.getEncoding() == DecodedResult.Encoding.BECH32M && result.getHrp().equals(hrps[i]);
+    }
+
+    @Benchmark
+    public boolean verifyHrp() {
+        int i = index++ & BenchmarkData.MASK;
+        return Bech32.verify(bech32m[i], hrps[i]) == DecodedResult.Encoding.BECH32M;
+    }
+
+    @Benchmark
+    public DecodedView decodeView() {
+        return Bech32.decodeView(bech32m[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public DecodedResult decodeBadChecksum() {
+        return Bech32.decode(badChecksum[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public Object decodeMalformed() {
+        try {
+            return Bech32.decode(malformed[index++ & BenchmarkData.MASK]);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object decoderMalformed() {
+        try {
+            return decoder.decode(malformed[index++ & BenchmarkData.MASK], result);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public DecodeStatus decoderTryDecodeMalformed() {
+        return decoder.tryDecode(malformed[index++ & BenchmarkData.MASK], result);
+    }
+
+    @Benchmark
+    public DecodeStatus validateMalformed() {
+        return Bech32.validate(malformed[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public DecodedResult.Encoding decoderBech32m() {
+        return decoder.decode(bech32m[index++ & BenchmarkData.MASK], result);
+    }
+
+    @Benchmark
+    public DecodedResult.Encoding decoderBadChecksum() {
+        return decoder.decode(badChecksum[index++ & BenchmarkData.MASK], result);
+    }
+
+    @Benchmark
+    public DecodedResult.Encoding decoderBech32mDirectBuffer() {
+        return decoder.decodeAscii(bech32mDirect[index++ & BenchmarkData.MASK], result);
+    }
+
+    @Benchmark
+    public DecodedResult.Encoding decoderBech32mBytes() {
+        byte[] bytes = bech32mBytes[index++ & BenchmarkData.MASK];
+        return decoder.decodeAscii(bytes, 0, bytes.length, result);
+    }
+}
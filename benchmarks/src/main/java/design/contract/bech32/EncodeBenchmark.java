@@ -0,0 +1,71 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodeBenchmark {
+
+    @Param({"p2wpkh", "p2tr", "mixed"})
+    public String mix;
+
+    private String[] hrps;
+    private char[][] dps;
+    private Bech32Codec[] codecs;
+    private final byte[] bytes = new byte[Bech32.Limits.MAX_BECH32_LENGTH];
+    private final ByteBuffer direct = ByteBuffer.allocateDirect(Bech32.Limits.MAX_BECH32_LENGTH);
+    private int index;
+
+    @Setup
+    public void setup() {
+        BenchmarkData data = new BenchmarkData(mix);
+        hrps = data.hrps;
+        dps = data.dps;
+        codecs = new Bech32Codec[hrps.length];
+        for (int i = 0; i < hrps.length; i++)
+            codecs[i] = Bech32.forHrp(hrps[i]);
+    }
+
+    @Benchmark
+    public String encode() {
+        int i = index++ & BenchmarkData.MASK;
+        return Bech32.encode(hrps[i], dps[i]);
+    }
+
+    @Benchmark
+    public String encodeUsingOriginalConstant() {
+        int i = index++ & BenchmarkData.MASK;
+        return Bech32.encodeUsingOriginalConstant(hrps[i], dps[i]);
+    }
+
+    // writing into a reused ASCII buffer through a pinned codec, with no intermediate objects
+    @Benchmark
+    public int encodeToBytes() {
+        int i = index++ & BenchmarkData.MASK;
+        return codecs[i].encodeTo(dps[i], DecodedResult.Encoding.BECH32M, bytes, 0);
+    }
+
+    @Benchmark
+    public int encodeToDirectBuffer() {
+        int i = index++ & BenchmarkData.MASK;
+        direct.clear();
+        return codecs[i].encodeTo(dps[i], DecodedResult.Encoding.BECH32M, direct);
+    }
+}
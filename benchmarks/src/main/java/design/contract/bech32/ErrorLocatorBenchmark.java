@@ -0,0 +1,68 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Locating a single substituted character from the checksum syndrome, compared with
+// re-decoding every single-character substitution until one verifies.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ErrorLocatorBenchmark {
+
+    @Param({"p2wpkh", "p2tr", "mixed"})
+    public String mix;
+
+    private String[] hrps;
+    private String[] broken;
+    private int index;
+
+    private final Bech32Decoder decoder = new Bech32Decoder();
+    private final MutableDecodedResult result = new MutableDecodedResult();
+
+    @Setup
+    public void setup() {
+        BenchmarkData data = new BenchmarkData(mix);
+        hrps = data.hrps;
+        broken = data.encodedWithBadChecksum();
+    }
+
+    @Benchmark
+    public ErrorLocation locateErrors() {
+        return Bech32.locateErrors(broken[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public int bruteForce() {
+        int i = index++ & BenchmarkData.MASK;
+        char[] chars = broken[i].toCharArray();
+        for (int pos = hrps[i].length() + 1; pos < chars.length; pos++) {
+            char original = chars[pos];
+            for (int v = 0; v < Bech32.Limits.VALID_CHARSET_SIZE; v++) {
+                char c = Bech32.CHARSET.charAt(v);
+                if (c == original)
+                    continue;
+                chars[pos] = c;
+                if (decoder.decode(CharBuffer.wrap(chars), result) != DecodedResult.Encoding.INVALID)
+                    return pos;
+            }
+            chars[pos] = original;
+        }
+        return -1;
+    }
+}
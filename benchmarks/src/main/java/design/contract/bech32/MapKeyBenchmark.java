@@ -0,0 +1,65 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// HashMap lookups keyed by decoded results, with keys equal to but distinct from those
+// in the map, as when looking up a freshly decoded address
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapKeyBenchmark {
+
+    @Param({"p2wpkh", "p2tr", "mixed"})
+    public String mix;
+
+    private final Map<DecodedResult, Integer> decodedMap = new HashMap<>();
+    private final Map<CompactDecodedResult, Integer> compactMap = new HashMap<>();
+    private DecodedResult[] decodedKeys;
+    private CompactDecodedResult[] compactKeys;
+    private int index;
+
+    @Setup
+    public void setup() {
+        String[] encoded = new BenchmarkData(mix).encoded();
+        decodedKeys = new DecodedResult[encoded.length];
+        compactKeys = new CompactDecodedResult[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            decodedMap.put(Bech32.decode(encoded[i]), i);
+            compactMap.put(CompactDecodedResult.of(Bech32.decode(encoded[i])), i);
+            decodedKeys[i] = Bech32.decode(encoded[i]);
+            compactKeys[i] = CompactDecodedResult.of(decodedKeys[i]);
+        }
+    }
+
+    @Benchmark
+    public Integer decodedResultKey() {
+        return decodedMap.get(decodedKeys[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public Integer compactKey() {
+        return compactMap.get(compactKeys[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public CompactDecodedResult toCompact() {
+        return CompactDecodedResult.of(decodedKeys[index++ & BenchmarkData.MASK]);
+    }
+}
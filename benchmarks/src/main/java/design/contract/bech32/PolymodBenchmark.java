@@ -0,0 +1,49 @@
+package design.contract.bech32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PolymodBenchmark {
+
+    @Param({"p2wpkh", "p2tr", "mixed"})
+    public String mix;
+
+    @Param({"REFERENCE", "TABLE", "TABLE_10BIT"})
+    public ChecksumEngine engine;
+
+    private char[][] inputs;
+    private int index;
+
+    @Setup
+    public void setup() {
+        inputs = new BenchmarkData(mix).polymodInputs();
+    }
+
+    // the original BIP-0173 loop, as found in Bech32.Impl
+    @Benchmark
+    public long polymod() {
+        return Bech32.Impl.polymod(inputs[index++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public long enginePolymod() {
+        return engine.polymod(inputs[index++ & BenchmarkData.MASK]);
+    }
+}
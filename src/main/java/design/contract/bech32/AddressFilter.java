@@ -0,0 +1,267 @@
+package design.contract.bech32;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A Bloom filter over bech32 strings, for ruling out quickly and in little memory that a
+// string belongs to a set, before a costlier lookup such as an AddressTable or a
+// database. It never answers false for a string that was added; it answers true for
+// other strings with about the false positive rate it was sized for.
+//
+// No separate hash of the string is computed. A valid string's six checksum values are
+// the polymod residue of its HRP and data part, xored with the encoding's constant, so
+// they are already a well-mixed 30-bit function of the whole string, verified by the
+// same pass that checks the string. The filter's key is those 30 bits, the 30 bits of
+// data just before them and the low bits of the length; the SplitMix64 finalizer
+// spreads it over 64 bits, from which the probes are derived by double hashing.
+//
+// Strings are matched ignoring case, and strings that don't verify are never members.
+// Adds and lookups may run concurrently: bits are only ever set, with compare-and-set.
+public final class AddressFilter {
+
+    private static final int MAGIC = 0x42333246; // "B32F"
+    private static final int VERSION = 1;
+    private static final int MAX_HASHES = 16;
+    // bit indexes are reduced from 32-bit probes, so at most 2^32 bits (512 MB)
+    private static final long MAX_BITS = 1L << 32;
+
+    private final ChecksumEngine engine = ChecksumEngine.getDefault();
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final LongAdder added = new LongAdder();
+
+    // a filter sized to hold expectedInsertions strings with about the given false
+    // positive rate, which must be strictly between 0 and 1
+    public AddressFilter(final long expectedInsertions, final double falsePositiveRate) {
+        if (expectedInsertions < 0)
+            throw new IllegalArgumentException("expected insertions must not be negative");
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+            throw new IllegalArgumentException("false positive rate must be between 0 and 1");
+        long n = Math.max(expectedInsertions, 1);
+        double ln2 = Math.log(2);
+        double optimalBits = Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        if (optimalBits > MAX_BITS)
+            throw new IllegalArgumentException("filter would need more than " + MAX_BITS + " bits");
+        long wordCount = Math.max(((long) optimalBits + 63) >>> 6, 1);
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bits = wordCount << 6;
+        this.hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bits / n * ln2)));
+    }
+
+    private AddressFilter(final AtomicLongArray words, final int hashes, final long added) {
+        this.words = words;
+        this.bits = (long) words.length() << 6;
+        this.hashes = hashes;
+        this.added.add(added);
+    }
+
+    // a filter holding every valid string of a batch, sized for the batch and built in
+    // parallel; strings that don't verify are skipped
+    public static AddressFilter build(final List<? extends CharSequence> bstrings, final double falsePositiveRate) {
+        AddressFilter filter = new AddressFilter(bstrings.size(), falsePositiveRate);
+        filter.addAll(bstrings);
+        return filter;
+    }
+
+    // add a bech32 string, returning true if this changed the filter, which is always the
+    // case for a string not added before. Strings that don't verify are rejected with a
+    // Bech32Exception.
+    public boolean add(final CharSequence bstring) {
+        long key = key(engine, bstring);
+        if (key == 0) {
+            MutableDecodedResult result = new MutableDecodedResult();
+            DecodeStatus status = new Bech32Decoder(engine).tryDecode(bstring, result);
+            throw new Bech32Exception(status == DecodeStatus.OK ? DecodeStatus.BAD_CHECKSUM : status,
+                    result.getErrorPosition());
+        }
+        return set(key);
+    }
+
+    // add every valid string of a batch in parallel, skipping those that don't verify.
+    // Returns the number of valid strings.
+    public int addAll(final List<? extends CharSequence> bstrings) {
+        Objects.requireNonNull(bstrings);
+        LongAdder valid = new LongAdder();
+        if (!bstrings.isEmpty())
+            ForkJoinPool.commonPool().invoke(new AddTask(this, bstrings, 0, bstrings.size(), valid));
+        return valid.intValue();
+    }
+
+    // false if the string was certainly never added, including when it doesn't verify;
+    // true if it probably was
+    public boolean mightContain(final CharSequence bstring) {
+        long key = key(engine, bstring);
+        if (key == 0)
+            return false;
+        long h = mix(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & 1L << bit) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean set(final long key) {
+        long h = mix(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long old;
+            while (((old = words.get(word)) & mask) == 0) {
+                if (words.compareAndSet(word, old, old | mask)) {
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        if (changed)
+            added.increment();
+        return changed;
+    }
+
+    // a probe reduced to [0, bits) by multiplying rather than dividing
+    private long index(final int probe) {
+        return ((probe & 0xffffffffL) * bits) >>> 32;
+    }
+
+    // the filter key of a bech32 string, or 0 if it doesn't verify: the last 12 data part
+    // values (or as many as there are, at least the 6 of the checksum) in the low 60 bits,
+    // the low bits of the length above them, and the top bit set so that no key is 0
+    static long key(final ChecksumEngine engine, final CharSequence bstring) {
+        Objects.requireNonNull(bstring);
+        int length = bstring.length();
+        int separator = lastIndexOf(bstring, Bech32.SEPARATOR);
+        if (separator < 1 || Bech32Decoder.verify(engine, bstring, null, separator) == DecodedResult.Encoding.INVALID)
+            return 0;
+        long key = 0;
+        for (int i = Math.max(separator + 1, length - 12); i < length; i++)
+            key = key << 5 | Bech32.REVERSE_CHARSET[bstring.charAt(i)];
+        return key | (long) (length & 7) << 60 | Long.MIN_VALUE;
+    }
+
+    private static int lastIndexOf(final CharSequence s, final char c) {
+        for (int i = s.length() - 1; i >= 0; i--) {
+            if (s.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+    // the 64-bit finalizer of SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getBitSize() {
+        return bits;
+    }
+
+    public int getHashCount() {
+        return hashes;
+    }
+
+    // the number of adds that changed the filter, which slightly undercounts the distinct
+    // strings added once false positives occur
+    public long getApproximateCount() {
+        return added.sum();
+    }
+
+    // the false positive rate to expect given the bits set so far
+    public double getExpectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++)
+            set += Long.bitCount(words.get(i));
+        return Math.pow((double) set / bits, hashes);
+    }
+
+    // write the filter, as readFrom() reads it. Adds running at the same time may or may
+    // not be included.
+    public void writeTo(final OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(hashes);
+        data.writeLong(added.sum());
+        data.writeInt(words.length());
+        for (int i = 0; i < words.length(); i++)
+            data.writeLong(words.get(i));
+        data.flush();
+    }
+
+    public static AddressFilter readFrom(final InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("not a bech32 address filter");
+        int version = data.readInt();
+        if (version != VERSION)
+            throw new IOException("unsupported address filter version " + version);
+        int hashes = data.readInt();
+        long added = data.readLong();
+        int wordCount = data.readInt();
+        if (hashes < 1 || hashes > MAX_HASHES || wordCount < 1 || (long) wordCount << 6 > MAX_BITS || added < 0)
+            throw new IOException("corrupt address filter header");
+        AtomicLongArray words = new AtomicLongArray(wordCount);
+        for (int i = 0; i < wordCount; i++)
+            words.set(i, data.readLong());
+        return new AddressFilter(words, hashes, added);
+    }
+
+    // adds strings [from, to) of a batch, splitting until few enough are left
+    private static final class AddTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int SEQUENTIAL_THRESHOLD = 512;
+
+        private final AddressFilter filter;
+        private final List<? extends CharSequence> bstrings;
+        private final int from;
+        private final int to;
+        private final LongAdder valid;
+
+        AddTask(AddressFilter filter, List<? extends CharSequence> bstrings, int from, int to, LongAdder valid) {
+            this.filter = filter;
+            this.bstrings = bstrings;
+            this.from = from;
+            this.to = to;
+            this.valid = valid;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                int n = 0;
+                for (int i = from; i < to; i++) {
+                    CharSequence bstring = bstrings.get(i);
+                    long key = bstring != null ? key(filter.engine, bstring) : 0;
+                    if (key != 0) {
+                        filter.set(key);
+                        n++;
+                    }
+                }
+                valid.add(n);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new AddTask(filter, bstrings, from, mid, valid),
+                    new AddTask(filter, bstrings, mid, to, valid));
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package design.contract.bech32;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+
+// A set of decoded bech32 strings held off-heap, for address sets too large to keep as
+// Strings or DecodedResults. Each entry is a fixed-size record in a direct ByteBuffer:
+//
+//   byte 0      HRP id (an index into a small on-heap table of up to 255 HRPs)
+//   byte 1      encoding (DecodedResult.Encoding ordinal)
+//   byte 2      number of 5-bit data values
+//   bytes 3-54  the data values, packed as by CompactDecodedResult
+//
+// so an entry takes 56 bytes plus its index slot, and nothing on the heap. Records are
+// kept in chunks of 64K, so growing never copies them.
+//
+// The index is an open-addressed hash table of 8-byte slots (record number + 1, and the
+// record's hash) in another direct buffer, probed linearly and doubled at 3/4 full. It
+// holds up to 2^27 slots, so about 100 million entries. Lookups decode the input string,
+// pack its data part and probe the index, without allocating.
+//
+// Lookups may run concurrently with each other and with adds: they read optimistically
+// and retry under a read lock if an add got in the way. Adds are serialized. Buffers
+// dropped when the index grows are released by the garbage collector.
+public final class AddressTable {
+
+    static final int RECORD_SIZE = 56;
+    private static final int HEADER_SIZE = 3;
+    private static final int MAX_PACKED_LENGTH = CompactDecodedResult.packedLength(MutableDecodedResult.MAX_DP_LENGTH);
+    private static final int MAX_HRPS = 255;
+    private static final DecodedResult.Encoding[] ENCODINGS = DecodedResult.Encoding.values();
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+    private static final int SLOT_SIZE = 8;
+    private static final int MIN_SLOTS = 16;
+    private static final int MAX_SLOTS = 1 << 27;
+
+    // a decoder and buffers for each thread doing lookups
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final class Scratch {
+        final Bech32Decoder decoder = new Bech32Decoder();
+        final MutableDecodedResult result = new MutableDecodedResult();
+        final byte[] packed = new byte[MAX_PACKED_LENGTH];
+    }
+
+    private final StampedLock lock = new StampedLock();
+
+    private volatile String[] hrps = new String[0];
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile ByteBuffer index;
+    private volatile int slots;
+    private volatile int size;
+
+    public AddressTable() {
+        this(0);
+    }
+
+    // a table with room for expectedSize entries before its index has to grow
+    public AddressTable(final int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expected size must not be negative");
+        int needed = MIN_SLOTS;
+        while (needed < MAX_SLOTS && needed / 4 * 3 < expectedSize)
+            needed <<= 1;
+        this.slots = needed;
+        this.index = ByteBuffer.allocateDirect(needed * SLOT_SIZE);
+    }
+
+    // add a bech32 string, returning its entry number, which is that of the existing entry
+    // if the table already holds it. Strings that don't decode are rejected with a
+    // Bech32Exception, including those whose checksum doesn't verify.
+    public int add(final CharSequence bstring) {
+        Scratch scratch = SCRATCH.get();
+        DecodeStatus status = scratch.decoder.tryDecode(bstring, scratch.result);
+        if (status != DecodeStatus.OK)
+            throw new Bech32Exception(status, scratch.result.getErrorPosition());
+        return add(scratch.result);
+    }
+
+    // add a valid decoded result, returning its entry number
+    public int add(final MutableDecodedResult result) {
+        if (!result.isValid())
+            throw new IllegalArgumentException("result does not hold a valid decode");
+        return add(result.hrpBuffer(), result.getHrpLength(), result.dpBuffer(), result.getDpLength(),
+                result.getEncoding());
+    }
+
+    // add a decoded result, returning its entry number. Its HRP and data part are checked
+    // as encode() checks them, and the HRP is lowercased, as lookups expect.
+    public int add(final DecodedResult result) {
+        if (result.getEncoding() == DecodedResult.Encoding.INVALID)
+            throw new IllegalArgumentException("result does not hold a valid decode");
+        char[] dp = result.getDp();
+        char[] hrp = Bech32.validated(result.getHrp(), dp).hrp.toCharArray();
+        if (dp.length > MutableDecodedResult.MAX_DP_LENGTH)
+            throw new IllegalArgumentException("data part is too long");
+        return add(hrp, hrp.length, dp, dp.length, result.getEncoding());
+    }
+
+    private int add(final char[] hrp, final int hrpLength, final char[] dp, final int dpLength,
+                    final DecodedResult.Encoding encoding) {
+        byte[] packed = new byte[MAX_PACKED_LENGTH];
+        int packedLength = CompactDecodedResult.pack(dp, dpLength, packed);
+        long stamp = lock.writeLock();
+        try {
+            int hrpId = hrpId(hrp, hrpLength);
+            if (hrpId < 0)
+                hrpId = addHrp(new String(hrp, 0, hrpLength));
+            int hash = hash(hrpId, encoding.ordinal(), dpLength, packed, packedLength);
+            int found = find(index, slots, chunks, hash, hrpId, encoding.ordinal(), dpLength, packed, packedLength);
+            if (found >= 0)
+                return found;
+
+            if (size == Integer.MAX_VALUE || (size + 1 > slots / 4 * 3 && slots == MAX_SLOTS))
+                throw new IllegalStateException("address table is full");
+            if (size + 1 > slots / 4 * 3)
+                grow();
+            int record = size;
+            if ((record & CHUNK_MASK) == 0)
+                addChunk();
+            ByteBuffer chunk = chunks[record >>> CHUNK_SHIFT];
+            int base = (record & CHUNK_MASK) * RECORD_SIZE;
+            chunk.put(base, (byte) hrpId);
+            chunk.put(base + 1, (byte) encoding.ordinal());
+            chunk.put(base + 2, (byte) dpLength);
+            for (int i = 0; i < packedLength; i++)
+                chunk.put(base + HEADER_SIZE + i, packed[i]);
+            insert(index, slots, hash, record);
+            size = record + 1;
+            return record;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // add every valid line of a newline-delimited file, decoding it in parallel with
+    // Bech32FileScanner. Invalid lines are counted in the summary and skipped; lines
+    // already in the table are left as they are.
+    public Bech32FileScanner.Summary load(final Path path) throws IOException {
+        return new Bech32FileScanner(path).scan((offset, status, result, error) -> {
+            if (status == BatchDecodeResult.Status.VALID)
+                add(result);
+        });
+    }
+
+    // true if the table holds the given bech32 string (in either case)
+    public boolean contains(final CharSequence bstring) {
+        return indexOf(bstring) >= 0;
+    }
+
+    // the entry number of the given bech32 string, or -1 if the table doesn't hold it or
+    // it doesn't decode
+    public int indexOf(final CharSequence bstring) {
+        Objects.requireNonNull(bstring);
+        Scratch scratch = SCRATCH.get();
+        MutableDecodedResult result = scratch.result;
+        if (scratch.decoder.tryDecode(bstring, result) != DecodeStatus.OK)
+            return -1;
+        int dpLength = result.getDpLength();
+        int packedLength = CompactDecodedResult.pack(result.dpBuffer(), dpLength, scratch.packed);
+        int encoding = result.getEncoding().ordinal();
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int found = find(result, encoding, dpLength, scratch.packed, packedLength);
+                if (lock.validate(stamp))
+                    return found;
+            } catch (RuntimeException e) {
+                // an add moved things while we read; retry below
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(result, encoding, dpLength, scratch.packed, packedLength);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int find(final MutableDecodedResult result, final int encoding, final int dpLength, final byte[] packed,
+                     final int packedLength) {
+        int hrpId = hrpId(result.hrpBuffer(), result.getHrpLength());
+        if (hrpId < 0)
+            return -1;
+        int hash = hash(hrpId, encoding, dpLength, packed, packedLength);
+        return find(index, slots, chunks, hash, hrpId, encoding, dpLength, packed, packedLength);
+    }
+
+    // the decoded form of entry number i
+    public DecodedResult get(final int i) {
+        long stamp = lock.readLock();
+        try {
+            if (i < 0 || i >= size)
+                throw new IndexOutOfBoundsException("index: " + i + ", size: " + size);
+            ByteBuffer chunk = chunks[i >>> CHUNK_SHIFT];
+            int base = (i & CHUNK_MASK) * RECORD_SIZE;
+            String hrp = hrps[chunk.get(base) & 0xff];
+            DecodedResult.Encoding encoding = ENCODINGS[chunk.get(base + 1)];
+            int dpLength = chunk.get(base + 2);
+            byte[] packed = new byte[CompactDecodedResult.packedLength(dpLength)];
+            for (int j = 0; j < packed.length; j++)
+                packed[j] = chunk.get(base + HEADER_SIZE + j);
+            char[] dp = new char[dpLength];
+            CompactDecodedResult.unpack(packed, dpLength, dp, 0);
+            return new DecodedResult(hrp, dp, encoding);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // entry number i encoded as a (lowercase) bech32 string
+    public String getString(final int i) {
+        DecodedResult result = get(i);
+        return result.getEncoding() == DecodedResult.Encoding.BECH32
+                ? Bech32.encodeUsingOriginalConstant(result.getHrp(), result.getDp())
+                : Bech32.encode(result.getHrp(), result.getDp());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // bytes of direct memory held by the records and the index
+    public long offHeapBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) chunks.length * CHUNK_RECORDS * RECORD_SIZE + (long) slots * SLOT_SIZE;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // id of the lowercase HRP in hrp[0, length), or -1
+    private int hrpId(final char[] hrp, final int length) {
+        String[] known = hrps;
+        for (int id = 0; id < known.length; id++) {
+            String s = known[id];
+            if (s.length() != length)
+                continue;
+            int i = 0;
+            while (i < length && s.charAt(i) == hrp[i])
+                i++;
+            if (i == length)
+                return id;
+        }
+        return -1;
+    }
+
+    private int addHrp(final String hrp) {
+        String[] known = hrps;
+        if (known.length == MAX_HRPS)
+            throw new IllegalStateException("address table holds at most " + MAX_HRPS + " HRPs");
+        String[] grown = Arrays.copyOf(known, known.length + 1);
+        grown[known.length] = HrpPool.intern(hrp);
+        hrps = grown;
+        return known.length;
+    }
+
+    private void addChunk() {
+        ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE);
+        chunks = grown;
+    }
+
+    // double the index, rehashing every record from its stored hash
+    private void grow() {
+        int newSlots = slots << 1;
+        ByteBuffer newIndex = ByteBuffer.allocateDirect(newSlots * SLOT_SIZE);
+        for (int slot = 0; slot < slots; slot++) {
+            int recordPlusOne = index.getInt(slot * SLOT_SIZE);
+            if (recordPlusOne != 0)
+                insert(newIndex, newSlots, index.getInt(slot * SLOT_SIZE + 4), recordPlusOne - 1);
+        }
+        index = newIndex;
+        slots = newSlots;
+    }
+
+    private static void insert(final ByteBuffer index, final int slots, final int hash, final int record) {
+        int mask = slots - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            if (index.getInt(slot * SLOT_SIZE) == 0) {
+                index.putInt(slot * SLOT_SIZE + 4, hash);
+                index.putInt(slot * SLOT_SIZE, record + 1);
+                return;
+            }
+        }
+    }
+
+    private static int find(final ByteBuffer index, final int slots, final ByteBuffer[] chunks, final int hash,
+                            final int hrpId, final int encoding, final int dpLength, final byte[] packed,
+                            final int packedLength) {
+        int mask = slots - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int recordPlusOne = index.getInt(slot * SLOT_SIZE);
+            if (recordPlusOne == 0)
+                return -1;
+            if (index.getInt(slot * SLOT_SIZE + 4) != hash)
+                continue;
+            int record = recordPlusOne - 1;
+            ByteBuffer chunk = chunks[record >>> CHUNK_SHIFT];
+            int base = (record & CHUNK_MASK) * RECORD_SIZE;
+            if ((chunk.get(base) & 0xff) != hrpId || chunk.get(base + 1) != encoding || chunk.get(base + 2) != dpLength)
+                continue;
+            int i = 0;
+            while (i < packedLength && chunk.get(base + HEADER_SIZE + i) == packed[i])
+                i++;
+            if (i == packedLength)
+                return record;
+        }
+    }
+
+    // 31-based hash of a record, finished with the MurmurHash3 mixer so that the low bits
+    // used to pick a slot depend on all of it
+    private static int hash(final int hrpId, final int encoding, final int dpLength, final byte[] packed,
+                            final int packedLength) {
+        int h = (hrpId * 31 + encoding) * 31 + dpLength;
+        for (int i = 0; i < packedLength; i++)
+            h = 31 * h + packed[i];
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
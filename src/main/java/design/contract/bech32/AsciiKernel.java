@@ -0,0 +1,68 @@
+package design.contract.bech32;
+
+import java.nio.ByteBuffer;
+
+// The inner loops that can be accelerated on newer JDKs: scanning ASCII input, mapping
+// data characters through REVERSE_CHARSET, and checksumming a batch of data parts.
+//
+// This class holds the portable implementations. On Java 17+ a multi-release JAR can
+// supply a Vector API subclass instead; AsciiKernels.load() picks whichever is usable,
+// and every implementation must give exactly the same results.
+class AsciiKernel {
+
+    // the kernel in use, chosen once at startup
+    static final AsciiKernel INSTANCE = AsciiKernels.load();
+
+    // SwarAscii.scan() of buf[offset, offset + length)
+    int scan(final byte[] buf, final int offset, final int length) {
+        return SwarAscii.scan(buf, offset, length);
+    }
+
+    // SwarAscii.scan() of buf[offset, offset + length), using absolute indexes
+    int scan(final ByteBuffer buf, final int offset, final int length) {
+        return SwarAscii.scan(buf, offset, length);
+    }
+
+    // map buf[offset, offset + length) through REVERSE_CHARSET into dst, returning a
+    // negative value if any byte isn't a bech32 character. The bytes must already be
+    // known to be within range and of a single case.
+    int map(final byte[] buf, final int offset, final int length, final char[] dst) {
+        int invalid = 0;
+        for (int i = 0; i < length; i++) {
+            int d = Bech32.REVERSE_CHARSET[buf[offset + i]];
+            invalid |= d;
+            dst[i] = (char) d;
+        }
+        return invalid;
+    }
+
+    // as above, using absolute indexes in the buffer
+    int map(final ByteBuffer buf, final int offset, final int length, final char[] dst) {
+        int invalid = 0;
+        for (int i = 0; i < length; i++) {
+            int d = Bech32.REVERSE_CHARSET[buf.get(offset + i)];
+            invalid |= d;
+            dst[i] = (char) d;
+        }
+        return invalid;
+    }
+
+    // for each item i in [from, to), data[offsets[i], offsets[i + 1]), the residue after
+    // feeding its values and then six zeros into a checksum that starts at residue, into
+    // out[outOffset + i - from]. XORing in the constant gives the checksum.
+    void checksums(final ChecksumEngine engine, final long residue, final char[] data, final int[] offsets,
+                   final int from, final int to, final long[] out, final int outOffset) {
+        for (int item = from; item < to; item++) {
+            int start = offsets[item];
+            long mod = engine.polymod(residue, data, start, offsets[item + 1] - start);
+            for (int i = 0; i < Bech32.Limits.CHECKSUM_LENGTH; i += 2)
+                mod = engine.step2(mod, 0, 0);
+            out[outOffset + item - from] = mod;
+        }
+    }
+
+    // a short name for benchmark and diagnostic output
+    String name() {
+        return "swar";
+    }
+}
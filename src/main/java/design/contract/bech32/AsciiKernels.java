@@ -0,0 +1,17 @@
+package design.contract.bech32;
+
+// Chooses the AsciiKernel. This is the Java 8 version, which always uses the portable
+// one; a multi-release JAR replaces this class on Java 17+ with one that can load the
+// Vector API kernel.
+final class AsciiKernels {
+
+    static final String PROPERTY = "design.contract.bech32.vector";
+
+    static AsciiKernel load() {
+        return new AsciiKernel();
+    }
+
+    private AsciiKernels() {
+        throw new IllegalStateException("should not instantiate");
+    }
+}
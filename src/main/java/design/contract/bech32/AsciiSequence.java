@@ -0,0 +1,102 @@
+package design.contract.bech32;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// A reusable CharSequence view over single-byte characters held in a byte[] or a (heap or
+// direct) ByteBuffer. Nothing is copied; each byte is read in place as an ISO-8859-1
+// char, so plain ASCII reads exactly as it would from a String. Bech32Decoder keeps one
+// of these so that decoding from bytes doesn't allocate.
+final class AsciiSequence implements CharSequence {
+
+    private byte[] array;
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    AsciiSequence wrap(final byte[] array, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset > array.length - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", array length: " + array.length);
+        this.array = array;
+        this.buffer = null;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    // view the bytes between the buffer's position and limit, without changing either
+    AsciiSequence wrap(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return wrap(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        this.array = null;
+        this.buffer = buffer;
+        this.offset = buffer.position();
+        this.length = buffer.remaining();
+        return this;
+    }
+
+    // view buffer[offset, offset + length), using absolute indexes
+    AsciiSequence wrap(final ByteBuffer buffer, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset > buffer.limit() - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", limit: " + buffer.limit());
+        if (buffer.hasArray()) {
+            return wrap(buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+        this.array = null;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    // SwarAscii.scan() of the wrapped bytes
+    int scan() {
+        AsciiKernel kernel = AsciiKernel.INSTANCE;
+        return array != null ? kernel.scan(array, offset, length) : kernel.scan(buffer, offset, length);
+    }
+
+    // AsciiKernel.map() of the wrapped bytes [start, start + count), which must be in range
+    // and of a single case
+    int map(final int start, final int count, final char[] dst) {
+        AsciiKernel kernel = AsciiKernel.INSTANCE;
+        return array != null ? kernel.map(array, offset + start, count, dst) : kernel.map(buffer, offset + start, count, dst);
+    }
+
+    // drop the reference to the wrapped bytes
+    void clear() {
+        array = null;
+        buffer = null;
+        offset = 0;
+        length = 0;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        if (array != null)
+            return (char) (array[offset + index] & 0xff);
+        return (char) (buffer.get(offset + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (array != null)
+            return new String(array, offset, length, StandardCharsets.ISO_8859_1);
+        byte[] copy = new byte[length];
+        for (int i = 0; i < length; i++)
+            copy[i] = buffer.get(offset + i);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,77 @@
+package design.contract.bech32;
+
+// Results of decoding a batch of bech32 strings with Bech32.decodeAll(). Each entry has
+// its own status, so a malformed string doesn't abort the rest of the batch.
+//
+// A BatchDecodeResult can be allocated up front and reused for batches of the same size.
+// Entries are written by the decoding threads and are safe to read once decodeAll()
+// has returned.
+public class BatchDecodeResult {
+
+    public enum Status {
+        VALID,            // decoded, and the checksum verified
+        INVALID_CHECKSUM, // well-formed, but the checksum didn't verify
+        MALFORMED         // rejected before the checksum was checked; see getError()
+    }
+
+    private final DecodedResult[] results;
+    private final String[] errors;
+
+    public BatchDecodeResult(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("size must not be negative");
+        this.results = new DecodedResult[size];
+        this.errors = new String[size];
+    }
+
+    public int size() {
+        return results.length;
+    }
+
+    // the decoded result, or a new one with encoding INVALID if the string wasn't decoded
+    public DecodedResult get(int index) {
+        DecodedResult result = results[index];
+        return result == null ? new DecodedResult() : result;
+    }
+
+    public Status getStatus(int index) {
+        if (errors[index] != null)
+            return Status.MALFORMED;
+        if (results[index] == null)
+            return Status.INVALID_CHECKSUM;
+        return Status.VALID;
+    }
+
+    public boolean isValid(int index) {
+        return getStatus(index) == Status.VALID;
+    }
+
+    // the message of the exception Bech32.decode() would have thrown, or null
+    public String getError(int index) {
+        return errors[index];
+    }
+
+    public int countValid() {
+        int count = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null)
+                count++;
+        }
+        return count;
+    }
+
+    void setValid(int index, DecodedResult result) {
+        results[index] = result;
+        errors[index] = null;
+    }
+
+    void setInvalidChecksum(int index) {
+        results[index] = null;
+        errors[index] = null;
+    }
+
+    void setMalformed(int index, String error) {
+        results[index] = null;
+        errors[index] = error;
+    }
+}
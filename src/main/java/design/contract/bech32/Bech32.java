@@ -1,8 +1,14 @@
 package design.contract.bech32;
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
-import java.util.function.BiFunction;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 public class Bech32 {
 
@@ -41,13 +47,13 @@ public class Bech32 {
         // bech32 string must be at least 8 chars long: HRP (min 1 char) + '1' + 6-char checksum
         static void rejectBStringTooShort(final String bstring) {
             if (bstring.length() < Limits.MIN_BECH32_LENGTH)
-                throw new IllegalArgumentException("bech32 string too short");
+                throw new Bech32Exception(DecodeStatus.TOO_SHORT, bstring.length());
         }
 
         // bech32 string can be at most 90 characters long
         static void rejectBStringTooLong(final String bstring) {
             if (bstring.length() > Limits.MAX_BECH32_LENGTH)
-                throw new IllegalArgumentException("bech32 string too long");
+                throw new Bech32Exception(DecodeStatus.TOO_LONG, Limits.MAX_BECH32_LENGTH);
         }
 
         // bech32 string can not mix upper and lower case
@@ -57,7 +63,7 @@ public class Bech32 {
             boolean atLeastOneLower = bstring.chars()
                     .anyMatch(Character::isLowerCase);
             if(atLeastOneUpper && atLeastOneLower) {
-                throw new IllegalArgumentException("bech32 string is mixed case");
+                throw new Bech32Exception(DecodeStatus.MIXED_CASE, -1);
             }
         }
 
@@ -66,24 +72,40 @@ public class Bech32 {
             boolean atLeastOneOutOfRange = bstring.chars()
                     .anyMatch(c -> (c < Limits.MIN_BECH32_CHAR_VALUE || c > Limits.MAX_BECH32_CHAR_VALUE));
             if(atLeastOneOutOfRange) {
-                throw new IllegalArgumentException("bech32 string has value out of range");
+                throw new Bech32Exception(DecodeStatus.OUT_OF_RANGE, -1);
             }
         }
 
         // bech32 string must contain the separator character
         static void rejectBStringWithNoSeparator(final String bstring) {
             if(bstring.chars().noneMatch(c -> (c == SEPARATOR))) {
-                throw new IllegalArgumentException("bech32 string is missing separator character");
+                throw new Bech32Exception(DecodeStatus.NO_SEPARATOR, -1);
             }
         }
 
-        // bech32 string must conform to rules laid out in BIP-0173
+        // bech32 string must conform to rules laid out in BIP-0173. This is equivalent to
+        // calling each of the above in turn, but only walks the string once.
         static void rejectBStringThatIsntWellFormed(final String bstring) {
             rejectBStringTooShort(bstring);
             rejectBStringTooLong(bstring);
-            rejectBStringMixedCase(bstring);
-            rejectBStringValuesOutOfRange(bstring);
-            rejectBStringWithNoSeparator(bstring);
+
+            boolean atLeastOneUpper = false;
+            boolean atLeastOneLower = false;
+            boolean atLeastOneOutOfRange = false;
+            boolean separator = false;
+            for (int i = 0, length = bstring.length(); i < length; i++) {
+                char c = bstring.charAt(i);
+                atLeastOneUpper |= Character.isUpperCase(c);
+                atLeastOneLower |= Character.isLowerCase(c);
+                atLeastOneOutOfRange |= c < Limits.MIN_BECH32_CHAR_VALUE || c > Limits.MAX_BECH32_CHAR_VALUE;
+                separator |= c == SEPARATOR;
+            }
+            if (atLeastOneUpper && atLeastOneLower)
+                throw new Bech32Exception(DecodeStatus.MIXED_CASE, -1);
+            if (atLeastOneOutOfRange)
+                throw new Bech32Exception(DecodeStatus.OUT_OF_RANGE, -1);
+            if (!separator)
+                throw new Bech32Exception(DecodeStatus.NO_SEPARATOR, -1);
         }
 
         // return the position of the separator character
@@ -108,10 +130,11 @@ public class Bech32 {
             for (int i = 0, dpLength = dp.length; i < dpLength; i++) {
                 char c = dp[i];
                 if (c > Limits.REVERSE_CHARSET_SIZE - 1)
-                    throw new IllegalArgumentException("data part contains character value out of range");
+                    throw new Bech32Exception(DecodeStatus.OUT_OF_RANGE, -1,
+                            "data part contains character value out of range");
                 int d = REVERSE_CHARSET[c];
                 if (d == -1)
-                    throw new IllegalArgumentException("data part contains invalid character");
+                    throw new Bech32Exception(DecodeStatus.INVALID_CHAR, -1);
                 dp[i] = (char) d;
             }
         }
@@ -134,22 +157,28 @@ public class Bech32 {
         }
 
         // Find the polynomial with value coefficients mod the generator as 30-bit.
-        // Adapted from Pieter Wuille's code in BIP-0173
+        // Adapted from Pieter Wuille's code in BIP-0173. This is the reference
+        // implementation; see ChecksumEngine for the table-driven variants.
         static long polymod(final char[] values) {
             long chk = 1;
             for (char value : values) {
-                int top = (int)(chk >> 25);
-                chk = (
-                        (chk & 0x1ffffff) << 5 ^ value ^
-                                (-((top     ) & 1) & 0x3b6a57b2) ^
-                                (-((top >> 1) & 1) & 0x26508e6d) ^
-                                (-((top >> 2) & 1) & 0x1ea119fa) ^
-                                (-((top >> 3) & 1) & 0x3d4233dd) ^
-                                (-((top >> 4) & 1) & 0x2a1462b3));
+                chk = polymodStep(chk, value);
             }
             return chk;
         }
 
+        // feed a single 5-bit value into a running polymod checksum
+        static long polymodStep(final long chk, final int value) {
+            int top = (int)(chk >> 25);
+            return (
+                    (chk & 0x1ffffff) << 5 ^ value ^
+                            (-((top     ) & 1) & 0x3b6a57b2) ^
+                            (-((top >> 1) & 1) & 0x26508e6d) ^
+                            (-((top >> 2) & 1) & 0x1ea119fa) ^
+                            (-((top >> 3) & 1) & 0x3d4233dd) ^
+                            (-((top >> 4) & 1) & 0x2a1462b3));
+        }
+
         // concatenate two char arrays
         static char[] cat(final char[] x, final char[] y) {
             char[] result = Arrays.copyOf(x, x.length + y.length);
@@ -159,7 +188,7 @@ public class Bech32 {
 
         // verify the checksum on a Bech32 string
         static boolean verifyChecksumBasis(final String hrp, final char[] dp, final int constant) {
-            return polymod(cat(expandHrp(hrp).toCharArray(), dp)) == constant;
+            return ChecksumEngine.getDefault().polymod(cat(expandHrp(hrp).toCharArray(), dp)) == constant;
         }
 
         // verify the checksum on a Bech32 string
@@ -183,7 +212,7 @@ public class Bech32 {
             char[] combined = cat(expandHrp(hrp).toCharArray(), dp);
             char[] expanded = Arrays.copyOf(combined, combined.length + Limits.CHECKSUM_LENGTH);
 
-            long mod = polymod(expanded) ^ constant;
+            long mod = ChecksumEngine.getDefault().polymod(expanded) ^ constant;
             char[] ret = new char[Limits.CHECKSUM_LENGTH];
             for(int i = 0; i < Limits.CHECKSUM_LENGTH; ++i) {
                 ret[i] = (char)((mod >> (5 * (5 - i))) & 31);
@@ -204,17 +233,27 @@ public class Bech32 {
 
         static void rejectHRPTooShort(final String hrp) {
             if(hrp.length() < Limits.MIN_HRP_LENGTH)
-                throw new IllegalArgumentException("HRP must be at least one character");
+                throw new Bech32Exception(DecodeStatus.HRP_TOO_SHORT, -1);
         }
 
         static void rejectHRPTooLong(final String hrp) {
             if(hrp.length() > Limits.MAX_HRP_LENGTH)
-                throw new IllegalArgumentException("HRP must be less than 84 characters");
+                throw new Bech32Exception(DecodeStatus.HRP_TOO_LONG, Limits.MAX_HRP_LENGTH);
+        }
+
+        // BIP-0173 allows HRP characters in ASCII 33-126 only. Checking this up front also
+        // means lowercasing can't change the HRP's length.
+        static void rejectHRPCharsOutOfRange(final String hrp) {
+            for (int i = 0; i < hrp.length(); i++) {
+                char c = hrp.charAt(i);
+                if (c < Limits.MIN_BECH32_CHAR_VALUE || c > Limits.MAX_BECH32_CHAR_VALUE)
+                    throw new Bech32Exception(DecodeStatus.OUT_OF_RANGE, i);
+            }
         }
 
         static void rejectDPTooShort(final char [] dp) {
             if(dp.length < Limits.CHECKSUM_LENGTH)
-                throw new IllegalArgumentException("data part must be at least six characters");
+                throw new Bech32Exception(DecodeStatus.DATA_TOO_SHORT, -1);
         }
 
         // data values must be in range ASCII 0-31 in order to index into the charset
@@ -296,69 +335,442 @@ public class Bech32 {
     }
 
     // encode a "human-readable part" and a "data part", returning a bech32 string
-    private static String encodeBasis(final String hrp, char[] dp, BiFunction<String, char[], String> createChecksumFunc) {
-        Objects.requireNonNull(hrp);
-        Objects.requireNonNull(dp);
+    private static String encodeBasis(final String hrp, char[] dp, final int constant) {
+        return encodeBasis(validated(hrp, dp), dp, constant);
+    }
 
-        Impl.rejectHRPTooShort(hrp);
-        Impl.rejectHRPTooLong(hrp);
-        Impl.rejectBothPartsTooLong(hrp, dp);
-        Impl.rejectDataValuesOutOfRange(dp);
+    // encode an already validated "data part" for a cached HRP
+    static String encodeBasis(final HrpCache.HrpState hrp, final char[] dp, final int constant) {
+        char[] out = new char[hrp.hrp.length() + 1 + dp.length + Limits.CHECKSUM_LENGTH];
+        encodeTo(hrp, dp, constant, out, 0);
+        return new String(out);
+    }
 
-        String hrpCopy = hrp.toLowerCase();
-        String checksum = createChecksumFunc.apply(hrpCopy, dp);
-        char[] combined = Impl.cat(dp, checksum.toCharArray());
+    // the checksum of an already validated "data part" for a cached HRP, as six 5-bit values
+    // in the low 30 bits. It starts from the cached state after the expanded HRP and only
+    // runs over the data part.
+    static long checksum(final HrpCache.HrpState hrp, final char[] dp, final int constant) {
+        ChecksumEngine engine = ChecksumEngine.getDefault();
+        long mod = engine.polymod(hrp.residue, dp, 0, dp.length);
+        for (int i = 0; i < Limits.CHECKSUM_LENGTH; i += 2)
+            mod = engine.step2(mod, 0, 0);
+        return mod ^ constant;
+    }
 
-        StringBuilder result = new StringBuilder(hrpCopy.length() + 1 + combined.length);
-        result.append(hrpCopy);
-        result.append(SEPARATOR);
+    // the writers behind the encodeTo() methods, for a cached HRP and an already validated
+    // "data part", with room in dst already checked. Each returns the number of chars written.
+
+    static int encodeTo(final HrpCache.HrpState hrp, final char[] dp, final int constant, final char[] dst,
+                        final int offset) {
+        Bech32Metrics metrics = Bech32Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        long mod = checksum(hrp, dp, constant);
+        int hrpLength = hrp.hrp.length();
+        hrp.hrp.getChars(0, hrpLength, dst, offset);
+        int j = offset + hrpLength;
+        dst[j++] = SEPARATOR;
+        for (char c : dp)
+            dst[j++] = CHARSET.charAt(c);
+        for (int i = 0; i < Limits.CHECKSUM_LENGTH; ++i)
+            dst[j++] = CHARSET.charAt((int) ((mod >> (5 * (5 - i))) & 31));
+        if (metrics.isEnabled())
+            recordEncode(metrics, hrp, start, j - offset, constant);
+        return j - offset;
+    }
 
-        for (char c : combined) {
-            if(c > Limits.VALID_CHARSET_SIZE - 1)
-                throw new IllegalArgumentException("data part contains invalid character");
-            result.append(CHARSET.charAt(c));
+    static int encodeTo(final HrpCache.HrpState hrp, final char[] dp, final int constant, final byte[] dst,
+                        final int offset) {
+        Bech32Metrics metrics = Bech32Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        long mod = checksum(hrp, dp, constant);
+        String h = hrp.hrp;
+        int j = offset;
+        for (int i = 0; i < h.length(); i++)
+            dst[j++] = (byte) h.charAt(i);
+        dst[j++] = SEPARATOR;
+        for (char c : dp)
+            dst[j++] = (byte) CHARSET.charAt(c);
+        for (int i = 0; i < Limits.CHECKSUM_LENGTH; ++i)
+            dst[j++] = (byte) CHARSET.charAt((int) ((mod >> (5 * (5 - i))) & 31));
+        if (metrics.isEnabled())
+            recordEncode(metrics, hrp, start, j - offset, constant);
+        return j - offset;
+    }
+
+    static int encodeTo(final HrpCache.HrpState hrp, final char[] dp, final int constant, final ByteBuffer dst) {
+        Bech32Metrics metrics = Bech32Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        long mod = checksum(hrp, dp, constant);
+        String h = hrp.hrp;
+        for (int i = 0; i < h.length(); i++)
+            dst.put((byte) h.charAt(i));
+        dst.put((byte) SEPARATOR);
+        for (char c : dp)
+            dst.put((byte) CHARSET.charAt(c));
+        for (int i = 0; i < Limits.CHECKSUM_LENGTH; ++i)
+            dst.put((byte) CHARSET.charAt((int) ((mod >> (5 * (5 - i))) & 31)));
+        int n = h.length() + 1 + dp.length + Limits.CHECKSUM_LENGTH;
+        if (metrics.isEnabled())
+            recordEncode(metrics, hrp, start, n, constant);
+        return n;
+    }
+
+    static int encodeTo(final HrpCache.HrpState hrp, final char[] dp, final int constant, final Appendable dst)
+            throws IOException {
+        Bech32Metrics metrics = Bech32Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        long mod = checksum(hrp, dp, constant);
+        dst.append(hrp.hrp);
+        dst.append(SEPARATOR);
+        for (char c : dp)
+            dst.append(CHARSET.charAt(c));
+        for (int i = 0; i < Limits.CHECKSUM_LENGTH; ++i)
+            dst.append(CHARSET.charAt((int) ((mod >> (5 * (5 - i))) & 31)));
+        int n = hrp.hrp.length() + 1 + dp.length + Limits.CHECKSUM_LENGTH;
+        if (metrics.isEnabled())
+            recordEncode(metrics, hrp, start, n, constant);
+        return n;
+    }
+
+    private static void recordEncode(final Bech32Metrics metrics, final HrpCache.HrpState hrp, final long start,
+                                     final int length, final int constant) {
+        metrics.onEncode(hrp.hrp, length, constant == M ? DecodedResult.Encoding.BECH32M : DecodedResult.Encoding.BECH32,
+                System.nanoTime() - start);
+    }
+
+    // the checksum constant for an encoding
+    static int constant(final DecodedResult.Encoding encoding) {
+        Objects.requireNonNull(encoding);
+        switch (encoding) {
+            case BECH32:
+                return 1;
+            case BECH32M:
+                return M;
+            default:
+                throw new IllegalArgumentException("no checksum constant for encoding " + encoding);
         }
-        return result.toString();
+    }
+
+    // the number of chars a bech32 string with this HRP and number of data values takes
+    public static int encodedLength(final String hrp, final int dpLength) {
+        return hrp.length() + 1 + dpLength + Limits.CHECKSUM_LENGTH;
     }
 
     // encode a "human-readable part" and a "data part", returning a bech32 string
     public static String encode(final String hrp, char[] dp) {
-        return encodeBasis(hrp, dp, Impl::createChecksum);
+        return encodeBasis(hrp, dp, M);
     }
 
     // encode a "human-readable part" and a "data part", returning a bech32 string
     public static String encodeUsingOriginalConstant(final String hrp, char[] dp) {
-        return encodeBasis(hrp, dp, Impl::createChecksumUsingOriginalConstant);
+        return encodeBasis(hrp, dp, 1);
     }
 
-    // decode a bech32 string, returning the "human-readable part" and a "data part"
-    public static DecodedResult decode(final String bstring) {
-        Objects.requireNonNull(bstring);
+    // The encodeTo() methods below encode as encode() does, but write the (lowercase) string
+    // into a caller's sink rather than returning a String, and return the number of chars
+    // written, which is encodedLength(hrp, dp.length). Array and buffer sinks are checked for
+    // room before anything is written. The HRP is looked up in the HRP cache; a Bech32Codec
+    // does the same with no allocation at all.
+
+    public static int encodeTo(final String hrp, final char[] dp, final DecodedResult.Encoding encoding,
+                               final Appendable dst) throws IOException {
+        Objects.requireNonNull(dst);
+        return encodeTo(validated(hrp, dp), dp, constant(encoding), dst);
+    }
+
+    public static int encodeTo(final String hrp, final char[] dp, final DecodedResult.Encoding encoding,
+                               final char[] dst, final int offset) {
+        HrpCache.HrpState entry = validated(hrp, dp);
+        checkRoom(dst.length, offset, encodedLength(entry.hrp, dp.length));
+        return encodeTo(entry, dp, constant(encoding), dst, offset);
+    }
+
+    // writes ASCII bytes
+    public static int encodeTo(final String hrp, final char[] dp, final DecodedResult.Encoding encoding,
+                               final byte[] dst, final int offset) {
+        HrpCache.HrpState entry = validated(hrp, dp);
+        checkRoom(dst.length, offset, encodedLength(entry.hrp, dp.length));
+        return encodeTo(entry, dp, constant(encoding), dst, offset);
+    }
 
-        Impl.rejectBStringThatIsntWellFormed(bstring);
-        String hrp = Impl.extractHumanReadablePart(bstring);
-        char[] dp = Impl.extractDataPart(bstring);
+    // writes ASCII bytes at the buffer's position, which is advanced past them. A
+    // BufferOverflowException is thrown if fewer bytes than needed remain.
+    public static int encodeTo(final String hrp, final char[] dp, final DecodedResult.Encoding encoding,
+                               final ByteBuffer dst) {
+        HrpCache.HrpState entry = validated(hrp, dp);
+        if (dst.remaining() < encodedLength(entry.hrp, dp.length))
+            throw new BufferOverflowException();
+        return encodeTo(entry, dp, constant(encoding), dst);
+    }
+
+    static HrpCache.HrpState validated(final String hrp, final char[] dp) {
+        Objects.requireNonNull(hrp);
+        Objects.requireNonNull(dp);
         Impl.rejectHRPTooShort(hrp);
         Impl.rejectHRPTooLong(hrp);
-        Impl.rejectDPTooShort(dp);
-        hrp = hrp.toLowerCase();
-        Impl.mapDP(dp);
-        if (Impl.verifyChecksum(hrp, dp)) {
-            return new DecodedResult(
-                    hrp,
-                    Impl.stripChecksum(new String(dp)).toCharArray(),
-                    DecodedResult.Encoding.BECH32M);
-        }
-        else if (Impl.verifyChecksumUsingOriginalConstant(hrp, dp)) {
-            return new DecodedResult(
-                    hrp,
-                    Impl.stripChecksum(new String(dp)).toCharArray(),
-                    DecodedResult.Encoding.BECH32);
+        Impl.rejectHRPCharsOutOfRange(hrp);
+        Impl.rejectBothPartsTooLong(hrp, dp);
+        Impl.rejectDataValuesOutOfRange(dp);
+        return HrpCache.get(hrp);
+    }
+
+    static void checkRoom(final int dstLength, final int offset, final int needed) {
+        if (offset < 0 || offset > dstLength - needed)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", needed: " + needed + ", length: " + dstLength);
+    }
+
+    // a codec pinned to one "human-readable part", which skips looking up (or recomputing)
+    // the checksum state for that HRP on every call
+    public static Bech32Codec forHrp(final String hrp) {
+        Objects.requireNonNull(hrp);
+        Impl.rejectHRPTooShort(hrp);
+        Impl.rejectHRPTooLong(hrp);
+        Impl.rejectHRPCharsOutOfRange(hrp);
+        return new Bech32Codec(HrpCache.get(hrp));
+    }
+
+    // encode data[offset, offset + length) as bytes: they are regrouped into 5-bit values,
+    // zero-padded at the end, and encoded with the given HRP, returning a bech32 string
+    public static String encodeBytes(final String hrp, final byte[] data, final int offset, final int length) {
+        return encodeBytesBasis(hrp, data, offset, length, M);
+    }
+
+    // encode all of data as bytes with the given HRP, returning a bech32 string
+    public static String encodeBytes(final String hrp, final byte[] data) {
+        Objects.requireNonNull(data);
+        return encodeBytesBasis(hrp, data, 0, data.length, M);
+    }
+
+    // encode data[offset, offset + length) as bytes, using the original constant "1"
+    public static String encodeBytesUsingOriginalConstant(final String hrp, final byte[] data, final int offset,
+                                                          final int length) {
+        return encodeBytesBasis(hrp, data, offset, length, 1);
+    }
+
+    private static String encodeBytesBasis(final String hrp, final byte[] data, final int offset, final int length,
+                                           final int constant) {
+        Objects.requireNonNull(hrp);
+        Impl.rejectHRPTooShort(hrp);
+        Impl.rejectHRPTooLong(hrp);
+        Impl.rejectHRPCharsOutOfRange(hrp);
+        return encodeBytesBasis(HrpCache.get(hrp), data, offset, length, constant);
+    }
+
+    // encode bytes for a cached HRP. Every 5 bytes are packed into a 40-bit group in a long
+    // and split into 8 values, each of which is fed to the checksum and written out as a
+    // character in the same loop, so no 5-bit array is built.
+    static String encodeBytesBasis(final HrpCache.HrpState hrp, final byte[] data, final int offset, final int length,
+                                   final int constant) {
+        Objects.requireNonNull(data);
+        if (offset < 0 || length < 0 || offset > data.length - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", data length: " + data.length);
+        int hrpLength = hrp.hrp.length();
+        int dpLength = (length * 8 + 4) / 5;
+        if (hrpLength + 1 + dpLength + Limits.CHECKSUM_LENGTH > Limits.MAX_BECH32_LENGTH)
+            throw new IllegalArgumentException("length of hrp + length of dp is too large");
+
+        Bech32Metrics metrics = Bech32Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        ChecksumEngine engine = ChecksumEngine.getDefault();
+        char[] out = new char[hrpLength + 1 + dpLength + Limits.CHECKSUM_LENGTH];
+        hrp.hrp.getChars(0, hrpLength, out, 0);
+        out[hrpLength] = SEPARATOR;
+        int j = hrpLength + 1;
+        long mod = hrp.residue;
+
+        int i = offset;
+        int end = offset + length;
+        for (; i <= end - 5; i += 5) {
+            long group = (data[i] & 0xffL) << 32 | (data[i + 1] & 0xffL) << 24 | (data[i + 2] & 0xffL) << 16 |
+                    (data[i + 3] & 0xffL) << 8 | data[i + 4] & 0xffL;
+            for (int shift = 35; shift > 0; shift -= 10) {
+                int first = (int) (group >>> shift) & 31;
+                int second = (int) (group >>> (shift - 5)) & 31;
+                mod = engine.step2(mod, first, second);
+                out[j++] = CHARSET.charAt(first);
+                out[j++] = CHARSET.charAt(second);
+            }
         }
-        else {
-            return new DecodedResult();
+        if (i < end) {
+            // the last 1 to 4 bytes, left-aligned in a group so the padding bits are zero
+            long group = 0;
+            for (int shift = 32; i < end; i++, shift -= 8)
+                group |= (data[i] & 0xffL) << shift;
+            for (int shift = 35; j < hrpLength + 1 + dpLength; shift -= 5) {
+                int value = (int) (group >>> shift) & 31;
+                mod = engine.step(mod, value);
+                out[j++] = CHARSET.charAt(value);
+            }
         }
 
+        for (int k = 0; k < Limits.CHECKSUM_LENGTH; k += 2)
+            mod = engine.step2(mod, 0, 0);
+        mod ^= constant;
+        for (int k = 0; k < Limits.CHECKSUM_LENGTH; ++k)
+            out[j++] = CHARSET.charAt((int) ((mod >> (5 * (5 - k))) & 31));
+        if (metrics.isEnabled())
+            recordEncode(metrics, hrp, start, out.length, constant);
+        return new String(out);
+    }
+
+    // the decoder behind the static decode methods. One per thread, so that its last-HRP
+    // shortcut hits across calls; a decoder keeps no state from one call that the next
+    // one relies on.
+    private static final ThreadLocal<Bech32Decoder> DECODER = ThreadLocal.withInitial(Bech32Decoder::new);
+
+    // decode a bech32 string, returning the "human-readable part" and a "data part"
+    public static DecodedResult decode(final String bstring) {
+        return DECODER.get().decode(bstring);
+    }
+
+    // decode a bech32 string from any CharSequence (e.g. a StringBuilder or CharBuffer),
+    // reading it in place
+    public static DecodedResult decode(final CharSequence bstring) {
+        return DECODER.get().decode(bstring);
+    }
+
+    // decode a bech32 string without throwing. The returned result's getStatus() is OK if
+    // the string is valid, or otherwise says why it was rejected, along with
+    // getErrorPosition().
+    public static MutableDecodedResult tryDecode(final CharSequence bstring) {
+        MutableDecodedResult result = new MutableDecodedResult();
+        DECODER.get().tryDecode(bstring, result);
+        return result;
+    }
+
+    // check a bech32 string without throwing, returning OK or the reason it was rejected
+    public static DecodeStatus validate(final CharSequence bstring) {
+        return DECODER.get().validate(bstring);
+    }
+
+    // check a bech32 string, returning a view that decodes its HRP and data part only when
+    // they're asked for. Malformed strings are rejected as by decode().
+    public static DecodedView decodeView(final String bstring) {
+        return Bech32Decoder.decodeView(null, ChecksumEngine.getDefault(), bstring);
+    }
+
+    // the encoding of a bech32 string if it's valid and has the expected HRP (compared
+    // ignoring case), or INVALID otherwise. This never throws for a malformed string, and
+    // allocates nothing, so it suits checks like "is this a bech32m address for bc?".
+    public static DecodedResult.Encoding verify(final String bstring, final String expectedHrp) {
+        return Bech32Decoder.verify(ChecksumEngine.getDefault(), bstring, expectedHrp, expectedHrp.length());
+    }
+
+    // decode a bech32 string held as ASCII bytes in buf[offset, offset + length),
+    // reading it in place
+    public static DecodedResult decodeAscii(final byte[] buf, final int offset, final int length) {
+        MutableDecodedResult result = new MutableDecodedResult();
+        DECODER.get().decodeAscii(buf, offset, length, result);
+        return result.toDecodedResult();
+    }
+
+    // decode a bech32 string held as ASCII bytes between the buffer's position and limit,
+    // reading it in place. The buffer's position and limit are left unchanged.
+    public static DecodedResult decodeAscii(final ByteBuffer buf) {
+        MutableDecodedResult result = new MutableDecodedResult();
+        DECODER.get().decodeAscii(buf, result);
+        return result.toDecodedResult();
+    }
+
+    // decode a bech32 string written by encodeBytes(), returning the bytes of its data part.
+    // Either checksum constant is accepted. Throws IllegalArgumentException if the string is
+    // malformed, the checksum doesn't verify, or the data part has invalid padding.
+    public static byte[] decodeToBytes(final String bstring) {
+        byte[] buf = new byte[MAX_DECODED_BYTES];
+        int length = DECODER.get().decodeToBytes(bstring, new MutableDecodedResult(), buf, 0);
+        return Arrays.copyOf(buf, length);
+    }
+
+    // most bytes a bech32 string can hold: 82 data values of 5 bits each
+    static final int MAX_DECODED_BYTES = (Limits.MAX_BECH32_LENGTH - 2 - Limits.CHECKSUM_LENGTH) * 5 / 8;
+
+    // for a bech32 string whose checksum doesn't verify, locate up to two substituted
+    // characters in its data part, and suggest corrections for them, under whichever
+    // constant needs fewer. This takes time linear in the length of the string instead of
+    // trying every substitution. Malformed strings are rejected with the same
+    // IllegalArgumentException as decode().
+    public static ErrorLocation locateErrors(final String bstring) {
+        return ErrorLocator.locate(bstring);
+    }
+
+    // as locateErrors(), but only under the given encoding's constant, so that both
+    // candidates can be seen when each needs about as many corrections. A string that
+    // verifies under the other constant gets errors located like any other failure.
+    public static ErrorLocation locateErrors(final String bstring, final DecodedResult.Encoding encoding) {
+        return ErrorLocator.locate(bstring, encoding);
+    }
+
+    // batches at or below this size are decoded in the calling thread by default
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 512;
+
+    // decode a batch of bech32 strings in parallel. Strings that can't be decoded are
+    // reported per entry in the result, instead of throwing.
+    public static BatchDecodeResult decodeAll(final String[] bstrings) {
+        Objects.requireNonNull(bstrings);
+        BatchDecodeResult results = new BatchDecodeResult(bstrings.length);
+        decodeAll(bstrings, results, DEFAULT_SEQUENTIAL_THRESHOLD);
+        return results;
+    }
+
+    // decode a batch of bech32 strings in parallel. Strings that can't be decoded are
+    // reported per entry in the result, instead of throwing.
+    public static BatchDecodeResult decodeAll(final List<String> bstrings) {
+        Objects.requireNonNull(bstrings);
+        BatchDecodeResult results = new BatchDecodeResult(bstrings.size());
+        decodeAll(bstrings, results, DEFAULT_SEQUENTIAL_THRESHOLD);
+        return results;
+    }
+
+    // decode a batch of bech32 strings into a preallocated result of the same size.
+    // Work is split across the common ForkJoinPool until ranges are no larger than
+    // sequentialThreshold; a batch at or below the threshold is decoded in the caller.
+    public static void decodeAll(final String[] bstrings, final BatchDecodeResult results, final int sequentialThreshold) {
+        Objects.requireNonNull(bstrings);
+        decodeAll(Arrays.asList(bstrings), results, sequentialThreshold, ForkJoinPool.commonPool());
+    }
+
+    // as above, for a list of bech32 strings
+    public static void decodeAll(final List<String> bstrings, final BatchDecodeResult results, final int sequentialThreshold) {
+        decodeAll(bstrings, results, sequentialThreshold, ForkJoinPool.commonPool());
+    }
+
+    // as above, running in the given pool
+    public static void decodeAll(final List<String> bstrings, final BatchDecodeResult results,
+                                 final int sequentialThreshold, final ForkJoinPool pool) {
+        Objects.requireNonNull(bstrings);
+        Objects.requireNonNull(results);
+        Objects.requireNonNull(pool);
+        if (sequentialThreshold < 1)
+            throw new IllegalArgumentException("sequential threshold must be at least one");
+
+        List<String> list = bstrings instanceof RandomAccess ? bstrings : Arrays.asList(bstrings.toArray(new String[0]));
+        int size = list.size();
+        if (results.size() != size)
+            throw new IllegalArgumentException("result size does not match number of bech32 strings");
+
+        Bech32Metrics metrics = Bech32Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        if (size <= sequentialThreshold)
+            DecodeTask.decodeRange(list, results, 0, size);
+        else
+            pool.invoke(new DecodeTask(list, results, 0, size, sequentialThreshold));
+        if (metrics.isEnabled()) {
+            long nanos = System.nanoTime() - start;
+            int failures = 0;
+            for (int i = 0; i < size; i++) {
+                if (!results.isValid(i))
+                    failures++;
+            }
+            metrics.onBatch("decodeAll", null, size, failures, nanos);
+        }
+    }
+
+    // decode a stream of bech32 strings. Strings that can't be decoded map to a result
+    // with encoding INVALID instead of throwing, so the stream can be split and run in
+    // parallel (e.g. Bech32.decodeAll(lines.parallel())) without one bad entry failing it.
+    public static Stream<DecodedResult> decodeAll(final Stream<String> bstrings) {
+        Objects.requireNonNull(bstrings);
+        return bstrings.map(bstring -> bstring == null ? new DecodedResult() : tryDecode(bstring).toDecodedResult());
     }
 
     private Bech32() {
@@ -0,0 +1,148 @@
+package design.contract.bech32;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+// Encodes many data parts that share a single HRP. The HRP is validated, lowercased and
+// run through the checksum once, instead of once per item.
+//
+// Input is columnar: all data parts are packed back to back in one char[], and item i
+// is data[offsets[i], offsets[i + 1]), so offsets has one more entry than there are
+// items. Output is an EncodedBatch, which holds every encoded string in one ASCII buffer.
+//
+// Instances are immutable and can be shared between threads.
+public class Bech32BatchEncoder {
+
+    private static final byte[] CHARSET_BYTES = new byte[Bech32.Limits.VALID_CHARSET_SIZE];
+
+    static {
+        for (int i = 0; i < CHARSET_BYTES.length; i++)
+            CHARSET_BYTES[i] = (byte) Bech32.CHARSET.charAt(i);
+    }
+
+    // items per AsciiKernel.checksums() call
+    private static final int CHUNK_SIZE = 256;
+
+    private final byte[] hrpBytes;
+    private final long hrpResidue;
+    private final int constant;
+    private final ChecksumEngine engine;
+
+    // encode using the default checksum constant (BECH32M)
+    public Bech32BatchEncoder(final String hrp) {
+        this(hrp, DecodedResult.Encoding.BECH32M);
+    }
+
+    public Bech32BatchEncoder(final String hrp, final DecodedResult.Encoding encoding) {
+        Objects.requireNonNull(hrp);
+        Bech32.Impl.rejectHRPTooShort(hrp);
+        Bech32.Impl.rejectHRPTooLong(hrp);
+        Bech32.Impl.rejectHRPCharsOutOfRange(hrp);
+        this.constant = Bech32.constant(encoding);
+
+        // the bytes written and the residue both come from the one cached lowercase HRP
+        HrpCache.HrpState entry = HrpCache.get(hrp);
+        this.engine = ChecksumEngine.getDefault();
+        this.hrpResidue = entry.residue;
+        this.hrpBytes = entry.hrp.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // encode all items in the calling thread
+    public EncodedBatch encode(final char[] data, final int[] offsets) {
+        return encode(data, offsets, Integer.MAX_VALUE, ForkJoinPool.commonPool());
+    }
+
+    // encode all items, splitting the work across the common ForkJoinPool until ranges
+    // are no larger than sequentialThreshold
+    public EncodedBatch encode(final char[] data, final int[] offsets, final int sequentialThreshold) {
+        return encode(data, offsets, sequentialThreshold, ForkJoinPool.commonPool());
+    }
+
+    // as above, running in the given pool
+    public EncodedBatch encode(final char[] data, final int[] offsets, final int sequentialThreshold,
+                               final ForkJoinPool pool) {
+        Objects.requireNonNull(data);
+        Objects.requireNonNull(offsets);
+        Objects.requireNonNull(pool);
+        if (sequentialThreshold < 1)
+            throw new IllegalArgumentException("sequential threshold must be at least one");
+
+        int[] outOffsets = layout(data, offsets);
+        int size = offsets.length - 1;
+        byte[] out = new byte[outOffsets[size]];
+
+        Bech32Metrics metrics = Bech32Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        if (size <= sequentialThreshold)
+            encodeRange(data, offsets, out, outOffsets, 0, size);
+        else
+            pool.invoke(new EncodeTask(this, data, offsets, out, outOffsets, 0, size, sequentialThreshold));
+        if (metrics.isEnabled())
+            metrics.onBatch("encodeBatch", new String(hrpBytes, StandardCharsets.US_ASCII), size, 0,
+                    System.nanoTime() - start);
+        return new EncodedBatch(out, outOffsets);
+    }
+
+    // validate the input, applying the same rules as Bech32.encode(), and compute where
+    // each encoded item goes in the output
+    private int[] layout(final char[] data, final int[] offsets) {
+        if (offsets.length == 0)
+            throw new IllegalArgumentException("offsets must have at least one entry");
+        int size = offsets.length - 1;
+        int perItem = hrpBytes.length + 1 + Bech32.Limits.CHECKSUM_LENGTH;
+        int[] outOffsets = new int[size + 1];
+
+        if (offsets[0] < 0 || offsets[size] > data.length)
+            throw new IndexOutOfBoundsException("offsets out of range of data");
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            int length = offsets[i + 1] - offsets[i];
+            if (length < 0)
+                throw new IllegalArgumentException("offsets must not decrease");
+            if (perItem + length > Bech32.Limits.MAX_BECH32_LENGTH)
+                throw new IllegalArgumentException("length of hrp + length of dp is too large");
+            outOffsets[i] = (int) total;
+            total += perItem + length;
+            if (total > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("encoded batch is too large");
+        }
+        outOffsets[size] = (int) total;
+
+        for (int i = offsets[0]; i < offsets[size]; i++) {
+            if (data[i] > Bech32.Limits.VALID_CHARSET_SIZE - 1)
+                throw new IllegalArgumentException("data value is out of range");
+        }
+        return outOffsets;
+    }
+
+    // encode items [from, to); the input has already been validated. Checksums are
+    // computed a chunk of items at a time by the AsciiKernel, which may run them in lanes.
+    void encodeRange(final char[] data, final int[] offsets, final byte[] out, final int[] outOffsets,
+                     final int from, final int to) {
+        AsciiKernel kernel = AsciiKernel.INSTANCE;
+        long[] mods = new long[Math.min(to - from, CHUNK_SIZE)];
+        for (int chunk = from; chunk < to; chunk += CHUNK_SIZE) {
+            int chunkEnd = Math.min(to, chunk + CHUNK_SIZE);
+            kernel.checksums(engine, hrpResidue, data, offsets, chunk, chunkEnd, mods, 0);
+            for (int item = chunk; item < chunkEnd; item++)
+                encodeItem(data, offsets, out, outOffsets, item, mods[item - chunk] ^ constant);
+        }
+    }
+
+    private void encodeItem(final char[] data, final int[] offsets, final byte[] out, final int[] outOffsets,
+                            final int item, final long mod) {
+        int hrpLength = hrpBytes.length;
+        int start = offsets[item];
+        int length = offsets[item + 1] - start;
+        int pos = outOffsets[item];
+
+        System.arraycopy(hrpBytes, 0, out, pos, hrpLength);
+        pos += hrpLength;
+        out[pos++] = (byte) Bech32.SEPARATOR;
+        for (int i = start, end = start + length; i < end; i++)
+            out[pos++] = CHARSET_BYTES[data[i]];
+        for (int i = 0; i < Bech32.Limits.CHECKSUM_LENGTH; ++i)
+            out[pos++] = CHARSET_BYTES[(int) ((mod >> (5 * (5 - i))) & 31)];
+    }
+}
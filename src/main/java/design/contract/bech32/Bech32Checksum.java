@@ -0,0 +1,117 @@
+package design.contract.bech32;
+
+import java.util.Objects;
+
+// Incremental bech32 checksum. The HRP is given up front and data values (5-bit, 0-31)
+// can then be added one at a time or in chunks, as they become available, without
+// first collecting and concatenating them. The checksum can be finished for either
+// encoding, using the same constants as Bech32.encode() and
+// Bech32.encodeUsingOriginalConstant().
+//
+// Note that only the data values are checked here; the overall length limit for a
+// bech32 string is left to the caller.
+//
+// Instances are not thread-safe.
+public class Bech32Checksum {
+
+    private final ChecksumEngine engine;
+    private long chk;
+    private int length;
+
+    public Bech32Checksum(final String hrp) {
+        this(hrp, ChecksumEngine.getDefault());
+    }
+
+    public Bech32Checksum(final String hrp, final ChecksumEngine engine) {
+        this.engine = Objects.requireNonNull(engine);
+        reset(hrp);
+    }
+
+    // start over with a new HRP, which is treated as lowercase
+    public Bech32Checksum reset(final String hrp) {
+        Objects.requireNonNull(hrp);
+        Bech32.Impl.rejectHRPTooShort(hrp);
+        Bech32.Impl.rejectHRPTooLong(hrp);
+        Bech32.Impl.rejectHRPCharsOutOfRange(hrp);
+
+        chk = HrpCache.get(hrp).residue;
+        length = 0;
+        return this;
+    }
+
+    // add a single data value
+    public Bech32Checksum update(final int value) {
+        if (value < 0 || value > Bech32.Limits.VALID_CHARSET_SIZE - 1)
+            throw new IllegalArgumentException("data value is out of range");
+        chk = engine.step(chk, value);
+        length++;
+        return this;
+    }
+
+    // add all of the given data values
+    public Bech32Checksum update(final char[] values) {
+        return update(values, 0, values.length);
+    }
+
+    // add values[offset, offset + count)
+    public Bech32Checksum update(final char[] values, final int offset, final int count) {
+        Objects.requireNonNull(values);
+        if (offset < 0 || count < 0 || offset > values.length - count)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", count: " + count + ", length: " + values.length);
+        for (int i = offset, end = offset + count; i < end; i++) {
+            if (values[i] > Bech32.Limits.VALID_CHARSET_SIZE - 1)
+                throw new IllegalArgumentException("data value is out of range");
+        }
+        chk = engine.polymod(chk, values, offset, count);
+        length += count;
+        return this;
+    }
+
+    // number of data values added since the HRP was set
+    public int getLength() {
+        return length;
+    }
+
+    // the 6 checksum values for the data added so far. This does not change the state,
+    // so more data can still be added afterwards.
+    public char[] finish(final DecodedResult.Encoding encoding) {
+        char[] ret = new char[Bech32.Limits.CHECKSUM_LENGTH];
+        finish(encoding, ret, 0);
+        return ret;
+    }
+
+    // write the 6 checksum values into dst at offset, returning the number written
+    public int finish(final DecodedResult.Encoding encoding, final char[] dst, final int offset) {
+        long mod = checksumResidue() ^ Bech32.constant(encoding);
+        for (int i = 0; i < Bech32.Limits.CHECKSUM_LENGTH; ++i) {
+            dst[offset + i] = (char) ((mod >> (5 * (5 - i))) & 31);
+        }
+        return Bech32.Limits.CHECKSUM_LENGTH;
+    }
+
+    // treat the data added so far as ending in a checksum, and report which encoding
+    // (if any) it verifies under
+    public DecodedResult.Encoding verify() {
+        if (length < Bech32.Limits.CHECKSUM_LENGTH)
+            return DecodedResult.Encoding.INVALID;
+        if (chk == Bech32.M)
+            return DecodedResult.Encoding.BECH32M;
+        if (chk == 1)
+            return DecodedResult.Encoding.BECH32;
+        return DecodedResult.Encoding.INVALID;
+    }
+
+    // current polymod residue
+    public long residue() {
+        return chk;
+    }
+
+    // residue after six zero values, i.e. the checksum before the constant is applied
+    private long checksumResidue() {
+        long c = chk;
+        for (int i = 0; i < Bech32.Limits.CHECKSUM_LENGTH; i += 2) {
+            c = engine.step2(c, 0, 0);
+        }
+        return c;
+    }
+}
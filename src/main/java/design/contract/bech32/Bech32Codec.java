@@ -0,0 +1,99 @@
+package design.contract.bech32;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+// Encoding and decoding for one pinned "human-readable part", obtained from
+// Bech32.forHrp(). The checksum state after the expanded HRP is computed once, so each
+// call only runs the checksum over the data part.
+//
+// Instances are immutable and can be shared between threads.
+public final class Bech32Codec {
+
+    private final HrpCache.HrpState hrp;
+    // decode()'s decoders, one per thread, each starting out with the pinned HRP's state
+    private final ThreadLocal<Bech32Decoder> decoder = ThreadLocal.withInitial(this::newDecoder);
+
+    Bech32Codec(final HrpCache.HrpState hrp) {
+        this.hrp = hrp;
+    }
+
+    // the pinned HRP, lowercased
+    public String getHrp() {
+        return hrp.hrp;
+    }
+
+    // encode a "data part" with the pinned HRP, returning a bech32 string
+    public String encode(final char[] dp) {
+        return encodeBasis(dp, Bech32.M);
+    }
+
+    // encode a "data part" with the pinned HRP, using the original constant "1"
+    public String encodeUsingOriginalConstant(final char[] dp) {
+        return encodeBasis(dp, 1);
+    }
+
+    // encode data[offset, offset + length) as bytes with the pinned HRP, as with
+    // Bech32.encodeBytes()
+    public String encodeBytes(final byte[] data, final int offset, final int length) {
+        return Bech32.encodeBytesBasis(hrp, data, offset, length, Bech32.M);
+    }
+
+    private String encodeBasis(final char[] dp, final int constant) {
+        validate(dp);
+        return Bech32.encodeBasis(hrp, dp, constant);
+    }
+
+    // encode a "data part" with the pinned HRP into a caller's sink, as with
+    // Bech32.encodeTo(), returning the number of chars written. Nothing is allocated.
+
+    public int encodeTo(final char[] dp, final DecodedResult.Encoding encoding, final Appendable dst)
+            throws IOException {
+        validate(dp);
+        Objects.requireNonNull(dst);
+        return Bech32.encodeTo(hrp, dp, Bech32.constant(encoding), dst);
+    }
+
+    public int encodeTo(final char[] dp, final DecodedResult.Encoding encoding, final char[] dst, final int offset) {
+        validate(dp);
+        Bech32.checkRoom(dst.length, offset, Bech32.encodedLength(hrp.hrp, dp.length));
+        return Bech32.encodeTo(hrp, dp, Bech32.constant(encoding), dst, offset);
+    }
+
+    public int encodeTo(final char[] dp, final DecodedResult.Encoding encoding, final byte[] dst, final int offset) {
+        validate(dp);
+        Bech32.checkRoom(dst.length, offset, Bech32.encodedLength(hrp.hrp, dp.length));
+        return Bech32.encodeTo(hrp, dp, Bech32.constant(encoding), dst, offset);
+    }
+
+    public int encodeTo(final char[] dp, final DecodedResult.Encoding encoding, final ByteBuffer dst) {
+        validate(dp);
+        if (dst.remaining() < Bech32.encodedLength(hrp.hrp, dp.length))
+            throw new BufferOverflowException();
+        return Bech32.encodeTo(hrp, dp, Bech32.constant(encoding), dst);
+    }
+
+    private void validate(final char[] dp) {
+        Objects.requireNonNull(dp);
+        Bech32.Impl.rejectBothPartsTooLong(hrp.hrp, dp);
+        Bech32.Impl.rejectDataValuesOutOfRange(dp);
+    }
+
+    // decode a bech32 string. Any HRP is accepted, exactly as with Bech32.decode(), but
+    // strings with the pinned HRP skip the HRP part of the checksum.
+    public DecodedResult decode(final CharSequence bstring) {
+        return decoder.get().decode(bstring);
+    }
+
+    // a reusable decoder that starts out with the pinned HRP's checksum state
+    public Bech32Decoder newDecoder() {
+        return new Bech32Decoder(ChecksumEngine.getDefault(), hrp);
+    }
+
+    @Override
+    public String toString() {
+        return "Bech32Codec{hrp=" + hrp.hrp + '}';
+    }
+}
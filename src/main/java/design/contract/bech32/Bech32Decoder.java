@@ -0,0 +1,548 @@
+package design.contract.bech32;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+// A reusable bech32 decoder. It follows exactly the same rules, and throws the same
+// exceptions, as Bech32.decode(), but keeps its scratch space between calls and writes
+// into a caller-owned MutableDecodedResult, so a steady-state decode allocates nothing.
+//
+// Instances are not thread-safe; give each thread its own decoder.
+public class Bech32Decoder {
+
+    // mapped values of the data part, including the checksum
+    private final char[] symbols = new char[Bech32.Limits.MAX_BECH32_LENGTH];
+
+    // result used by validate(), created on first use
+    private MutableDecodedResult scratch;
+
+    // reusable view for decoding straight from bytes
+    private final AsciiSequence ascii = new AsciiSequence();
+
+    private final ChecksumEngine engine;
+
+    // HRP checksum state: the entry used most recently, a reusable key for looking up
+    // others in the shared HrpCache, and the hash of the current HRP if it wasn't cached
+    private HrpCache.HrpState lastHrp;
+    private final HrpCache.Key probe = new HrpCache.Key();
+    private boolean hrpMissed;
+    private int hrpHash;
+
+    // outcome of regrouping the data part into bytes, for decodeSegwit()/decodeToBytes()
+    private int bytesLength;
+    private boolean bytesPaddingValid;
+
+    public Bech32Decoder() {
+        this(ChecksumEngine.getDefault());
+    }
+
+    public Bech32Decoder(final ChecksumEngine engine) {
+        this.engine = Objects.requireNonNull(engine);
+    }
+
+    // a decoder that starts out with the given HRP's checksum state
+    Bech32Decoder(final ChecksumEngine engine, final HrpCache.HrpState hrp) {
+        this(engine);
+        this.lastHrp = hrp;
+    }
+
+    // decode a bech32 string into the given result, returning the detected encoding.
+    // If the checksum doesn't verify, INVALID is returned and the result is cleared.
+    //
+    // The input is read exactly once. That single pass checks case and range, finds the
+    // separator, maps the data part through REVERSE_CHARSET and accumulates the checksum
+    // residue, which is then compared against both M and 1. Any violations are reported
+    // afterwards in the same order, and with the same messages, as the individual
+    // Bech32.Impl.reject* checks, as a Bech32Exception.
+    public DecodedResult.Encoding decode(final CharSequence bstring, final MutableDecodedResult result) {
+        DecodeStatus status = decode(bstring, result, null, 0, 0);
+        if (status.isMalformed())
+            throw new Bech32Exception(status, result.getErrorPosition());
+        return result.getEncoding();
+    }
+
+    // decode a bech32 string into the given result without throwing. Returns OK if the
+    // string is valid, or the reason it was rejected; the result then holds the same
+    // status along with the position of the offending character, and nothing else.
+    public DecodeStatus tryDecode(final CharSequence bstring, final MutableDecodedResult result) {
+        return decode(bstring, result, null, 0, 0);
+    }
+
+    // check a bech32 string without throwing, using scratch space held by this decoder
+    public DecodeStatus validate(final CharSequence bstring) {
+        if (scratch == null)
+            scratch = new MutableDecodedResult();
+        return decode(bstring, scratch, null, 0, 0);
+    }
+
+    // check a bech32 string and return a DecodedView of it, which holds on to the string
+    // and decodes its HRP and data part only when asked for them. Malformed strings are
+    // rejected with a Bech32Exception, as by decode(); if the checksum doesn't verify, the
+    // view's encoding is INVALID.
+    public DecodedView decodeView(final CharSequence bstring) {
+        return decodeView(this, engine, bstring);
+    }
+
+    // behind decodeView(): valid strings are recognized by verify() without any decoder
+    // state, so a decoder is only needed, and only created if none is given, to tell
+    // malformed strings and bad checksums apart
+    static DecodedView decodeView(Bech32Decoder decoder, final ChecksumEngine engine, final CharSequence bstring) {
+        String input = bstring.toString();
+        int separator = input.lastIndexOf(Bech32.SEPARATOR);
+        if (separator > 0) {
+            DecodedResult.Encoding encoding = verify(engine, input, null, separator);
+            if (encoding != DecodedResult.Encoding.INVALID)
+                return new DecodedView(input, separator, encoding);
+        }
+        if (decoder == null)
+            decoder = new Bech32Decoder(engine);
+        DecodeStatus status = decoder.validate(input);
+        if (status.isMalformed())
+            throw new Bech32Exception(status, decoder.scratch.getErrorPosition());
+        return new DecodedView(input, separator, DecodedResult.Encoding.INVALID);
+    }
+
+    // the encoding of a bech32 string if it's valid and its HRP equals expectedHrp (ignoring
+    // case), or INVALID otherwise, including when it's malformed. Nothing is allocated.
+    public DecodedResult.Encoding verify(final CharSequence bstring, final CharSequence expectedHrp) {
+        return verify(engine, bstring, Objects.requireNonNull(expectedHrp), expectedHrp.length());
+    }
+
+    // as above, in one pass over the string and without any decoder state: the HRP is
+    // compared to the expected one, if given, while its checksum state is computed, so that
+    // a string for another HRP is usually rejected after a few characters. Without an
+    // expected HRP, any HRP of hrpLength characters is accepted.
+    static DecodedResult.Encoding verify(final ChecksumEngine engine, final CharSequence bstring,
+                                         final CharSequence expectedHrp, final int hrpLength) {
+        Objects.requireNonNull(bstring);
+        int length = bstring.length();
+        if (length < Bech32.Limits.MIN_BECH32_LENGTH || length > Bech32.Limits.MAX_BECH32_LENGTH
+                || hrpLength < Bech32.Limits.MIN_HRP_LENGTH || hrpLength > Bech32.Limits.MAX_HRP_LENGTH
+                || length - hrpLength - 1 < Bech32.Limits.CHECKSUM_LENGTH
+                || bstring.charAt(hrpLength) != Bech32.SEPARATOR)
+            return DecodedResult.Encoding.INVALID;
+
+        boolean upper = false;
+        boolean lower = false;
+        long chk = 1;
+        for (int i = 0; i < hrpLength; i++) {
+            char c = bstring.charAt(i);
+            if (c < Bech32.Limits.MIN_BECH32_CHAR_VALUE || c > Bech32.Limits.MAX_BECH32_CHAR_VALUE
+                    || expectedHrp != null && Bech32.toLowercase(c) != Bech32.toLowercase(expectedHrp.charAt(i)))
+                return DecodedResult.Encoding.INVALID;
+            upper |= c >= 'A' && c <= 'Z';
+            lower |= c >= 'a' && c <= 'z';
+            chk = engine.step(chk, Bech32.toLowercase(c) >> 5);
+        }
+        chk = engine.step(chk, 0);
+        for (int i = 0; i < hrpLength; i++)
+            chk = engine.step(chk, Bech32.toLowercase(bstring.charAt(i)) & 0x1f);
+
+        // every data character must map, which also rules out a later separator
+        int pending = -1;
+        for (int i = hrpLength + 1; i < length; i++) {
+            char c = bstring.charAt(i);
+            int d = c < Bech32.Limits.REVERSE_CHARSET_SIZE ? Bech32.REVERSE_CHARSET[c] : -1;
+            if (d < 0)
+                return DecodedResult.Encoding.INVALID;
+            upper |= c >= 'A' && c <= 'Z';
+            lower |= c >= 'a' && c <= 'z';
+            if (pending < 0) {
+                pending = d;
+            } else {
+                chk = engine.step2(chk, pending, d);
+                pending = -1;
+            }
+        }
+        if (pending >= 0)
+            chk = engine.step(chk, pending);
+
+        if (upper && lower)
+            return DecodedResult.Encoding.INVALID;
+        if (chk == Bech32.M)
+            return DecodedResult.Encoding.BECH32M;
+        if (chk == 1)
+            return DecodedResult.Encoding.BECH32;
+        return DecodedResult.Encoding.INVALID;
+    }
+
+    // decode a segwit address into result, regrouping its witness program (the data after
+    // the witness version) from 5-bit to 8-bit values into program during the same pass.
+    // The witness version is result.dpAt(0), and the program length is returned.
+    //
+    // Besides the bech32 rules, this enforces those of BIP-0173 and BIP-0350: a witness
+    // version of at most 16, a program of 2 to 40 bytes (20 or 32 for version 0) with no
+    // more than 4 zero bits of padding, and the BECH32 constant for version 0 and BECH32M
+    // for later versions. Any violation, including a bad checksum, is thrown as a
+    // Bech32Exception, with INVALID_PAYLOAD for the segwit rules. The HRP is not checked.
+    public int decodeSegwit(final CharSequence address, final MutableDecodedResult result, final byte[] program) {
+        Objects.requireNonNull(program);
+        if (program.length < SegwitAddress.MAX_PROGRAM_LENGTH)
+            throw new IllegalArgumentException("program buffer must hold at least " + SegwitAddress.MAX_PROGRAM_LENGTH + " bytes");
+
+        DecodeStatus status = decode(address, result, program, 0, 1);
+        if (status != DecodeStatus.OK)
+            throw new Bech32Exception(status, result.getErrorPosition());
+        if (result.getDpLength() < 1)
+            throw invalidPayload("witness version is missing");
+        int version = result.dpAt(0);
+        if (version > SegwitAddress.MAX_WITNESS_VERSION)
+            throw invalidPayload("witness version is out of range");
+        if (!bytesPaddingValid)
+            throw invalidPayload("witness program has invalid padding");
+        String error = SegwitAddress.programLengthError(version, bytesLength);
+        if (error == null)
+            error = SegwitAddress.encodingError(version, result.getEncoding());
+        if (error != null)
+            throw invalidPayload(error);
+        return bytesLength;
+    }
+
+    // decode a bech32 string whose data part holds bytes, as written by Bech32.encodeBytes(),
+    // regrouping them from 5-bit to 8-bit values into dst at offset during the same pass.
+    // Returns the number of bytes, which is at most 51. result receives the HRP, the 5-bit
+    // data part and the encoding.
+    //
+    // At most 4 bits of padding, all zero, may follow the bytes. Any violation, including a
+    // bad checksum, is thrown as a Bech32Exception, with INVALID_PAYLOAD for bad padding;
+    // too little room in dst is an IllegalArgumentException.
+    public int decodeToBytes(final CharSequence bstring, final MutableDecodedResult result,
+                             final byte[] dst, final int offset) {
+        Objects.requireNonNull(dst);
+        if (offset < 0 || offset > dst.length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + dst.length);
+
+        DecodeStatus status = decode(bstring, result, dst, offset, 0);
+        if (status != DecodeStatus.OK)
+            throw new Bech32Exception(status, result.getErrorPosition());
+        if (!bytesPaddingValid)
+            throw invalidPayload("data part has invalid padding");
+        if (bytesLength > dst.length - offset)
+            throw new IllegalArgumentException("destination is too small for " + bytesLength + " bytes");
+        return bytesLength;
+    }
+
+    private static Bech32Exception invalidPayload(final String message) {
+        return new Bech32Exception(DecodeStatus.INVALID_PAYLOAD, -1, message);
+    }
+
+    // decodeBasis(), timed and reported to the installed Bech32Metrics if they are enabled
+    private DecodeStatus decode(final CharSequence bstring, final MutableDecodedResult result,
+                                final byte[] out, final int offset, final int skip) {
+        Bech32Metrics metrics = Bech32Metrics.get();
+        if (!metrics.isEnabled())
+            return decodeBasis(bstring, result, out, offset, skip);
+        long start = System.nanoTime();
+        DecodeStatus status = decodeBasis(bstring, result, out, offset, skip);
+        metrics.onDecode(bstring, status, result.getEncoding(), System.nanoTime() - start);
+        return status;
+    }
+
+    // the fused pass behind all of the above, which reports rejections as a status rather
+    // than throwing. If out is non-null, the data values before the checksum, except the
+    // first skip of them, are also regrouped into out from offset as 8-bit values, and
+    // bytesLength and bytesPaddingValid are set. Bytes that don't fit are counted but not
+    // written.
+    private DecodeStatus decodeBasis(final CharSequence bstring, final MutableDecodedResult result,
+                                     final byte[] out, final int offset, final int skip) {
+        Objects.requireNonNull(bstring);
+        Objects.requireNonNull(result);
+        result.clear();
+
+        int length = bstring.length();
+        if (length < Bech32.Limits.MIN_BECH32_LENGTH)
+            return result.setError(DecodeStatus.TOO_SHORT, length);
+        if (length > Bech32.Limits.MAX_BECH32_LENGTH)
+            return result.setError(DecodeStatus.TOO_LONG, Bech32.Limits.MAX_BECH32_LENGTH);
+
+        char[] hrp = result.hrpBuffer();
+        boolean atLeastOneUpper = false;
+        boolean atLeastOneLower = false;
+        boolean atLeastOneOutOfRange = false;
+        boolean invalidDataChar = false;
+        int pos = -1;
+        long chk = 0;
+        int acc = 0, bits = 0, n = 0;
+        int dataEnd = length - Bech32.Limits.CHECKSUM_LENGTH;
+        int capacity = out != null ? out.length - offset : 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = bstring.charAt(i);
+            if (c < 128) {
+                atLeastOneUpper |= c >= 'A' && c <= 'Z';
+                atLeastOneLower |= c >= 'a' && c <= 'z';
+                atLeastOneOutOfRange |= c < Bech32.Limits.MIN_BECH32_CHAR_VALUE || c > Bech32.Limits.MAX_BECH32_CHAR_VALUE;
+            }
+            else {
+                atLeastOneUpper |= Character.isUpperCase(c);
+                atLeastOneLower |= Character.isLowerCase(c);
+                atLeastOneOutOfRange = true;
+            }
+
+            if (c == Bech32.SEPARATOR) {
+                // everything up to here is (so far) the HRP; restart the data part after it
+                pos = i;
+                invalidDataChar = false;
+                acc = bits = n = 0;
+                if (i <= Bech32.Limits.MAX_HRP_LENGTH)
+                    chk = hrpResidue(bstring, i, hrp);
+            }
+            else if (pos != -1) {
+                int d = c < Bech32.Limits.REVERSE_CHARSET_SIZE ? Bech32.REVERSE_CHARSET[c] : -1;
+                invalidDataChar |= d == -1;
+                int index = i - pos - 1;
+                symbols[index] = (char) d;
+                // data symbols are fed to the checksum in pairs
+                if ((index & 1) != 0)
+                    chk = engine.step2(chk, symbols[index - 1] & 0x1f, d & 0x1f);
+                if (out != null && index >= skip && i < dataEnd) {
+                    // at most 12 bits are ever pending
+                    acc = (acc << 5 | d & 0x1f) & 0xfff;
+                    bits += 5;
+                    if (bits >= 8) {
+                        bits -= 8;
+                        if (n < capacity)
+                            out[offset + n] = (byte) (acc >>> bits);
+                        n++;
+                    }
+                }
+            }
+        }
+        if (out != null) {
+            bytesLength = n;
+            bytesPaddingValid = bits < 5 && (acc & ((1 << bits) - 1)) == 0;
+        }
+        if (pos != -1 && ((length - pos - 1) & 1) != 0)
+            chk = engine.step(chk, symbols[length - pos - 2] & 0x1f);
+
+        // positions are only looked for once a rejection is certain, keeping the pass
+        // above free of bookkeeping
+        if (atLeastOneUpper && atLeastOneLower)
+            return result.setError(DecodeStatus.MIXED_CASE, firstMixedCase(bstring));
+        if (atLeastOneOutOfRange)
+            return result.setError(DecodeStatus.OUT_OF_RANGE, firstOutOfRange(bstring));
+        if (pos == -1)
+            return result.setError(DecodeStatus.NO_SEPARATOR, -1);
+
+        int hrpLength = pos;
+        int dpLength = length - pos - 1;
+        if (hrpLength < Bech32.Limits.MIN_HRP_LENGTH)
+            return result.setError(DecodeStatus.HRP_TOO_SHORT, pos);
+        if (hrpLength > Bech32.Limits.MAX_HRP_LENGTH)
+            return result.setError(DecodeStatus.HRP_TOO_LONG, Bech32.Limits.MAX_HRP_LENGTH);
+        if (dpLength < Bech32.Limits.CHECKSUM_LENGTH)
+            return result.setError(DecodeStatus.DATA_TOO_SHORT, pos);
+        if (invalidDataChar)
+            return result.setError(DecodeStatus.INVALID_CHAR, firstInvalidDataChar(pos, dpLength));
+
+        return finish(chk, hrpLength, dpLength, result);
+    }
+
+    // check the final residue and, if it verifies, fill in the result from the HRP already
+    // in its buffer and the data part in symbols
+    private DecodeStatus finish(final long chk, final int hrpLength, final int dpLength,
+                               final MutableDecodedResult result) {
+        DecodedResult.Encoding encoding;
+        if (chk == Bech32.M)
+            encoding = DecodedResult.Encoding.BECH32M;
+        else if (chk == 1)
+            encoding = DecodedResult.Encoding.BECH32;
+        else
+            return result.setError(DecodeStatus.BAD_CHECKSUM, -1);
+
+        // only HRPs of strings that actually verified are added to the cache, so that
+        // arbitrary input can't flush it
+        if (hrpMissed) {
+            lastHrp = HrpCache.put(probe.set(result.hrpBuffer(), hrpLength, hrpHash));
+            probe.set(null, 0, 0);
+        }
+
+        int dataLength = dpLength - Bech32.Limits.CHECKSUM_LENGTH;
+        System.arraycopy(symbols, 0, result.dpBuffer(), 0, dataLength);
+        result.set(hrpLength, dataLength, encoding);
+        return DecodeStatus.OK;
+    }
+
+    // index of the first character whose case differs from an earlier one
+    private static int firstMixedCase(final CharSequence bstring) {
+        boolean upper = false;
+        boolean lower = false;
+        for (int i = 0, length = bstring.length(); i < length; i++) {
+            char c = bstring.charAt(i);
+            upper |= c < 128 ? c >= 'A' && c <= 'Z' : Character.isUpperCase(c);
+            lower |= c < 128 ? c >= 'a' && c <= 'z' : Character.isLowerCase(c);
+            if (upper && lower)
+                return i;
+        }
+        return -1;
+    }
+
+    private static int firstOutOfRange(final CharSequence bstring) {
+        for (int i = 0, length = bstring.length(); i < length; i++) {
+            char c = bstring.charAt(i);
+            if (c < Bech32.Limits.MIN_BECH32_CHAR_VALUE || c > Bech32.Limits.MAX_BECH32_CHAR_VALUE)
+                return i;
+        }
+        return -1;
+    }
+
+    // index in the string of the first data part character that isn't in the charset; the
+    // mapped values of the data part are still in symbols
+    private int firstInvalidDataChar(final int pos, final int dpLength) {
+        for (int i = 0; i < dpLength; i++) {
+            if (symbols[i] == (char) -1)
+                return pos + 1 + i;
+        }
+        return -1;
+    }
+
+    // checksum state after the expanded, lowercased HRP bstring[0, hrpLength), which is
+    // also copied into hrp. Cached states are used where possible; otherwise the expansion
+    // is fed straight into polymod without being built.
+    private long hrpResidue(final CharSequence bstring, final int hrpLength, final char[] hrp) {
+        int hash = 0;
+        for (int i = 0; i < hrpLength; i++) {
+            char c = Bech32.toLowercase(bstring.charAt(i));
+            hrp[i] = c;
+            hash = 31 * hash + c;
+        }
+
+        HrpCache.HrpState entry = lastHrp;
+        if (entry == null || !entry.key.matches(hrp, hrpLength, hash)) {
+            entry = HrpCache.lookup(probe.set(hrp, hrpLength, hash));
+            probe.set(null, 0, 0);
+            if (entry == null) {
+                hrpMissed = true;
+                hrpHash = hash;
+                long chk = 1;
+                for (int i = 0; i < hrpLength; i++) {
+                    chk = engine.step(chk, hrp[i] >> 5);
+                }
+                chk = engine.step(chk, 0);
+                for (int i = 0; i < hrpLength; i++) {
+                    chk = engine.step(chk, hrp[i] & 0x1f);
+                }
+                return chk;
+            }
+            lastHrp = entry;
+        }
+        hrpMissed = false;
+        return entry.residue;
+    }
+
+    // decode a bech32 string held as single-byte (ASCII) characters in buf[offset,
+    // offset + length). The bytes are read in place; bytes above 0x7f are out of range.
+    public DecodedResult.Encoding decodeAscii(final byte[] buf, final int offset, final int length,
+                                         final MutableDecodedResult result) {
+        return orThrow(tryDecodeAscii(buf, offset, length, result), result);
+    }
+
+    // decode a bech32 string held as single-byte (ASCII) characters between the buffer's
+    // position and limit. Heap and direct buffers are both read in place, and neither the
+    // position nor the limit is changed.
+    public DecodedResult.Encoding decodeAscii(final ByteBuffer buf, final MutableDecodedResult result) {
+        return orThrow(tryDecodeAscii(buf, result), result);
+    }
+
+    // decode a bech32 string held as single-byte (ASCII) characters in
+    // buf[offset, offset + length), using absolute indexes. The buffer's position and
+    // limit are ignored and left unchanged.
+    public DecodedResult.Encoding decodeAscii(final ByteBuffer buf, final int offset, final int length,
+                                              final MutableDecodedResult result) {
+        return orThrow(tryDecodeAscii(buf, offset, length, result), result);
+    }
+
+    // as decodeAscii(buf, offset, length, result), but reporting rejections as a status
+    // instead of throwing, as with tryDecode()
+    public DecodeStatus tryDecodeAscii(final byte[] buf, final int offset, final int length,
+                                       final MutableDecodedResult result) {
+        Objects.requireNonNull(buf);
+        try {
+            return decodeAscii(ascii.wrap(buf, offset, length), result);
+        } finally {
+            ascii.clear();
+        }
+    }
+
+    // as decodeAscii(buf, result), but reporting rejections as a status instead of throwing
+    public DecodeStatus tryDecodeAscii(final ByteBuffer buf, final MutableDecodedResult result) {
+        Objects.requireNonNull(buf);
+        try {
+            return decodeAscii(ascii.wrap(buf), result);
+        } finally {
+            ascii.clear();
+        }
+    }
+
+    // as decodeAscii(buf, offset, length, result) for a ByteBuffer, but reporting rejections
+    // as a status instead of throwing
+    public DecodeStatus tryDecodeAscii(final ByteBuffer buf, final int offset, final int length,
+                                       final MutableDecodedResult result) {
+        Objects.requireNonNull(buf);
+        try {
+            return decodeAscii(ascii.wrap(buf, offset, length), result);
+        } finally {
+            ascii.clear();
+        }
+    }
+
+    private static DecodedResult.Encoding orThrow(final DecodeStatus status, final MutableDecodedResult result) {
+        if (status.isMalformed())
+            throw new Bech32Exception(status, result.getErrorPosition());
+        return result.getEncoding();
+    }
+
+    // decodeAsciiBasis(), reported to the installed Bech32Metrics as decode() is
+    private DecodeStatus decodeAscii(final AsciiSequence bytes, final MutableDecodedResult result) {
+        Bech32Metrics metrics = Bech32Metrics.get();
+        if (!metrics.isEnabled())
+            return decodeAsciiBasis(bytes, result);
+        long start = System.nanoTime();
+        DecodeStatus status = decodeAsciiBasis(bytes, result);
+        metrics.onDecode(bytes, status, result.getEncoding(), System.nanoTime() - start);
+        return status;
+    }
+
+    // bytes that pass the SwarAscii pre-scan are decoded without any per-character case,
+    // range or separator checks. Anything else takes the general path, which also works out
+    // exactly how the string is malformed.
+    private DecodeStatus decodeAsciiBasis(final AsciiSequence bytes, final MutableDecodedResult result) {
+        Objects.requireNonNull(result);
+        int length = bytes.length();
+        if (length >= Bech32.Limits.MIN_BECH32_LENGTH && length <= Bech32.Limits.MAX_BECH32_LENGTH) {
+            int scan = bytes.scan();
+            if (SwarAscii.isWellFormed(scan))
+                return decodeWellFormed(bytes, SwarAscii.separator(scan), result);
+        }
+        return decodeBasis(bytes, result, null, 0, 0);
+    }
+
+    // decode a string already known to be of valid length, within range, in a single case,
+    // and with its last separator at pos
+    private DecodeStatus decodeWellFormed(final AsciiSequence bytes, final int pos,
+                                          final MutableDecodedResult result) {
+        result.clear();
+        int length = bytes.length();
+        int hrpLength = pos;
+        int dpLength = length - pos - 1;
+        if (hrpLength < Bech32.Limits.MIN_HRP_LENGTH)
+            return result.setError(DecodeStatus.HRP_TOO_SHORT, pos);
+        if (hrpLength > Bech32.Limits.MAX_HRP_LENGTH)
+            return result.setError(DecodeStatus.HRP_TOO_LONG, Bech32.Limits.MAX_HRP_LENGTH);
+        if (dpLength < Bech32.Limits.CHECKSUM_LENGTH)
+            return result.setError(DecodeStatus.DATA_TOO_SHORT, pos);
+
+        long chk = hrpResidue(bytes, hrpLength, result.hrpBuffer());
+        // unmapped characters are -1, the only negative value
+        if (bytes.map(pos + 1, dpLength, symbols) < 0)
+            return result.setError(DecodeStatus.INVALID_CHAR, firstInvalidDataChar(pos, dpLength));
+        return finish(engine.polymod(chk, symbols, 0, dpLength), hrpLength, dpLength, result);
+    }
+
+    // decode a bech32 string into a newly allocated DecodedResult
+    public DecodedResult decode(final CharSequence bstring) {
+        MutableDecodedResult result = new MutableDecodedResult();
+        decode(bstring, result);
+        return result.toDecodedResult();
+    }
+}
@@ -0,0 +1,37 @@
+package design.contract.bech32;
+
+// Thrown when a bech32 string is rejected. Rejections are routine under hostile input,
+// so no stack trace is captured: the status and position say what went wrong, and
+// the stack would only ever point into this library.
+public class Bech32Exception extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DecodeStatus status;
+    private final int position;
+
+    Bech32Exception(final DecodeStatus status, final int position) {
+        this(status, position, status.getMessage());
+    }
+
+    // with a more specific message than the status's own
+    Bech32Exception(final DecodeStatus status, final int position, final String message) {
+        super(message);
+        this.status = status;
+        this.position = position;
+    }
+
+    public DecodeStatus getStatus() {
+        return status;
+    }
+
+    // index of the offending character, or -1; see DecodeStatus
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
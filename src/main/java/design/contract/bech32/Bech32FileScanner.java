@@ -0,0 +1,275 @@
+package design.contract.bech32;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+// Validates a newline-delimited file of bech32 strings without reading it into Strings.
+//
+// The file is split into regions of roughly regionSize bytes, each ending on a line
+// boundary. Every region is memory-mapped separately with FileChannel.map(), so files
+// larger than 2 GB are handled as several windows. Regions are decoded in parallel,
+// straight from the mapped bytes, with one reusable Bech32Decoder per region.
+//
+// Lines may end in "\n" or "\r\n"; empty lines are skipped. Mapped regions are released
+// by the garbage collector, as the JDK offers no portable way to unmap them.
+public class Bech32FileScanner {
+
+    // receives the outcome of each line. Lines within a region are reported in file
+    // order, but regions are scanned concurrently, so implementations must be thread-safe.
+    // The result is only valid for the duration of the call, and only holds a decoded
+    // HRP and data part when the status is VALID.
+    public interface LineListener {
+        void onLine(long offset, BatchDecodeResult.Status status, MutableDecodedResult result, String error);
+    }
+
+    // line counts for a completed scan
+    public static final class Summary {
+        private final long lines;
+        private final long valid;
+        private final long invalidChecksum;
+        private final long malformed;
+        private final long bech32m;
+
+        Summary(long lines, long valid, long invalidChecksum, long malformed, long bech32m) {
+            this.lines = lines;
+            this.valid = valid;
+            this.invalidChecksum = invalidChecksum;
+            this.malformed = malformed;
+            this.bech32m = bech32m;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getValid() {
+            return valid;
+        }
+
+        public long getInvalidChecksum() {
+            return invalidChecksum;
+        }
+
+        public long getMalformed() {
+            return malformed;
+        }
+
+        // valid lines that used the BECH32M constant; the rest of the valid lines used BECH32
+        public long getBech32m() {
+            return bech32m;
+        }
+
+        @Override
+        public String toString() {
+            return "Summary{lines=" + lines + ", valid=" + valid + ", invalidChecksum=" + invalidChecksum +
+                    ", malformed=" + malformed + ", bech32m=" + bech32m + '}';
+        }
+    }
+
+    public static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private static final LineListener IGNORE = (offset, status, result, error) -> { };
+
+    private final Path path;
+    private final int regionSize;
+    private final ForkJoinPool pool;
+
+    public Bech32FileScanner(final Path path) {
+        this(path, DEFAULT_REGION_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public Bech32FileScanner(final Path path, final int regionSize, final ForkJoinPool pool) {
+        this.path = Objects.requireNonNull(path);
+        this.pool = Objects.requireNonNull(pool);
+        if (regionSize < 1)
+            throw new IllegalArgumentException("region size must be at least one");
+        this.regionSize = regionSize;
+    }
+
+    // scan the whole file, only counting outcomes
+    public Summary scan() throws IOException {
+        return scan(IGNORE);
+    }
+
+    // scan the whole file, reporting each line to the listener
+    public Summary scan(final LineListener listener) throws IOException {
+        Objects.requireNonNull(listener);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Bech32Metrics metrics = Bech32Metrics.get();
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
+            List<long[]> regions = split(channel, regionSize);
+            Counters counters = new Counters();
+            if (!regions.isEmpty()) {
+                try {
+                    pool.invoke(new RegionTask(channel, regions, 0, regions.size(), listener, counters));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+            Summary summary = counters.summary();
+            if (metrics.isEnabled())
+                metrics.onBatch("scanFile", null, summary.getLines(), summary.getLines() - summary.getValid(),
+                        System.nanoTime() - start);
+            return summary;
+        }
+    }
+
+    // split the file into [start, end) regions of about regionSize bytes, each ending just
+    // after a newline (or at the end of the file)
+    static List<long[]> split(final FileChannel channel, final int regionSize) throws IOException {
+        List<long[]> regions = new ArrayList<>();
+        long size = channel.size();
+        ByteBuffer chunk = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + regionSize, size);
+            if (end < size)
+                end = lineEnd(channel, end, size, chunk);
+            if (end - start > Integer.MAX_VALUE)
+                throw new IOException("line at offset " + start + " is too long to map");
+            regions.add(new long[]{start, end});
+            start = end;
+        }
+        return regions;
+    }
+
+    // position just after the first newline at or after pos, or size if there is none
+    private static long lineEnd(final FileChannel channel, long pos, final long size, final ByteBuffer chunk)
+            throws IOException {
+        // if the previous byte is a newline, pos is already at a line boundary
+        if (readByte(channel, pos - 1, chunk) == '\n')
+            return pos;
+        while (pos < size) {
+            ((Buffer) chunk).clear();
+            int n = channel.read(chunk, pos);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++) {
+                if (chunk.get(i) == '\n')
+                    return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static int readByte(final FileChannel channel, final long pos, final ByteBuffer chunk) throws IOException {
+        // cast so that this links against the Java 8 Buffer methods
+        ((Buffer) chunk).clear();
+        ((Buffer) chunk).limit(1);
+        if (channel.read(chunk, pos) != 1)
+            return -1;
+        return chunk.get(0);
+    }
+
+    // decode every line of a mapped region
+    static void scanRegion(final ByteBuffer region, final long regionStart, final LineListener listener,
+                           final Counters counters) {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        long lines = 0, valid = 0, invalidChecksum = 0, malformed = 0, bech32m = 0;
+
+        int limit = region.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && region.get(lineEnd) != '\n')
+                lineEnd++;
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && region.get(lineEnd - 1) == '\r')
+                lineEnd--;
+
+            if (lineEnd > lineStart) {
+                lines++;
+                long offset = regionStart + lineStart;
+                DecodeStatus status = decoder.tryDecodeAscii(region, lineStart, lineEnd - lineStart, result);
+                if (status == DecodeStatus.OK) {
+                    valid++;
+                    if (result.getEncoding() == DecodedResult.Encoding.BECH32M)
+                        bech32m++;
+                    listener.onLine(offset, BatchDecodeResult.Status.VALID, result, null);
+                } else if (status == DecodeStatus.BAD_CHECKSUM) {
+                    invalidChecksum++;
+                    listener.onLine(offset, BatchDecodeResult.Status.INVALID_CHECKSUM, result, null);
+                } else {
+                    malformed++;
+                    listener.onLine(offset, BatchDecodeResult.Status.MALFORMED, result, status.getMessage());
+                }
+            }
+            lineStart = next;
+        }
+        counters.add(lines, valid, invalidChecksum, malformed, bech32m);
+    }
+
+    static final class Counters {
+        private final LongAdder lines = new LongAdder();
+        private final LongAdder valid = new LongAdder();
+        private final LongAdder invalidChecksum = new LongAdder();
+        private final LongAdder malformed = new LongAdder();
+        private final LongAdder bech32m = new LongAdder();
+
+        void add(long lines, long valid, long invalidChecksum, long malformed, long bech32m) {
+            this.lines.add(lines);
+            this.valid.add(valid);
+            this.invalidChecksum.add(invalidChecksum);
+            this.malformed.add(malformed);
+            this.bech32m.add(bech32m);
+        }
+
+        Summary summary() {
+            return new Summary(lines.sum(), valid.sum(), invalidChecksum.sum(), malformed.sum(), bech32m.sum());
+        }
+    }
+
+    // maps and scans regions [from, to), splitting until a single region is left
+    private static final class RegionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final List<long[]> regions;
+        private final int from;
+        private final int to;
+        private final LineListener listener;
+        private final Counters counters;
+
+        RegionTask(FileChannel channel, List<long[]> regions, int from, int to, LineListener listener,
+                   Counters counters) {
+            this.channel = channel;
+            this.regions = regions;
+            this.from = from;
+            this.to = to;
+            this.listener = listener;
+            this.counters = counters;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                long[] region = regions.get(from);
+                MappedByteBuffer mapped;
+                try {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, region[0], region[1] - region[0]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                scanRegion(mapped, region[0], listener, counters);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RegionTask(channel, regions, from, mid, listener, counters),
+                    new RegionTask(channel, regions, mid, to, listener, counters));
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package design.contract.bech32;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// A hook for observing encodes and decodes under load. The installed instance is told of
+// every decode by a Bech32Decoder (and so by Bech32.decode(), the batch decoders and
+// Bech32FileScanner) and of every encode to a String or a sink, with the outcome, the
+// input or output length and the time taken.
+//
+// By default nothing is installed but a no-op whose isEnabled() is false. Call sites
+// check it before reading the clock. The installed instance is held as the target of a
+// call site, which the JIT treats as a constant and recompiles against when install()
+// changes it, so with the no-op installed the check folds away and the hook costs nothing. counting() gives an implementation backed
+// by LongAdder counters, which stay cheap when many threads record at once:
+//
+//   Bech32Metrics metrics = Bech32Metrics.counting();
+//   Bech32Metrics.install(metrics);
+//   ...
+//   Bech32Metrics.Snapshot snapshot = metrics.snapshot();
+//
+// Rejections are counted by DecodeStatus, which names the same reasons as the exceptions
+// thrown by the throwing APIs. Encode arguments that are rejected are not counted.
+//
+// Call sites report through the overloads that also pass the input or HRP; these forward
+// to the length-only methods unless overridden. Batch decodes and encodes and file scans
+// are reported once each to onBatch() as well, on top of their items. flightRecorder()
+// gives an implementation that emits Java Flight Recorder events, and combine() lets it
+// run alongside another.
+public abstract class Bech32Metrics {
+
+    // lengths are counted in buckets of 8 chars, the last of which also counts longer inputs
+    public static final int LENGTH_BUCKET_WIDTH = 8;
+    public static final int LENGTH_BUCKETS = Bech32.Limits.MAX_BECH32_LENGTH / LENGTH_BUCKET_WIDTH + 2;
+    // durations are counted in power-of-two buckets: bucket i counts those of less than 2^i
+    // nanoseconds and at least half that, and the last also counts anything longer
+    public static final int LATENCY_BUCKETS = 32;
+
+    private static final Bech32Metrics NOOP = new Bech32Metrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void onDecode(int length, DecodeStatus status, DecodedResult.Encoding encoding, long nanos) {
+        }
+
+        @Override
+        public void onEncode(int length, DecodedResult.Encoding encoding, long nanos) {
+        }
+
+        @Override
+        public Snapshot snapshot() {
+            return emptySnapshot();
+        }
+    };
+
+    // if set to a duration in microseconds, flight recorder events for operations taking at
+    // least that long are emitted from startup, where the JVM supports them
+    public static final String JFR_PROPERTY = "design.contract.bech32.jfrThresholdMicros";
+
+    private static final MutableCallSite INSTALLED = new MutableCallSite(target(initial()));
+    private static final MethodHandle GET = INSTALLED.dynamicInvoker();
+
+    private static Bech32Metrics initial() {
+        String threshold = System.getProperty(JFR_PROPERTY, "").trim();
+        if (threshold.isEmpty())
+            return NOOP;
+        try {
+            Bech32Metrics recorder = FlightRecorders.load(TimeUnit.MICROSECONDS.toNanos(Long.parseLong(threshold)));
+            return recorder != null ? recorder : NOOP;
+        } catch (NumberFormatException e) {
+            return NOOP;
+        }
+    }
+
+    private static MethodHandle target(final Bech32Metrics metrics) {
+        return MethodHandles.constant(Bech32Metrics.class, metrics);
+    }
+
+    // the installed metrics, which are a no-op unless install() was called
+    public static Bech32Metrics get() {
+        try {
+            return (Bech32Metrics) GET.invokeExact();
+        } catch (Throwable e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // installs go to every thread, though calls already under way may still report to the
+    // previous instance
+    public static void install(final Bech32Metrics metrics) {
+        INSTALLED.setTarget(target(Objects.requireNonNull(metrics)));
+        MutableCallSite.syncAll(new MutableCallSite[]{INSTALLED});
+    }
+
+    // go back to the no-op
+    public static void uninstall() {
+        install(NOOP);
+    }
+
+    // new LongAdder-backed metrics, to be installed
+    public static Bech32Metrics counting() {
+        return new Counting();
+    }
+
+    // true if flightRecorder() can be used: on Java 17+, from the multi-release JAR, with
+    // the jdk.jfr module present
+    public static boolean isFlightRecorderAvailable() {
+        return FlightRecorders.isAvailable();
+    }
+
+    // metrics that emit Java Flight Recorder events, under the "Bech32" category, to be
+    // installed. Each encode, decode and batch that takes at least thresholdNanos becomes
+    // an event carrying its HRP, length, encoding, outcome and duration; decodes that fail
+    // become events whatever they take, with checksum failures as their own event type.
+    // Recordings can still turn each event type off. Throws UnsupportedOperationException
+    // where isFlightRecorderAvailable() is false.
+    public static Bech32Metrics flightRecorder(final long thresholdNanos) {
+        if (thresholdNanos < 0)
+            throw new IllegalArgumentException("threshold must not be negative");
+        Bech32Metrics recorder = FlightRecorders.load(thresholdNanos);
+        if (recorder == null)
+            throw new UnsupportedOperationException("Java Flight Recorder events need Java 17 or later with jdk.jfr");
+        return recorder;
+    }
+
+    // metrics that report every call to both first and second, for example counting() and
+    // flightRecorder(); snapshots are first's
+    public static Bech32Metrics combine(final Bech32Metrics first, final Bech32Metrics second) {
+        return new Combined(Objects.requireNonNull(first), Objects.requireNonNull(second));
+    }
+
+    // false if nothing should be recorded, so that callers can skip timing
+    public abstract boolean isEnabled();
+
+    // a decode of a length-char input with the given outcome; the encoding is INVALID
+    // unless the status is OK
+    public abstract void onDecode(int length, DecodeStatus status, DecodedResult.Encoding encoding, long nanos);
+
+    // an encode producing length chars
+    public abstract void onEncode(int length, DecodedResult.Encoding encoding, long nanos);
+
+    // a decode of the given input, which may be a view over a caller's buffer and so is only
+    // valid during the call
+    public void onDecode(final CharSequence input, final DecodeStatus status, final DecodedResult.Encoding encoding,
+                         final long nanos) {
+        onDecode(input.length(), status, encoding, nanos);
+    }
+
+    // an encode producing length chars with the given lowercase HRP
+    public void onEncode(final String hrp, final int length, final DecodedResult.Encoding encoding,
+                         final long nanos) {
+        onEncode(length, encoding, nanos);
+    }
+
+    // a whole batch of items, of which failures could not be decoded: operation is
+    // "decodeAll", "encodeBatch" or "scanFile", and hrp is the shared HRP of an encoded
+    // batch or null. Nothing is done with these unless overridden.
+    public void onBatch(final String operation, final String hrp, final long items, final long failures,
+                        final long nanos) {
+    }
+
+    public abstract Snapshot snapshot();
+
+    // all zero, for metrics that don't count
+    static Snapshot emptySnapshot() {
+        return new Snapshot(0, 0, new long[3], new long[3], new long[DecodeStatus.values().length],
+                new long[LENGTH_BUCKETS], new long[LATENCY_BUCKETS]);
+    }
+
+    static int lengthBucket(final int length) {
+        return Math.min(length / LENGTH_BUCKET_WIDTH, LENGTH_BUCKETS - 1);
+    }
+
+    static int latencyBucket(final long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)), LATENCY_BUCKETS - 1);
+    }
+
+    private static final class Combined extends Bech32Metrics {
+        private final Bech32Metrics first;
+        private final Bech32Metrics second;
+
+        Combined(Bech32Metrics first, Bech32Metrics second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return first.isEnabled() || second.isEnabled();
+        }
+
+        @Override
+        public void onDecode(final int length, final DecodeStatus status, final DecodedResult.Encoding encoding,
+                             final long nanos) {
+            first.onDecode(length, status, encoding, nanos);
+            second.onDecode(length, status, encoding, nanos);
+        }
+
+        @Override
+        public void onEncode(final int length, final DecodedResult.Encoding encoding, final long nanos) {
+            first.onEncode(length, encoding, nanos);
+            second.onEncode(length, encoding, nanos);
+        }
+
+        @Override
+        public void onDecode(final CharSequence input, final DecodeStatus status,
+                             final DecodedResult.Encoding encoding, final long nanos) {
+            first.onDecode(input, status, encoding, nanos);
+            second.onDecode(input, status, encoding, nanos);
+        }
+
+        @Override
+        public void onEncode(final String hrp, final int length, final DecodedResult.Encoding encoding,
+                             final long nanos) {
+            first.onEncode(hrp, length, encoding, nanos);
+            second.onEncode(hrp, length, encoding, nanos);
+        }
+
+        @Override
+        public void onBatch(final String operation, final String hrp, final long items, final long failures,
+                            final long nanos) {
+            first.onBatch(operation, hrp, items, failures, nanos);
+            second.onBatch(operation, hrp, items, failures, nanos);
+        }
+
+        @Override
+        public Snapshot snapshot() {
+            return first.snapshot();
+        }
+    }
+
+    private static final class Counting extends Bech32Metrics {
+        private final LongAdder decodes = new LongAdder();
+        private final LongAdder encodes = new LongAdder();
+        private final LongAdder[] decoded = adders(DecodedResult.Encoding.values().length);
+        private final LongAdder[] encoded = adders(DecodedResult.Encoding.values().length);
+        private final LongAdder[] rejected = adders(DecodeStatus.values().length);
+        private final LongAdder[] lengths = adders(LENGTH_BUCKETS);
+        private final LongAdder[] latencies = adders(LATENCY_BUCKETS);
+
+        private static LongAdder[] adders(final int n) {
+            LongAdder[] adders = new LongAdder[n];
+            for (int i = 0; i < n; i++)
+                adders[i] = new LongAdder();
+            return adders;
+        }
+
+        private static long[] sums(final LongAdder[] adders) {
+            long[] sums = new long[adders.length];
+            for (int i = 0; i < sums.length; i++)
+                sums[i] = adders[i].sum();
+            return sums;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void onDecode(final int length, final DecodeStatus status, final DecodedResult.Encoding encoding,
+                             final long nanos) {
+            decodes.increment();
+            if (status == DecodeStatus.OK)
+                decoded[encoding.ordinal()].increment();
+            else
+                rejected[status.ordinal()].increment();
+            lengths[lengthBucket(length)].increment();
+            latencies[latencyBucket(nanos)].increment();
+        }
+
+        @Override
+        public void onEncode(final int length, final DecodedResult.Encoding encoding, final long nanos) {
+            encodes.increment();
+            encoded[encoding.ordinal()].increment();
+            lengths[lengthBucket(length)].increment();
+            latencies[latencyBucket(nanos)].increment();
+        }
+
+        @Override
+        public Snapshot snapshot() {
+            return new Snapshot(decodes.sum(), encodes.sum(), sums(decoded), sums(encoded), sums(rejected),
+                    sums(lengths), sums(latencies));
+        }
+    }
+
+    // counts at one point in time. Counters are read one by one while recording goes on,
+    // so a snapshot taken under load may be off by the calls in flight.
+    public static final class Snapshot {
+        private final long decodes;
+        private final long encodes;
+        private final long[] decoded;
+        private final long[] encoded;
+        private final long[] rejected;
+        private final long[] lengths;
+        private final long[] latencies;
+
+        Snapshot(long decodes, long encodes, long[] decoded, long[] encoded, long[] rejected, long[] lengths,
+                 long[] latencies) {
+            this.decodes = decodes;
+            this.encodes = encodes;
+            this.decoded = decoded;
+            this.encoded = encoded;
+            this.rejected = rejected;
+            this.lengths = lengths;
+            this.latencies = latencies;
+        }
+
+        public long getDecodes() {
+            return decodes;
+        }
+
+        public long getEncodes() {
+            return encodes;
+        }
+
+        // decodes that succeeded with the given encoding
+        public long getDecoded(final DecodedResult.Encoding encoding) {
+            return decoded[encoding.ordinal()];
+        }
+
+        public long getEncoded(final DecodedResult.Encoding encoding) {
+            return encoded[encoding.ordinal()];
+        }
+
+        // decodes rejected for the given reason, which is 0 for OK
+        public long getRejected(final DecodeStatus status) {
+            return rejected[status.ordinal()];
+        }
+
+        // calls by length, in buckets of LENGTH_BUCKET_WIDTH chars
+        public long[] getLengthHistogram() {
+            return lengths.clone();
+        }
+
+        // calls by duration, in power-of-two buckets of nanoseconds
+        public long[] getLatencyHistogram() {
+            return latencies.clone();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Snapshot{decodes=").append(decodes)
+                    .append(", encodes=").append(encodes)
+                    .append(", bech32=").append(getDecoded(DecodedResult.Encoding.BECH32))
+                    .append(", bech32m=").append(getDecoded(DecodedResult.Encoding.BECH32M));
+            for (DecodeStatus status : DecodeStatus.values()) {
+                if (rejected[status.ordinal()] != 0)
+                    sb.append(", ").append(status).append('=').append(rejected[status.ordinal()]);
+            }
+            return sb.append(", lengths=").append(Arrays.toString(lengths))
+                    .append(", latencies=").append(Arrays.toString(latencies)).append('}').toString();
+        }
+    }
+}
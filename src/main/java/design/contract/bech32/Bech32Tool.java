@@ -0,0 +1,603 @@
+package design.contract.bech32;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+// The command-line entry point of the jar, for bulk work on files of bech32 strings:
+//
+//   java -jar libbech32.jar <decode|validate|encode|convert> [options] [file...]
+//
+// Each non-empty line of the files (or of stdin, when none are given or for "-") is one
+// item, with surrounding whitespace ignored:
+//
+//   decode    a bech32 string, reported with its HRP, encoding and data part values
+//   validate  a bech32 string, reported with its status only
+//   encode    "hrp,values", or just "values" with --hrp, where values are the data part
+//             values as two hex digits each; reported with the encoded string
+//   convert   a bech32 string, re-encoded with --encoding and, if given, --hrp
+//
+// Every item gives one CSV row or JSON line on stdout, in input order, with the fields
+// line, input, status, hrp, encoding, output, position and message. Line numbers count
+// across all inputs; status is a DecodeStatus name, or INVALID_INPUT for encode input
+// that can't be parsed or encoded. A summary with the throughput goes to stderr at the
+// end. The exit status is 0 if every item was valid, 1 if some weren't, and 2 for usage
+// or I/O errors.
+//
+// Work runs as a pipeline of bounded queues, so memory stays flat however long the
+// input is: a reader thread cuts lines into batches, a pool of workers processes and
+// formats batches in parallel, each with its own decoder, and the calling thread writes
+// them out in the order they were read. Batches are queued for the writer as soon as
+// they are read, so a slow batch holds back the output, not the workers.
+public final class Bech32Tool {
+
+    static final int EXIT_VALID = 0;
+    static final int EXIT_INVALID = 1;
+    static final int EXIT_ERROR = 2;
+
+    static final String INVALID_INPUT = "INVALID_INPUT";
+
+    private static final String USAGE =
+            "usage: java -jar libbech32.jar <decode|validate|encode|convert> [options] [file...]\n" +
+            "  --format csv|jsonl        output format (default csv)\n" +
+            "  --threads N               worker threads (default: available processors)\n" +
+            "  --batch-size N            lines per batch (default 1024)\n" +
+            "  --fail-fast               stop after the first invalid line\n" +
+            "  --hrp HRP                 HRP to encode or convert to\n" +
+            "  --encoding bech32|bech32m encoding to encode or convert to (default bech32m)\n" +
+            "Reads stdin when no files are given, or for \"-\".";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    enum Mode { DECODE, VALIDATE, ENCODE, CONVERT }
+
+    enum Format { CSV, JSONL }
+
+    // the parsed command line
+    static final class Options {
+        Mode mode;
+        Format format = Format.CSV;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batchSize = 1024;
+        boolean failFast;
+        String hrp;
+        DecodedResult.Encoding encoding = DecodedResult.Encoding.BECH32M;
+        final List<String> inputs = new ArrayList<>();
+
+        static Options parse(final String[] args) {
+            Options options = new Options();
+            if (args.length == 0)
+                throw new IllegalArgumentException("no mode given");
+            options.mode = parseEnum(Mode.class, "mode", args[0]);
+            boolean optionsEnded = false;
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                if (optionsEnded || !arg.startsWith("--")) {
+                    options.inputs.add(arg);
+                    continue;
+                }
+                if (arg.equals("--")) {
+                    optionsEnded = true;
+                    continue;
+                }
+                String name = arg;
+                String value = null;
+                int eq = arg.indexOf('=');
+                if (eq >= 0) {
+                    name = arg.substring(0, eq);
+                    value = arg.substring(eq + 1);
+                }
+                if (name.equals("--fail-fast")) {
+                    if (value != null)
+                        throw new IllegalArgumentException("--fail-fast takes no value");
+                    options.failFast = true;
+                    continue;
+                }
+                if (value == null) {
+                    if (++i == args.length)
+                        throw new IllegalArgumentException(name + " needs a value");
+                    value = args[i];
+                }
+                switch (name) {
+                    case "--format":
+                        options.format = parseEnum(Format.class, "format", value);
+                        break;
+                    case "--threads":
+                        options.threads = parsePositive(name, value);
+                        break;
+                    case "--batch-size":
+                        options.batchSize = parsePositive(name, value);
+                        break;
+                    case "--hrp":
+                        options.hrp = value;
+                        break;
+                    case "--encoding":
+                        options.encoding = parseEnum(DecodedResult.Encoding.class, "encoding", value);
+                        if (options.encoding == DecodedResult.Encoding.INVALID)
+                            throw new IllegalArgumentException("unknown encoding: " + value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option: " + name);
+                }
+            }
+            if (options.hrp != null && (options.mode == Mode.DECODE || options.mode == Mode.VALIDATE))
+                throw new IllegalArgumentException("--hrp only applies to encode and convert");
+            if (options.inputs.isEmpty())
+                options.inputs.add("-");
+            return options;
+        }
+
+        private static <E extends Enum<E>> E parseEnum(final Class<E> type, final String what, final String value) {
+            try {
+                return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown " + what + ": " + value);
+            }
+        }
+
+        private static int parsePositive(final String name, final String value) {
+            try {
+                int n = Integer.parseInt(value);
+                if (n > 0)
+                    return n;
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException(name + " must be a positive integer: " + value);
+        }
+    }
+
+    // up to batchSize lines, handed from the reader to a worker and, in read order, to
+    // the writer, which waits on done until a worker has filled in the output
+    static final class Batch {
+        static final Batch END = new Batch(0);
+
+        final String[] lines;
+        final long[] numbers;
+        int size;
+        final StringBuilder output = new StringBuilder();
+        int valid;
+        int invalid;
+        // set with fail-fast when the batch stopped at an invalid line
+        boolean stopped;
+        // anything a worker threw while processing the batch
+        Throwable error;
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Batch(int capacity) {
+            this.lines = new String[capacity];
+            this.numbers = new long[capacity];
+        }
+    }
+
+    private final Options options;
+    private final InputStream stdin;
+    private final BlockingQueue<Batch> work;
+    private final BlockingQueue<Batch> pending;
+    // set by the writer to stop the reader and workers early
+    private volatile boolean stopping;
+    private volatile IOException readError;
+    private long lines;
+    private long bytes;
+
+    Bech32Tool(final Options options, final InputStream stdin) {
+        this.options = options;
+        this.stdin = stdin;
+        this.work = new ArrayBlockingQueue<>(options.threads * 2);
+        // the batches the writer is waiting for: those queued for workers or being processed
+        this.pending = new ArrayBlockingQueue<>(options.threads * 4);
+    }
+
+    public static void main(final String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    // run the tool as main() does, returning the exit status
+    static int run(final String[] args, final InputStream in, final OutputStream out, final PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("bech32: " + e.getMessage());
+            err.println(USAGE);
+            return EXIT_ERROR;
+        }
+        try {
+            return new Bech32Tool(options, in).run(out, err);
+        } catch (IOException e) {
+            err.println("bech32: " + e.getMessage());
+            return EXIT_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err.println("bech32: interrupted");
+            return EXIT_ERROR;
+        }
+    }
+
+    int run(final OutputStream out, final PrintStream err) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Thread reader = new Thread(this::read, "bech32-reader");
+        reader.setDaemon(true);
+        reader.start();
+        for (int i = 0; i < options.threads; i++) {
+            Thread worker = new Thread(this::work, "bech32-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long valid = 0;
+        long invalid = 0;
+        Throwable error = null;
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        Batch batch = null;
+        try {
+            if (options.format == Format.CSV)
+                writer.write("line,input,status,hrp,encoding,output,position,message\n");
+            // batches are taken in the order they were read; after a stop the rest are
+            // still drained, so that the reader is never left blocked on a full queue
+            while ((batch = pending.take()) != Batch.END) {
+                batch.done.await();
+                if (stopping)
+                    continue;
+                if (batch.error != null) {
+                    error = batch.error;
+                    stopping = true;
+                    continue;
+                }
+                writer.append(batch.output);
+                valid += batch.valid;
+                invalid += batch.invalid;
+                if (batch.stopped)
+                    stopping = true;
+            }
+            writer.flush();
+        } finally {
+            // a failed write (e.g. a closed pipe) must not leave the reader blocked on a
+            // full queue, and with it the workers, once run() has returned
+            if (batch != Batch.END)
+                drain();
+        }
+        reader.join();
+        if (error != null) {
+            // a bug or a resource limit rather than bad input, reported as an I/O error is
+            err.println("bech32: internal error: " + error);
+            return EXIT_ERROR;
+        }
+        if (readError != null)
+            throw readError;
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        err.printf(Locale.ROOT, "bech32: %s %d lines (%d valid, %d invalid)%s in %.3f s, %.0f lines/s, %.1f MB/s%n",
+                options.mode.name().toLowerCase(Locale.ROOT), valid + invalid, valid, invalid,
+                stopping ? ", stopped at the first invalid line" : "", seconds,
+                (valid + invalid) / seconds, bytes / seconds / 1e6);
+        return invalid == 0 ? EXIT_VALID : EXIT_INVALID;
+    }
+
+    // stop the reader and workers and take batches until the end marker, so that none of
+    // them is left blocked on a full queue
+    private void drain() {
+        stopping = true;
+        try {
+            while (pending.take() != Batch.END) {
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the reader thread: cut the inputs into batches and queue them for the writer, then
+    // for a worker. The end markers are always queued, so an I/O error ends the run
+    // cleanly after the batches read before it.
+    private void read() {
+        try {
+            Batch batch = new Batch(options.batchSize);
+            for (String input : options.inputs) {
+                try (BufferedReader in = open(input)) {
+                    for (String line; !stopping && (line = in.readLine()) != null; ) {
+                        lines++;
+                        line = line.trim();
+                        if (line.isEmpty())
+                            continue;
+                        batch.lines[batch.size] = line;
+                        batch.numbers[batch.size++] = lines;
+                        if (batch.size == options.batchSize) {
+                            submit(batch);
+                            batch = new Batch(options.batchSize);
+                        }
+                    }
+                }
+            }
+            if (batch.size > 0)
+                submit(batch);
+        } catch (IOException e) {
+            readError = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                pending.put(Batch.END);
+                for (int i = 0; i < options.threads; i++)
+                    work.put(Batch.END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // the input as lines, counting the bytes read from it for the throughput
+    private BufferedReader open(final String input) throws IOException {
+        InputStream in = input.equals("-") ? stdin : Files.newInputStream(Paths.get(input));
+        return new BufferedReader(new InputStreamReader(new CountingInputStream(in), StandardCharsets.UTF_8));
+    }
+
+    // adds the bytes read through it to bytes; only used by the reader thread
+    private final class CountingInputStream extends FilterInputStream {
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                bytes++;
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                bytes += n;
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+    }
+
+    private void submit(final Batch batch) throws InterruptedException {
+        pending.put(batch);
+        work.put(batch);
+    }
+
+    // a worker thread: process batches until the end marker
+    private void work() {
+        Processor processor = new Processor(options);
+        try {
+            for (Batch batch; (batch = work.take()) != Batch.END; ) {
+                try {
+                    if (!stopping)
+                        processor.process(batch);
+                } catch (Throwable e) {
+                    // also Errors, which would otherwise end this worker and leave the
+                    // writer waiting for the batches it was still to be given
+                    batch.error = e;
+                } finally {
+                    batch.done.countDown();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // processes and formats the lines of a batch, with the buffers of one worker
+    static final class Processor {
+        private final Options options;
+        private final Bech32Decoder decoder = new Bech32Decoder();
+        private final MutableDecodedResult result = new MutableDecodedResult();
+        private final char[] encoded = new char[Bech32.Limits.MAX_BECH32_LENGTH];
+        private final StringBuilder output = new StringBuilder(2 * Bech32.Limits.MAX_BECH32_LENGTH);
+        // the fields of the current row, apart from the output
+        private String status;
+        private String hrp;
+        private DecodedResult.Encoding encoding;
+        private int position;
+        private String message;
+
+        Processor(final Options options) {
+            this.options = options;
+        }
+
+        // with fail-fast, the first invalid line is the last one written
+        void process(final Batch batch) {
+            for (int i = 0; i < batch.size; i++) {
+                boolean valid = process(batch.lines[i]);
+                String out = valid && output.length() > 0 ? output.toString() : null;
+                if (options.format == Format.CSV)
+                    csv(batch.output, batch.numbers[i], batch.lines[i], status, hrp, encoding, out, position, message);
+                else
+                    json(batch.output, batch.numbers[i], batch.lines[i], status, hrp, encoding, out, position, message);
+                if (valid) {
+                    batch.valid++;
+                } else {
+                    batch.invalid++;
+                    if (options.failFast) {
+                        batch.stopped = true;
+                        return;
+                    }
+                }
+            }
+        }
+
+        // fill in the row for one line, returning true if it is valid
+        private boolean process(final String line) {
+            output.setLength(0);
+            status = DecodeStatus.OK.name();
+            hrp = null;
+            encoding = null;
+            position = -1;
+            message = null;
+            switch (options.mode) {
+                case DECODE:
+                    if (!decode(line))
+                        return false;
+                    for (int i = 0; i < result.getDpLength(); i++)
+                        hex(result.dpAt(i));
+                    return true;
+                case VALIDATE:
+                    return decode(line);
+                case CONVERT:
+                    return decode(line) && encode(options.hrp != null ? options.hrp : hrp, result.getDp());
+                case ENCODE:
+                    return encode(line);
+                default:
+                    throw new IllegalStateException("unknown mode " + options.mode);
+            }
+        }
+
+        private boolean decode(final String line) {
+            DecodeStatus decoded = decoder.tryDecode(line, result);
+            status = decoded.name();
+            if (decoded != DecodeStatus.OK) {
+                position = result.getErrorPosition();
+                message = decoded.getMessage();
+                return false;
+            }
+            hrp = result.getHrp();
+            encoding = result.getEncoding();
+            return true;
+        }
+
+        // an encode line: "hrp,values", or "values" with --hrp
+        private boolean encode(final String line) {
+            String lineHrp = options.hrp;
+            String values = line;
+            if (lineHrp == null) {
+                int comma = line.indexOf(',');
+                if (comma < 0)
+                    return invalidInput("expected hrp,values");
+                lineHrp = line.substring(0, comma).trim();
+                values = line.substring(comma + 1).trim();
+            }
+            if (values.length() % 2 != 0)
+                return invalidInput("values must be two hex digits each");
+            char[] dp = new char[values.length() / 2];
+            for (int i = 0; i < dp.length; i++) {
+                int hi = Character.digit(values.charAt(2 * i), 16);
+                int lo = Character.digit(values.charAt(2 * i + 1), 16);
+                if (hi < 0 || lo < 0)
+                    return invalidInput("values must be two hex digits each");
+                dp[i] = (char) (hi << 4 | lo);
+            }
+            return encode(lineHrp, dp);
+        }
+
+        private boolean encode(final String encodeHrp, final char[] dp) {
+            try {
+                int n = Bech32.encodeTo(encodeHrp, dp, options.encoding, encoded, 0);
+                output.setLength(0);
+                output.append(encoded, 0, n);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                return invalidInput(e.getMessage());
+            }
+            hrp = encodeHrp.toLowerCase(Locale.ROOT);
+            encoding = options.encoding;
+            return true;
+        }
+
+        private boolean invalidInput(final String why) {
+            status = INVALID_INPUT;
+            hrp = null;
+            encoding = null;
+            message = why;
+            return false;
+        }
+
+        private void hex(final int value) {
+            output.append(HEX[value >>> 4]).append(HEX[value & 15]);
+        }
+    }
+
+    static void csv(final StringBuilder sb, final long number, final String input, final String status,
+                    final String hrp, final DecodedResult.Encoding encoding, final String output, final int position,
+                    final String message) {
+        sb.append(number).append(',');
+        csvField(sb, input).append(',');
+        csvField(sb, status).append(',');
+        csvField(sb, hrp).append(',');
+        if (encoding != null)
+            sb.append(encoding.name());
+        sb.append(',');
+        csvField(sb, output).append(',');
+        if (position >= 0)
+            sb.append(position);
+        sb.append(',');
+        csvField(sb, message).append('\n');
+    }
+
+    // a field, quoted as RFC 4180 has it if it holds a comma, quote or line break
+    private static StringBuilder csvField(final StringBuilder sb, final String value) {
+        if (value == null)
+            return sb;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote)
+            return sb.append(value);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"')
+                sb.append('"');
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+
+    // one JSON object per line; absent fields are left out
+    static void json(final StringBuilder sb, final long number, final String input, final String status,
+                     final String hrp, final DecodedResult.Encoding encoding, final String output, final int position,
+                     final String message) {
+        sb.append("{\"line\":").append(number);
+        jsonField(sb, "input", input);
+        jsonField(sb, "status", status);
+        jsonField(sb, "hrp", hrp);
+        jsonField(sb, "encoding", encoding != null ? encoding.name() : null);
+        jsonField(sb, "output", output);
+        if (position >= 0)
+            sb.append(",\"position\":").append(position);
+        jsonField(sb, "message", message);
+        sb.append("}\n");
+    }
+
+    private static void jsonField(final StringBuilder sb, final String name, final String value) {
+        if (value == null)
+            return;
+        sb.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append("\\u00").append(HEX[c >>> 4]).append(HEX[c & 15]);
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,112 @@
+package design.contract.bech32;
+
+import java.util.Locale;
+
+// Strategies for computing the bech32 polymod checksum. All of them produce identical
+// results; they differ only in how many generator terms are folded in per step.
+//
+// The engine used by Bech32 and Bech32Decoder by default can be chosen at startup with
+// the "design.contract.bech32.checksumEngine" system property (one of the constant
+// names below), and a Bech32Decoder can also be given an engine explicitly.
+public enum ChecksumEngine {
+
+    // one symbol per step, with five conditional XOR masks. This is the loop from
+    // BIP-0173 and is kept as the reference the other engines are checked against.
+    REFERENCE {
+        @Override
+        long step(final long chk, final int value) {
+            return Bech32.Impl.polymodStep(chk, value);
+        }
+    },
+
+    // one symbol per step, folding the top 5 bits of the residue in with a single
+    // table load instead of five conditional masks
+    TABLE {
+        @Override
+        long step(final long chk, final int value) {
+            return (chk & 0x1ffffff) << 5 ^ value ^ TABLE_5[(int) (chk >>> 25)];
+        }
+    },
+
+    // two symbols per step, folding the top 10 bits of the residue in with a single
+    // load from a 1024-entry table. Odd symbols fall back to the 5-bit table.
+    TABLE_10BIT {
+        @Override
+        long step(final long chk, final int value) {
+            return TABLE.step(chk, value);
+        }
+
+        @Override
+        long step2(final long chk, final int first, final int second) {
+            return (chk & 0xfffff) << 10 ^ first << 5 ^ second ^ TABLE_10[(int) (chk >>> 20)];
+        }
+
+        @Override
+        long polymod(long chk, final char[] values, final int offset, final int length) {
+            int i = offset;
+            for (int end = offset + (length & ~1); i < end; i += 2) {
+                chk = step2(chk, values[i], values[i + 1]);
+            }
+            if ((length & 1) != 0) {
+                chk = step(chk, values[i]);
+            }
+            return chk;
+        }
+    };
+
+    public static final String PROPERTY = "design.contract.bech32.checksumEngine";
+
+    // the polymod step is linear over GF(2) in the residue, so the contribution of the
+    // top bits can be found by running the reference step from a state holding only those
+    // bits, with zero input
+    private static final long[] TABLE_5 = new long[32];
+    private static final long[] TABLE_10 = new long[1024];
+
+    static {
+        for (int i = 0; i < TABLE_5.length; i++) {
+            TABLE_5[i] = Bech32.Impl.polymodStep((long) i << 25, 0);
+        }
+        for (int i = 0; i < TABLE_10.length; i++) {
+            TABLE_10[i] = Bech32.Impl.polymodStep(Bech32.Impl.polymodStep((long) i << 20, 0), 0);
+        }
+    }
+
+    private static final ChecksumEngine DEFAULT = fromProperty(System.getProperty(PROPERTY));
+
+    // feed a single 5-bit value into a running checksum
+    abstract long step(long chk, int value);
+
+    // feed two consecutive 5-bit values into a running checksum
+    long step2(final long chk, final int first, final int second) {
+        return step(step(chk, first), second);
+    }
+
+    // feed values[offset, offset + length) into a running checksum
+    long polymod(long chk, final char[] values, final int offset, final int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            chk = step(chk, values[i]);
+        }
+        return chk;
+    }
+
+    // polymod of the given values, starting from the initial residue of 1
+    public long polymod(final char[] values) {
+        return polymod(1, values, 0, values.length);
+    }
+
+    // the engine selected by the system property, or TABLE_10BIT if none was given
+    public static ChecksumEngine getDefault() {
+        return DEFAULT;
+    }
+
+    // unknown names fall back to TABLE_10BIT rather than failing class initialization
+    static ChecksumEngine fromProperty(final String value) {
+        if (value != null) {
+            for (ChecksumEngine engine : values()) {
+                if (engine.name().equals(value.trim().toUpperCase(Locale.ROOT)))
+                    return engine;
+            }
+        }
+        return TABLE_10BIT;
+    }
+}
@@ -0,0 +1,172 @@
+package design.contract.bech32;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// An immutable decoded bech32 string, for holding many of them, e.g. as HashMap keys.
+// The data part is packed five bits per value, so 32 values take 20 bytes instead of
+// the 64 of a char[], and the hash is computed once up front.
+//
+// Instances never expose their internal array, so they can be shared between threads
+// without copying.
+public final class CompactDecodedResult {
+
+    private final String hrp;
+    private final byte[] packed;
+    private final int dpLength;
+    private final DecodedResult.Encoding encoding;
+    private final int hash;
+
+    private CompactDecodedResult(final String hrp, final byte[] packed, final int dpLength,
+                                 final DecodedResult.Encoding encoding) {
+        this.hrp = hrp;
+        this.packed = packed;
+        this.dpLength = dpLength;
+        this.encoding = encoding;
+        // the encoding's ordinal rather than its identity hash, so hashes are stable
+        int h = hrp.hashCode();
+        h = 31 * h + encoding.ordinal();
+        h = 31 * h + dpLength;
+        h = 31 * h + Arrays.hashCode(packed);
+        this.hash = h;
+    }
+
+    public static CompactDecodedResult of(final String hrp, final char[] dp, final DecodedResult.Encoding encoding) {
+        Objects.requireNonNull(hrp);
+        Objects.requireNonNull(encoding);
+        return new CompactDecodedResult(hrp, pack(dp, dp.length), dp.length, encoding);
+    }
+
+    // compact a DecodedResult, whose HRP and data part must be set
+    public static CompactDecodedResult of(final DecodedResult result) {
+        return of(result.getHrp(), result.getDp(), result.getEncoding());
+    }
+
+    // compact a valid MutableDecodedResult, reading its data part in place
+    public static CompactDecodedResult of(final MutableDecodedResult result) {
+        if (!result.isValid())
+            throw new IllegalArgumentException("result does not hold a valid decode");
+        int length = result.getDpLength();
+        return new CompactDecodedResult(result.getHrp(), pack(result.dpBuffer(), length), length, result.getEncoding());
+    }
+
+    // compact a valid DecodedView, reading its data part from the input in place
+    public static CompactDecodedResult of(final DecodedView view) {
+        if (!view.isValid())
+            throw new IllegalArgumentException("view does not hold a valid decode");
+        int length = view.getDpLength();
+        char[] dp = new char[length];
+        for (int i = 0; i < length; i++)
+            dp[i] = view.dpAt(i);
+        return new CompactDecodedResult(view.getHrp(), pack(dp, length), length, view.getEncoding());
+    }
+
+    private static byte[] pack(final char[] dp, final int length) {
+        byte[] packed = new byte[packedLength(length)];
+        pack(dp, length, packed);
+        return packed;
+    }
+
+    static int packedLength(final int dpLength) {
+        return (dpLength * 5 + 7) / 8;
+    }
+
+    // pack dp[0, length) into out five bits per value, most significant bit first, with
+    // the last byte padded with zero bits, returning the number of bytes written
+    static int pack(final char[] dp, final int length, final byte[] out) {
+        int acc = 0, bits = 0, n = 0;
+        for (int i = 0; i < length; i++) {
+            char value = dp[i];
+            if (value > Bech32.Limits.VALID_CHARSET_SIZE - 1)
+                throw new IllegalArgumentException("data value is out of range");
+            // at most 12 bits are ever pending
+            acc = (acc << 5 | value) & 0xfff;
+            bits += 5;
+            if (bits >= 8) {
+                bits -= 8;
+                out[n++] = (byte) (acc >>> bits);
+            }
+        }
+        if (bits > 0)
+            out[n++] = (byte) (acc << (8 - bits));
+        return n;
+    }
+
+    // unpack length values from packed into dst at offset
+    static void unpack(final byte[] packed, final int length, final char[] dst, final int offset) {
+        int acc = 0, bits = 0, n = 0;
+        for (int i = 0; n < length; i++) {
+            acc = (acc << 8 | packed[i] & 0xff) & 0xfff;
+            bits += 8;
+            while (bits >= 5 && n < length) {
+                bits -= 5;
+                dst[offset + n++] = (char) (acc >>> bits & 31);
+            }
+        }
+    }
+
+    public String getHrp() {
+        return hrp;
+    }
+
+    public DecodedResult.Encoding getEncoding() {
+        return encoding;
+    }
+
+    public int getDpLength() {
+        return dpLength;
+    }
+
+    public char dpAt(final int index) {
+        if (index < 0 || index >= dpLength)
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + dpLength);
+        int bit = 5 * index;
+        int i = bit >>> 3;
+        int word = (packed[i] & 0xff) << 8 | (i + 1 < packed.length ? packed[i + 1] & 0xff : 0);
+        return (char) (word >>> (11 - (bit & 7)) & 31);
+    }
+
+    // copy the data part into dst, returning the number of values copied
+    public int copyDp(final char[] dst, final int offset) {
+        if (offset < 0 || offset > dst.length - dpLength)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + dpLength + ", array length: " + dst.length);
+        unpack(packed, dpLength, dst, offset);
+        return dpLength;
+    }
+
+    // allocates a new array
+    public char[] getDp() {
+        char[] dp = new char[dpLength];
+        copyDp(dp, 0);
+        return dp;
+    }
+
+    // convert to a regular DecodedResult
+    public DecodedResult toDecodedResult() {
+        return new DecodedResult(hrp, getDp(), encoding);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        CompactDecodedResult that = (CompactDecodedResult) o;
+        return hash == that.hash &&
+                dpLength == that.dpLength &&
+                encoding == that.encoding &&
+                Arrays.equals(packed, that.packed) &&
+                hrp.equals(that.hrp);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactDecodedResult{hrp=" + hrp + ", dpLength=" + dpLength + ", encoding=" + encoding + '}';
+    }
+}
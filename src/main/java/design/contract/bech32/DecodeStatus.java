@@ -0,0 +1,48 @@
+package design.contract.bech32;
+
+// Outcome of Bech32Decoder.tryDecode(), Bech32.tryDecode() and Bech32.validate(). Each
+// rejection carries the message the throwing API uses for it.
+//
+// Along with the status, MutableDecodedResult.getErrorPosition() gives the index of the
+// offending character where there is one: the first character past the limit for
+// TOO_LONG and HRP_TOO_LONG, the end of the string for TOO_SHORT, the first character
+// whose case or value is wrong for MIXED_CASE, OUT_OF_RANGE and INVALID_CHAR, and the
+// separator for HRP_TOO_SHORT and DATA_TOO_SHORT. It is -1 for NO_SEPARATOR and
+// BAD_CHECKSUM.
+//
+// INVALID_PAYLOAD and HRP_MISMATCH are never returned by tryDecode(). They are the status
+// of exceptions thrown by decodeToBytes(), decodeSegwit() and SegwitAddress.decode() for
+// strings that verify but don't hold what was asked for; the exception's message says
+// how, and its position is -1.
+public enum DecodeStatus {
+    OK(null),
+    TOO_SHORT("bech32 string too short"),
+    TOO_LONG("bech32 string too long"),
+    MIXED_CASE("bech32 string is mixed case"),
+    OUT_OF_RANGE("bech32 string has value out of range"),
+    NO_SEPARATOR("bech32 string is missing separator character"),
+    HRP_TOO_SHORT("HRP must be at least one character"),
+    HRP_TOO_LONG("HRP must be less than 84 characters"),
+    DATA_TOO_SHORT("data part must be at least six characters"),
+    INVALID_CHAR("data part contains invalid character"),
+    BAD_CHECKSUM("bech32 checksum is invalid"),
+    INVALID_PAYLOAD("data part is not a valid payload"),
+    HRP_MISMATCH("HRP does not match expected HRP");
+
+    private final String message;
+
+    DecodeStatus(String message) {
+        this.message = message;
+    }
+
+    // the rejection message, or null for OK
+    public String getMessage() {
+        return message;
+    }
+
+    // true if the string was rejected before its checksum could be checked. These are the
+    // cases in which Bech32.decode() throws; a bad checksum is reported as INVALID instead.
+    public boolean isMalformed() {
+        return this != OK && this != BAD_CHECKSUM;
+    }
+}
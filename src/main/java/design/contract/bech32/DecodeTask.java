@@ -0,0 +1,56 @@
+package design.contract.bech32;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+// Fork/join task behind Bech32.decodeAll(). Ranges no larger than the sequential
+// threshold are decoded in the current thread with a single reusable Bech32Decoder;
+// larger ranges are split in half.
+class DecodeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> bstrings;
+    private final BatchDecodeResult results;
+    private final int from;
+    private final int to;
+    private final int sequentialThreshold;
+
+    DecodeTask(List<String> bstrings, BatchDecodeResult results, int from, int to, int sequentialThreshold) {
+        this.bstrings = bstrings;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= sequentialThreshold) {
+            decodeRange(bstrings, results, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        invokeAll(new DecodeTask(bstrings, results, from, mid, sequentialThreshold),
+                new DecodeTask(bstrings, results, mid, to, sequentialThreshold));
+    }
+
+    static void decodeRange(List<String> bstrings, BatchDecodeResult results, int from, int to) {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        for (int i = from; i < to; i++) {
+            String bstring = bstrings.get(i);
+            if (bstring == null) {
+                results.setMalformed(i, "bech32 string is null");
+                continue;
+            }
+            DecodeStatus status = decoder.tryDecode(bstring, result);
+            if (status == DecodeStatus.OK)
+                results.setValid(i, result.toDecodedResult());
+            else if (status == DecodeStatus.BAD_CHECKSUM)
+                results.setInvalidChecksum(i);
+            else
+                results.setMalformed(i, status.getMessage());
+        }
+    }
+}
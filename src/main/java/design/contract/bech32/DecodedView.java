@@ -0,0 +1,124 @@
+package design.contract.bech32;
+
+import java.util.Objects;
+
+// A lazily decoded bech32 string: the original input, the index of its separator and
+// the encoding its checksum verified as. Nothing else is kept when the view is made; the
+// HRP and data part are only decoded when getHrp() or getDp() is first called, and
+// hrpEquals(), dpAt() and the lengths read the input in place.
+//
+// Instances are immutable apart from those cached values, and can be shared between
+// threads.
+public final class DecodedView {
+
+    private final String input;
+    private final int separator;
+    private final DecodedResult.Encoding encoding;
+
+    private volatile String hrp;
+    private volatile char[] dp;
+
+    DecodedView(final String input, final int separator, final DecodedResult.Encoding encoding) {
+        this.input = input;
+        this.separator = separator;
+        this.encoding = encoding;
+    }
+
+    // the string this view was made from
+    public String getInput() {
+        return input;
+    }
+
+    // index of the separator in the input, which is also the length of the HRP
+    public int getSeparatorIndex() {
+        return separator;
+    }
+
+    public DecodedResult.Encoding getEncoding() {
+        return encoding;
+    }
+
+    public boolean isValid() {
+        return encoding != DecodedResult.Encoding.INVALID;
+    }
+
+    public int getHrpLength() {
+        return separator;
+    }
+
+    // number of data values, not counting the checksum
+    public int getDpLength() {
+        return input.length() - separator - 1 - Bech32.Limits.CHECKSUM_LENGTH;
+    }
+
+    // compare the HRP against the given one, ignoring case, without creating a String
+    public boolean hrpEquals(final CharSequence other) {
+        if (other == null || other.length() != separator)
+            return false;
+        for (int i = 0; i < separator; i++) {
+            if (Bech32.toLowercase(input.charAt(i)) != Bech32.toLowercase(other.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    public char dpAt(final int index) {
+        int length = getDpLength();
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        return (char) Bech32.REVERSE_CHARSET[input.charAt(separator + 1 + index)];
+    }
+
+    // the lowercased HRP, looked up in HrpPool on first call, or null if the checksum
+    // didn't verify
+    public String getHrp() {
+        if (!isValid())
+            return null;
+        String h = hrp;
+        if (h == null)
+            hrp = h = HrpPool.intern(input, 0, separator);
+        return h;
+    }
+
+    // the data part, decoded on first call and copied on every call, or null if the
+    // checksum didn't verify
+    public char[] getDp() {
+        if (!isValid())
+            return null;
+        char[] d = dp;
+        if (d == null) {
+            d = new char[getDpLength()];
+            for (int i = 0; i < d.length; i++)
+                d[i] = (char) Bech32.REVERSE_CHARSET[input.charAt(separator + 1 + i)];
+            dp = d;
+        }
+        return d.clone();
+    }
+
+    // convert to a regular DecodedResult, which is equal to what Bech32.decode() would return
+    public DecodedResult toDecodedResult() {
+        if (!isValid())
+            return new DecodedResult();
+        return new DecodedResult(getHrp(), getDp(), encoding);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        DecodedView that = (DecodedView) o;
+        return separator == that.separator && encoding == that.encoding && input.equals(that.input);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(input, separator, encoding);
+    }
+
+    @Override
+    public String toString() {
+        return "DecodedView{input=" + input + ", separator=" + separator + ", encoding=" + encoding + '}';
+    }
+}
@@ -0,0 +1,43 @@
+package design.contract.bech32;
+
+import java.util.concurrent.RecursiveAction;
+
+// Fork/join task behind Bech32BatchEncoder. Every item's position in the output is
+// known up front, so ranges can be encoded independently; ranges no larger than the
+// sequential threshold are encoded in the current thread, larger ones are split in half.
+class EncodeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Bech32BatchEncoder encoder;
+    private final char[] data;
+    private final int[] offsets;
+    private final byte[] out;
+    private final int[] outOffsets;
+    private final int from;
+    private final int to;
+    private final int sequentialThreshold;
+
+    EncodeTask(Bech32BatchEncoder encoder, char[] data, int[] offsets, byte[] out, int[] outOffsets,
+               int from, int to, int sequentialThreshold) {
+        this.encoder = encoder;
+        this.data = data;
+        this.offsets = offsets;
+        this.out = out;
+        this.outOffsets = outOffsets;
+        this.from = from;
+        this.to = to;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= sequentialThreshold) {
+            encoder.encodeRange(data, offsets, out, outOffsets, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        invokeAll(new EncodeTask(encoder, data, offsets, out, outOffsets, from, mid, sequentialThreshold),
+                new EncodeTask(encoder, data, offsets, out, outOffsets, mid, to, sequentialThreshold));
+    }
+}
@@ -0,0 +1,57 @@
+package design.contract.bech32;
+
+import java.nio.charset.StandardCharsets;
+
+// Output of Bech32BatchEncoder: all encoded strings back to back in a single ASCII
+// buffer, with item i occupying [getOffset(i), getOffset(i + 1)). No per-item objects
+// exist until get() or toArray() is called.
+public class EncodedBatch {
+
+    private final byte[] buffer;
+    private final int[] offsets;
+
+    EncodedBatch(byte[] buffer, int[] offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    // the underlying ASCII buffer; not copied, so callers must not modify it
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    // start of item i in the buffer; getOffset(size()) is the total length
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    public int getLength(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    // allocates a new String for item i
+    public String get(int index) {
+        return new String(buffer, offsets[index], getLength(index), StandardCharsets.US_ASCII);
+    }
+
+    // copy item i into dst at offset, returning the number of chars copied
+    public int getChars(int index, char[] dst, int offset) {
+        int from = offsets[index];
+        int length = getLength(index);
+        for (int i = 0; i < length; i++)
+            dst[offset + i] = (char) buffer[from + i];
+        return length;
+    }
+
+    // allocates a String for every item
+    public String[] toArray() {
+        String[] result = new String[size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = get(i);
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package design.contract.bech32;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// The outcome of Bech32.locateErrors(): the positions of up to two characters that, if
+// replaced by the suggested corrections, would make the checksum verify.
+//
+// Corrections are only suggestions: any string with more errors may still be "corrected"
+// into a different valid string, so they should be shown to a user to check rather than
+// applied automatically.
+public final class ErrorLocation {
+
+    private final DecodedResult.Encoding encoding;
+    private final int[] positions;
+    private final char[] corrections;
+
+    ErrorLocation(final DecodedResult.Encoding encoding, final int[] positions, final char[] corrections) {
+        this.encoding = encoding;
+        this.positions = positions;
+        this.corrections = corrections;
+    }
+
+    // the encoding whose checksum verifies once the corrections are applied (or right
+    // away, if there are none), or INVALID if no errors could be located
+    public DecodedResult.Encoding getEncoding() {
+        return encoding;
+    }
+
+    // true if the string was valid as given
+    public boolean isValid() {
+        return encoding != DecodedResult.Encoding.INVALID && positions.length == 0;
+    }
+
+    // true if one or two errors were located
+    public boolean isCorrectable() {
+        return positions.length > 0;
+    }
+
+    // number of errors located, 0 to 2
+    public int getErrorCount() {
+        return positions.length;
+    }
+
+    // indexes of the erroneous characters in the bech32 string, in ascending order
+    public int[] getPositions() {
+        return positions.clone();
+    }
+
+    // the suggested replacement for each position, in the case of the original string
+    public char[] getCorrections() {
+        return corrections.clone();
+    }
+
+    // the given bech32 string with the corrections applied
+    public String apply(final CharSequence bstring) {
+        Objects.requireNonNull(bstring);
+        StringBuilder sb = new StringBuilder(bstring);
+        for (int i = 0; i < positions.length; i++)
+            sb.setCharAt(positions[i], corrections[i]);
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        ErrorLocation that = (ErrorLocation) o;
+        return encoding == that.encoding &&
+                Arrays.equals(positions, that.positions) &&
+                Arrays.equals(corrections, that.corrections);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(encoding);
+        result = 31 * result + Arrays.hashCode(positions);
+        result = 31 * result + Arrays.hashCode(corrections);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ErrorLocation{encoding=" + encoding + ", positions=" + Arrays.toString(positions) +
+                ", corrections=" + Arrays.toString(corrections) + '}';
+    }
+}
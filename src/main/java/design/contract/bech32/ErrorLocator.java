@@ -0,0 +1,196 @@
+package design.contract.bech32;
+
+import java.util.Locale;
+
+// Locates up to two substituted characters in a bech32 string whose checksum fails,
+// from the syndrome of the polymod residue, in time linear in the string length. This
+// follows LocateErrors() in Bitcoin Core.
+//
+// The checksum is a BCH code over GF(32) whose generator has the roots a^997 .. a^1002,
+// for a primitive element a of GF(1024). For a string with errors E(x) the residue R(x)
+// (polymod XOR the encoding constant) satisfies R(a^j) = E(a^j) at those roots, so the
+// three syndromes s_j = R(a^j) for j = 997, 998 and 999 are enough to solve for one or
+// two error positions and values.
+final class ErrorLocator {
+
+    // GF(32) with modulus x^5 + x^3 + 1; GF32_LOG[0] is unused
+    static final int[] GF32_EXP = new int[31];
+    static final int[] GF32_LOG = new int[32];
+
+    // GF(1024) as pairs v1 * z + v0 over GF(32), packed as v1 << 5 | v0, where z is a
+    // root of x^2 + 9x + 23. GF1024_LOG[0] is -1.
+    static final int[] GF1024_EXP = new int[1023];
+    static final int[] GF1024_LOG = new int[1024];
+
+    // for residue bit 5 * (k - 1) + shift, i.e. bit "shift" of the coefficient of x^k, the
+    // three syndromes of that single term, packed as s999 << 20 | s998 << 10 | s997
+    private static final int[] SYNDROME_CONSTS = new int[25];
+
+    static {
+        GF32_EXP[0] = 1;
+        GF32_LOG[0] = -1;
+        for (int i = 1, v = 1; i < 31; i++) {
+            v <<= 1;
+            if ((v & 32) != 0)
+                v ^= 41;
+            GF32_EXP[i] = v;
+            GF32_LOG[v] = i;
+        }
+
+        // multiplying v1 * z + v0 by z gives (9 * v1 + v0) * z + 23 * v1
+        GF1024_EXP[0] = 1;
+        GF1024_LOG[0] = -1;
+        for (int i = 1, v = 1; i < 1023; i++) {
+            int v0 = v & 31;
+            int v1 = v >> 5;
+            int v0n = v1 != 0 ? GF32_EXP[(GF32_LOG[v1] + GF32_LOG[23]) % 31] : 0;
+            int v1n = (v1 != 0 ? GF32_EXP[(GF32_LOG[v1] + GF32_LOG[9]) % 31] : 0) ^ v0;
+            v = v1n << 5 | v0n;
+            GF1024_EXP[i] = v;
+            GF1024_LOG[v] = i;
+        }
+
+        for (int k = 1; k < 6; k++) {
+            for (int shift = 0; shift < 5; shift++) {
+                int b = GF1024_LOG[1 << shift];
+                int c0 = GF1024_EXP[(997 * k + b) % 1023];
+                int c1 = GF1024_EXP[(998 * k + b) % 1023];
+                int c2 = GF1024_EXP[(999 * k + b) % 1023];
+                SYNDROME_CONSTS[5 * (k - 1) + shift] = c2 << 20 | c1 << 10 | c0;
+            }
+        }
+    }
+
+    // locate errors in a bech32 string, which must otherwise be well-formed, under whichever
+    // constant needs fewer. Errors can only be located in the data part (including the
+    // checksum), not in the HRP.
+    static ErrorLocation locate(final String bstring) {
+        // rejects malformed strings with the usual messages, and tells valid ones apart
+        DecodedResult.Encoding valid = new Bech32Decoder().decode(bstring, new MutableDecodedResult());
+        if (valid != DecodedResult.Encoding.INVALID)
+            return new ErrorLocation(valid, new int[0], new char[0]);
+
+        // try both constants, and keep whichever explains the failure with fewer errors; the
+        // witness version can't be used to pick one, as it may itself be wrong
+        ErrorLocation bech32 = locateFailure(bstring, DecodedResult.Encoding.BECH32);
+        ErrorLocation bech32m = locateFailure(bstring, DecodedResult.Encoding.BECH32M);
+        if (bech32m.isCorrectable() && (!bech32.isCorrectable() || bech32m.getErrorCount() < bech32.getErrorCount()))
+            return bech32m;
+        return bech32;
+    }
+
+    // locate errors in a bech32 string, which must otherwise be well-formed, under the
+    // given encoding's constant only
+    static ErrorLocation locate(final String bstring, final DecodedResult.Encoding encoding) {
+        // rejects INVALID, which has no constant, before looking at the string
+        Bech32.constant(encoding);
+        if (new Bech32Decoder().decode(bstring, new MutableDecodedResult()) == encoding)
+            return new ErrorLocation(encoding, new int[0], new char[0]);
+        return locateFailure(bstring, encoding);
+    }
+
+    // errors in a well-formed bech32 string that doesn't verify under encoding's constant
+    private static ErrorLocation locateFailure(final String bstring, final DecodedResult.Encoding encoding) {
+        String lower = bstring.toLowerCase(Locale.ROOT);
+        boolean upper = !lower.equals(bstring);
+        int pos = lower.lastIndexOf(Bech32.SEPARATOR);
+        int length = lower.length() - pos - 1;
+        char[] values = new char[length];
+        for (int i = 0; i < length; i++)
+            values[i] = (char) Bech32.REVERSE_CHARSET[lower.charAt(pos + 1 + i)];
+
+        ChecksumEngine engine = ChecksumEngine.getDefault();
+        long chk = engine.polymod(HrpCache.residue(lower.substring(0, pos).toCharArray()), values, 0, length);
+        int[] found = locate((int) chk ^ Bech32.constant(encoding), length);
+        if (found == null)
+            return new ErrorLocation(DecodedResult.Encoding.INVALID, new int[0], new char[0]);
+
+        // found holds (power, error value) pairs, with powers counted from the last character
+        int count = found.length / 2;
+        int[] positions = new int[count];
+        char[] corrections = new char[count];
+        for (int i = 0; i < count; i++) {
+            int index = lower.length() - 1 - found[2 * i];
+            int value = Bech32.REVERSE_CHARSET[lower.charAt(index)] ^ found[2 * i + 1];
+            char c = Bech32.CHARSET.charAt(value);
+            positions[i] = index;
+            corrections[i] = upper ? Character.toUpperCase(c) : c;
+        }
+        if (count == 2 && positions[0] > positions[1]) {
+            int p = positions[0];
+            positions[0] = positions[1];
+            positions[1] = p;
+            char c = corrections[0];
+            corrections[0] = corrections[1];
+            corrections[1] = c;
+        }
+        return new ErrorLocation(encoding, positions, corrections);
+    }
+
+    // s999 << 20 | s998 << 10 | s997 for a residue
+    static int syndrome(final int residue) {
+        int low = residue & 0x1f;
+        int result = low ^ low << 10 ^ low << 20;
+        for (int i = 0; i < 25; i++) {
+            if ((residue >>> (5 + i) & 1) != 0)
+                result ^= SYNDROME_CONSTS[i];
+        }
+        return result;
+    }
+
+    // (power, error value) pairs for one or two errors in the last length symbols that
+    // explain a non-zero residue, or null if there are none
+    static int[] locate(final int residue, final int length) {
+        int syn = syndrome(residue);
+        int s0 = syn & 0x3ff;
+        int s1 = syn >>> 10 & 0x3ff;
+        int s2 = syn >>> 20;
+        int ls0 = GF1024_LOG[s0];
+        int ls1 = GF1024_LOG[s1];
+        int ls2 = GF1024_LOG[s2];
+
+        // a single error e1 * x^p1 gives s1 / s0 = s2 / s1 = a^p1
+        if (ls0 != -1 && ls1 != -1 && ls2 != -1 && (2 * ls1 - ls2 - ls0 + 2046) % 1023 == 0) {
+            int p1 = (ls1 - ls0 + 1023) % 1023;
+            int le1 = ls0 + (1023 - 997) * p1;
+            // the error value has to lie in the subfield GF(32), whose logs are multiples of 33
+            if (p1 < length && le1 % 33 == 0)
+                return new int[]{p1, GF1024_EXP[le1 % 1023]};
+            return null;
+        }
+
+        // otherwise try two errors e1 * x^p1 + e2 * x^p2, solving for p2 given each p1:
+        // a^p2 = (s2 + s1 * a^p1) / (s1 + s0 * a^p1)
+        for (int p1 = 0; p1 < length; p1++) {
+            int s2s1p1 = s2 ^ (s1 == 0 ? 0 : GF1024_EXP[(ls1 + p1) % 1023]);
+            if (s2s1p1 == 0)
+                continue;
+            int s1s0p1 = s1 ^ (s0 == 0 ? 0 : GF1024_EXP[(ls0 + p1) % 1023]);
+            if (s1s0p1 == 0)
+                continue;
+            int ls1s0p1 = GF1024_LOG[s1s0p1];
+            int p2 = (GF1024_LOG[s2s1p1] - ls1s0p1 + 1023) % 1023;
+            if (p2 >= length || p1 == p2)
+                continue;
+
+            int s1s0p2 = s1 ^ (s0 == 0 ? 0 : GF1024_EXP[(ls0 + p2) % 1023]);
+            if (s1s0p2 == 0)
+                continue;
+            // log of 1 / (a^p1 + a^p2)
+            int inv = 1023 - GF1024_LOG[GF1024_EXP[p1] ^ GF1024_EXP[p2]];
+
+            int le2 = ls1s0p1 + inv + (1023 - 997) * p2;
+            if (le2 % 33 != 0)
+                continue;
+            int le1 = GF1024_LOG[s1s0p2] + inv + (1023 - 997) * p1;
+            if (le1 % 33 != 0)
+                continue;
+            return new int[]{p1, GF1024_EXP[le1 % 1023], p2, GF1024_EXP[le2 % 1023]};
+        }
+        return null;
+    }
+
+    private ErrorLocator() {
+        throw new IllegalStateException("should not instantiate");
+    }
+}
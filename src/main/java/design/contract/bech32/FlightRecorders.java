@@ -0,0 +1,20 @@
+package design.contract.bech32;
+
+// Loads the Java Flight Recorder metrics. This is the Java 8 version: the jdk.jfr API
+// can't be compiled against for Java 8, so there are none, and a multi-release JAR
+// replaces this class on Java 17+ with one that loads JfrMetrics.
+final class FlightRecorders {
+
+    static boolean isAvailable() {
+        return false;
+    }
+
+    // metrics emitting events for operations of at least thresholdNanos, or null
+    static Bech32Metrics load(final long thresholdNanos) {
+        return null;
+    }
+
+    private FlightRecorders() {
+        throw new IllegalStateException("should not instantiate");
+    }
+}
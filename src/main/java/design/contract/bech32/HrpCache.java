@@ -0,0 +1,232 @@
+package design.contract.bech32;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bounded cache of the checksum state after the expanded HRP, keyed by the lowercased
+// HRP. Most traffic uses a handful of HRPs, so encoding and decoding can start from the
+// cached residue and only run the checksum over the data part.
+//
+// Lookups are lock-free reads of a ConcurrentHashMap, and get() first checks the last
+// state the calling thread used, so the common case of one HRP per thread touches no
+// shared state at all. Only misses lock, to insert and to evict a least recently used
+// state when the cache is full.
+//
+// The capacity can be set with the "design.contract.bech32.hrpCacheSize" system property.
+final class HrpCache {
+
+    static final String PROPERTY = "design.contract.bech32.hrpCacheSize";
+
+    static final int DEFAULT_CAPACITY = 64;
+
+    // lowercased HRP chars, compared by content. Decoders keep a mutable one around to
+    // probe the cache without allocating.
+    static final class Key {
+        char[] chars;
+        int length;
+        int hash;
+
+        Key() {
+        }
+
+        private Key(char[] chars, int hash) {
+            this.chars = chars;
+            this.length = chars.length;
+            this.hash = hash;
+        }
+
+        Key set(char[] chars, int length, int hash) {
+            this.chars = chars;
+            this.length = length;
+            this.hash = hash;
+            return this;
+        }
+
+        boolean matches(char[] other, int otherLength, int otherHash) {
+            if (hash != otherHash || length != otherLength)
+                return false;
+            for (int i = 0; i < length; i++) {
+                if (chars[i] != other[i])
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return key.matches(chars, length, hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static final class HrpState {
+        final Key key;
+        final String hrp;
+        final long residue;
+        // the eviction clock when this was last used; only written when the clock has
+        // moved, so readers of a hot HRP don't keep writing the same cache line
+        volatile long used;
+
+        private HrpState(String hrp, long used) {
+            char[] chars = hrp.toCharArray();
+            this.key = new Key(chars, hash(chars, chars.length));
+            this.hrp = hrp;
+            this.residue = residue(chars);
+            this.used = used;
+        }
+    }
+
+    // the last state a thread looked up by String, and a probe for the lowercased chars
+    private static final class Local {
+        HrpState last;
+        int cleared;
+        final Key probe = new Key();
+        char[] chars = new char[Bech32.Limits.MAX_HRP_LENGTH];
+    }
+
+    private static final int CAPACITY = capacity(System.getProperty(PROPERTY));
+
+    private static final ConcurrentHashMap<Key, HrpState> CACHE = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Local> LOCAL = ThreadLocal.withInitial(Local::new);
+
+    // advanced by every insertion. Eviction removes a state with the oldest "used" stamp,
+    // which approximates LRU: states used since the last insertion tie.
+    private static volatile long clock;
+
+    // bumped by clear(), so that threads drop their last state
+    private static volatile int cleared;
+
+    // guards insertion and eviction only; lookups never take it
+    private static final Object LOCK = new Object();
+
+    // state for the given HRP, which is lowercased first, computing and caching it if needed
+    static HrpState get(final String hrp) {
+        Local local = LOCAL.get();
+        HrpState last = local.cleared == cleared ? local.last : null;
+        local.cleared = cleared;
+        if (last != null && last.hrp.equals(hrp))
+            return touch(last);
+
+        int length = hrp.length();
+        if (length > local.chars.length)
+            local.chars = new char[length];
+        char[] chars = local.chars;
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            char c = hrp.charAt(i);
+            if (c > 0x7f) {
+                // only non-ASCII HRPs need the full lowercasing, and they are never valid
+                String lower = hrp.toLowerCase(Locale.ROOT);
+                return local.last = put(new Key().set(lower.toCharArray(), lower.length(),
+                        hash(lower.toCharArray(), lower.length())));
+            }
+            c = Bech32.toLowercase(c);
+            chars[i] = c;
+            hash = 31 * hash + c;
+        }
+        Key probe = local.probe.set(chars, length, hash);
+        HrpState state = lookup(probe);
+        if (state == null)
+            state = put(probe);
+        probe.set(null, 0, 0);
+        return local.last = state;
+    }
+
+    // state for the already lowercased HRP held in probe, or null if it isn't cached
+    static HrpState lookup(final Key probe) {
+        HrpState state = CACHE.get(probe);
+        return state != null ? touch(state) : null;
+    }
+
+    // cache the lowercased HRP held in probe, returning its state
+    static HrpState put(final Key probe) {
+        HrpState state = CACHE.get(probe);
+        if (state != null)
+            return touch(state);
+        synchronized (LOCK) {
+            state = CACHE.get(probe);
+            if (state != null)
+                return touch(state);
+            long now = ++clock;
+            state = new HrpState(new String(probe.chars, 0, probe.length), now);
+            CACHE.put(state.key, state);
+            while (CACHE.size() > CAPACITY)
+                evictOldest();
+            return state;
+        }
+    }
+
+    private static HrpState touch(final HrpState state) {
+        long now = clock;
+        if (state.used != now)
+            state.used = now;
+        return state;
+    }
+
+    // called with LOCK held; capacities are small, so a scan is cheap next to a miss
+    private static void evictOldest() {
+        HrpState oldest = null;
+        for (HrpState state : CACHE.values()) {
+            if (oldest == null || state.used < oldest.used)
+                oldest = state;
+        }
+        CACHE.remove(oldest.key);
+    }
+
+    static int size() {
+        return CACHE.size();
+    }
+
+    static void clear() {
+        synchronized (LOCK) {
+            CACHE.clear();
+            cleared++;
+        }
+    }
+
+    static int hash(final char[] chars, final int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++)
+            h = 31 * h + chars[i];
+        return h;
+    }
+
+    // same as polymod over Impl.expandHrp(hrp), without building the expansion
+    static long residue(final char[] hrp) {
+        ChecksumEngine engine = ChecksumEngine.getDefault();
+        long chk = 1;
+        for (char c : hrp)
+            chk = engine.step(chk, c >> 5);
+        chk = engine.step(chk, 0);
+        for (char c : hrp)
+            chk = engine.step(chk, c & 0x1f);
+        return chk;
+    }
+
+    static int capacity(final String value) {
+        if (value != null) {
+            try {
+                int capacity = Integer.parseInt(value.trim());
+                if (capacity > 0)
+                    return capacity;
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+        }
+        return DEFAULT_CAPACITY;
+    }
+
+    private HrpCache() {
+        throw new IllegalStateException("should not instantiate");
+    }
+}
@@ -0,0 +1,174 @@
+package design.contract.bech32;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A bounded, concurrent pool of canonical lowercase HRP Strings, so that decoded results
+// kept in caches and indexes share one "bc" instead of holding a copy each. HRPs are
+// looked up by their chars, and a String is only created on a miss.
+//
+// The pool is a fixed-size, open-addressed table: an HRP may sit in any of a few slots
+// after the one its hash picks. When all of them are taken, the new HRP replaces the one
+// in its first slot, so the pool never grows and keeps up with a changing mix of HRPs.
+// Pooling is best effort: under races, or after a replacement, two equal HRPs may come
+// back as different instances, but they are always equal.
+//
+// The number of slots (default 1024, rounded up to a power of two) can be set with the
+// "design.contract.bech32.hrpPoolSize" system property.
+public final class HrpPool {
+
+    public static final String PROPERTY = "design.contract.bech32.hrpPoolSize";
+
+    static final int DEFAULT_CAPACITY = 1024;
+
+    // slots searched after the one an HRP's hash picks
+    private static final int PROBES = 8;
+
+    private static final AtomicReferenceArray<String> SLOTS =
+            new AtomicReferenceArray<>(capacity(System.getProperty(PROPERTY)));
+    private static final int MASK = SLOTS.length() - 1;
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    // the canonical lowercase String for an HRP, which is lowercased first
+    public static String intern(final CharSequence hrp) {
+        Objects.requireNonNull(hrp);
+        return intern(hrp, 0, hrp.length());
+    }
+
+    // the canonical String for the lowercase HRP in chars[0, length)
+    static String intern(final char[] chars, final int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + chars[i];
+        for (int i = 0; i < PROBES; i++) {
+            String s = SLOTS.get((hash + i) & MASK);
+            if (s == null)
+                break;
+            if (matches(s, hash, chars, length)) {
+                HITS.increment();
+                return s;
+            }
+        }
+        return add(new String(chars, 0, length), hash);
+    }
+
+    // the canonical String for source[start, start + length) lowercased, which must be
+    // ASCII, as a bech32 HRP is
+    static String intern(final CharSequence source, final int start, final int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + Bech32.toLowercase(source.charAt(start + i));
+        for (int i = 0; i < PROBES; i++) {
+            String s = SLOTS.get((hash + i) & MASK);
+            if (s == null)
+                break;
+            if (matches(s, hash, source, start, length)) {
+                HITS.increment();
+                return s;
+            }
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = Bech32.toLowercase(source.charAt(start + i));
+        return add(new String(chars), hash);
+    }
+
+    // a String's hash is cached, so comparing it first makes most mismatches cheap
+    private static boolean matches(final String s, final int hash, final char[] chars, final int length) {
+        if (s.length() != length || s.hashCode() != hash)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != chars[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(final String s, final int hash, final CharSequence source, final int start,
+                                   final int length) {
+        if (s.length() != length || s.hashCode() != hash)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != Bech32.toLowercase(source.charAt(start + i)))
+                return false;
+        }
+        return true;
+    }
+
+    // put a newly created HRP in the first free slot, or over the first one if none is
+    // free. Another thread may have added the same HRP meanwhile; whichever is found
+    // first is returned.
+    private static String add(final String hrp, final int hash) {
+        MISSES.increment();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (hash + i) & MASK;
+            String s = SLOTS.get(slot);
+            if (s == null) {
+                if (SLOTS.compareAndSet(slot, null, hrp))
+                    return hrp;
+                s = SLOTS.get(slot);
+            }
+            if (s.equals(hrp))
+                return s;
+        }
+        SLOTS.set(hash & MASK, hrp);
+        return hrp;
+    }
+
+    // number of lookups answered from the pool
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    // number of lookups that had to create a String
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+
+    // number of HRPs currently pooled
+    public static int size() {
+        int size = 0;
+        for (int i = 0; i < SLOTS.length(); i++) {
+            if (SLOTS.get(i) != null)
+                size++;
+        }
+        return size;
+    }
+
+    // number of slots, the most HRPs the pool can hold
+    public static int capacity() {
+        return SLOTS.length();
+    }
+
+    // empty the pool and reset the counters
+    public static void clear() {
+        for (int i = 0; i < SLOTS.length(); i++)
+            SLOTS.set(i, null);
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    // the property value rounded up to a power of two, or the default if it isn't a
+    // positive number
+    static int capacity(final String value) {
+        int capacity = DEFAULT_CAPACITY;
+        if (value != null) {
+            try {
+                int parsed = Integer.parseInt(value.trim());
+                if (parsed > 0)
+                    capacity = parsed;
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+        }
+        capacity = Math.min(capacity, 1 << 30);
+        return capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private HrpPool() {
+        throw new IllegalStateException("should not instantiate");
+    }
+}
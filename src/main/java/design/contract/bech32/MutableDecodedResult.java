@@ -0,0 +1,139 @@
+package design.contract.bech32;
+
+import java.util.Arrays;
+
+// A reusable, caller-owned holder for the output of Bech32Decoder. Its buffers are
+// sized for the longest possible bech32 string, so decoding into it never allocates.
+// Instances are not thread-safe.
+public class MutableDecodedResult {
+
+    // longest possible data part: a one-character HRP, the separator, and the checksum
+    static final int MAX_DP_LENGTH = Bech32.Limits.MAX_BECH32_LENGTH - Bech32.Limits.MIN_HRP_LENGTH
+            - 1 - Bech32.Limits.CHECKSUM_LENGTH;
+
+    private final char[] hrp = new char[Bech32.Limits.MAX_HRP_LENGTH];
+    private int hrpLength;
+    private final char[] dp = new char[MAX_DP_LENGTH];
+    private int dpLength;
+    private DecodedResult.Encoding encoding = DecodedResult.Encoding.INVALID;
+    private DecodeStatus status = DecodeStatus.OK;
+    private int errorPosition = -1;
+
+    public int getHrpLength() {
+        return hrpLength;
+    }
+
+    public char hrpCharAt(int index) {
+        if (index < 0 || index >= hrpLength)
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + hrpLength);
+        return hrp[index];
+    }
+
+    // compare the decoded (lowercase) HRP against the given one without creating a String
+    public boolean hrpEquals(CharSequence other) {
+        if (other == null || other.length() != hrpLength)
+            return false;
+        for (int i = 0; i < hrpLength; i++) {
+            if (hrp[i] != other.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // copy the HRP into dst, returning the number of chars copied
+    public int copyHrp(char[] dst, int offset) {
+        System.arraycopy(hrp, 0, dst, offset, hrpLength);
+        return hrpLength;
+    }
+
+    public int getDpLength() {
+        return dpLength;
+    }
+
+    public char dpAt(int index) {
+        if (index < 0 || index >= dpLength)
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + dpLength);
+        return dp[index];
+    }
+
+    // copy the data part into dst, returning the number of values copied
+    public int copyDp(char[] dst, int offset) {
+        System.arraycopy(dp, 0, dst, offset, dpLength);
+        return dpLength;
+    }
+
+    public DecodedResult.Encoding getEncoding() {
+        return encoding;
+    }
+
+    public boolean isValid() {
+        return encoding != DecodedResult.Encoding.INVALID;
+    }
+
+    // OK, or why the last decode into this result rejected the string
+    public DecodeStatus getStatus() {
+        return status;
+    }
+
+    // index of the offending character for the last rejection, or -1; see DecodeStatus
+    public int getErrorPosition() {
+        return errorPosition;
+    }
+
+    // the canonical String for the HRP from HrpPool, which only allocates the first time
+    // an HRP is seen
+    public String getHrp() {
+        return isValid() ? HrpPool.intern(hrp, hrpLength) : null;
+    }
+
+    // allocates a new array
+    public char[] getDp() {
+        return isValid() ? Arrays.copyOf(dp, dpLength) : null;
+    }
+
+    // convert to a regular DecodedResult, which is equal to what Bech32.decode() would return
+    public DecodedResult toDecodedResult() {
+        if (!isValid())
+            return new DecodedResult();
+        return new DecodedResult(getHrp(), getDp(), encoding);
+    }
+
+    public void clear() {
+        hrpLength = 0;
+        dpLength = 0;
+        encoding = DecodedResult.Encoding.INVALID;
+        status = DecodeStatus.OK;
+        errorPosition = -1;
+    }
+
+    // the following give Bech32Decoder direct access to the buffers
+
+    char[] hrpBuffer() {
+        return hrp;
+    }
+
+    char[] dpBuffer() {
+        return dp;
+    }
+
+    void set(int hrpLength, int dpLength, DecodedResult.Encoding encoding) {
+        this.hrpLength = hrpLength;
+        this.dpLength = dpLength;
+        this.encoding = encoding;
+    }
+
+    DecodeStatus setError(DecodeStatus status, int position) {
+        this.status = status;
+        this.errorPosition = position;
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        if (status != DecodeStatus.OK)
+            return "MutableDecodedResult{status=" + status + ", errorPosition=" + errorPosition + '}';
+        return "MutableDecodedResult{hrp=" + new String(hrp, 0, hrpLength) +
+                ", dpLength=" + dpLength +
+                ", encoding=" + encoding + '}';
+    }
+}
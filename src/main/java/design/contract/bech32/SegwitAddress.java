@@ -0,0 +1,175 @@
+package design.contract.bech32;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// A segregated witness address (BIP-0173 and BIP-0350): an HRP such as "bc" or "tb", a
+// witness version from 0 to 16, and a witness program of 2 to 40 bytes. Version 0
+// addresses use the original bech32 checksum constant, later versions use bech32m.
+//
+// Instances are immutable and can be shared between threads.
+public final class SegwitAddress {
+
+    public static final int MAX_WITNESS_VERSION = 16;
+    public static final int MIN_PROGRAM_LENGTH = 2;
+    public static final int MAX_PROGRAM_LENGTH = 40;
+
+    private final String hrp;
+    private final int version;
+    private final byte[] program;
+
+    // the HRP is lowercased, and the program is copied
+    public SegwitAddress(final String hrp, final int version, final byte[] program) {
+        this(validated(hrp, version, program), version, program.clone());
+    }
+
+    // for already validated parts, taking ownership of the program
+    private SegwitAddress(final HrpCache.HrpState hrp, final int version, final byte[] program) {
+        this.hrp = hrp.hrp;
+        this.version = version;
+        this.program = program;
+    }
+
+    // the parts of a decoded address, which the decoder has already validated
+    private static SegwitAddress ofValidated(final String hrp, final int version, final byte[] program) {
+        return new SegwitAddress(HrpCache.get(hrp), version, program);
+    }
+
+    private static HrpCache.HrpState validated(final String hrp, final int version, final byte[] program) {
+        Objects.requireNonNull(hrp);
+        Objects.requireNonNull(program);
+        Bech32.Impl.rejectHRPTooShort(hrp);
+        Bech32.Impl.rejectHRPTooLong(hrp);
+        Bech32.Impl.rejectHRPCharsOutOfRange(hrp);
+        rejectArgument(versionError(version));
+        rejectArgument(programLengthError(version, program.length));
+        return HrpCache.get(hrp);
+    }
+
+    public String getHrp() {
+        return hrp;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    // a copy of the witness program
+    public byte[] getProgram() {
+        return program.clone();
+    }
+
+    public int getProgramLength() {
+        return program.length;
+    }
+
+    // the checksum encoding required for this address's witness version
+    public DecodedResult.Encoding getEncoding() {
+        return encodingFor(version);
+    }
+
+    // the bech32 string for this address, always lowercase
+    public String encode() {
+        return encode(HrpCache.get(hrp), version, program);
+    }
+
+    // encode a witness version and program with the given HRP, returning a lowercase
+    // bech32 (version 0) or bech32m (later versions) string
+    public static String encode(final String hrp, final int version, final byte[] program) {
+        return new SegwitAddress(hrp, version, program).encode();
+    }
+
+    private static String encode(final HrpCache.HrpState hrp, final int version, final byte[] program) {
+        char[] dp = new char[1 + (program.length * 8 + 4) / 5];
+        dp[0] = (char) version;
+        int acc = 0, bits = 0, j = 1;
+        for (byte b : program) {
+            acc = (acc << 8 | b & 0xff) & 0xfff;
+            bits += 8;
+            while (bits >= 5) {
+                bits -= 5;
+                dp[j++] = (char) (acc >>> bits & 0x1f);
+            }
+        }
+        if (bits > 0)
+            dp[j] = (char) (acc << (5 - bits) & 0x1f);
+        Bech32.Impl.rejectBothPartsTooLong(hrp.hrp, dp);
+        return Bech32.encodeBasis(hrp, dp, version == 0 ? 1 : Bech32.M);
+    }
+
+    // decode a segwit address with any HRP. The witness program is regrouped to bytes as
+    // part of the decoding pass. Throws a Bech32Exception if the string is not a valid
+    // segwit address.
+    public static SegwitAddress decode(final CharSequence address) {
+        MutableDecodedResult result = new MutableDecodedResult();
+        byte[] program = new byte[MAX_PROGRAM_LENGTH];
+        int length = new Bech32Decoder().decodeSegwit(address, result, program);
+        return ofValidated(result.getHrp(), result.dpAt(0), Arrays.copyOf(program, length));
+    }
+
+    // decode a segwit address, additionally requiring the given HRP (compared ignoring case)
+    public static SegwitAddress decode(final String expectedHrp, final CharSequence address) {
+        Objects.requireNonNull(expectedHrp);
+        SegwitAddress ret = decode(address);
+        if (!ret.hrp.equalsIgnoreCase(expectedHrp))
+            throw new Bech32Exception(DecodeStatus.HRP_MISMATCH, -1);
+        return ret;
+    }
+
+    // each of these returns why a part is invalid, or null if it isn't, so that encoding
+    // can throw an IllegalArgumentException for a bad argument and decoding a stackless
+    // Bech32Exception for bad input
+
+    static String versionError(final int version) {
+        return version < 0 || version > MAX_WITNESS_VERSION ? "witness version is out of range" : null;
+    }
+
+    static String programLengthError(final int version, final int length) {
+        if (length < MIN_PROGRAM_LENGTH || length > MAX_PROGRAM_LENGTH)
+            return "witness program length is out of range";
+        if (version == 0 && length != 20 && length != 32)
+            return "version 0 witness program must be 20 or 32 bytes";
+        return null;
+    }
+
+    static String encodingError(final int version, final DecodedResult.Encoding encoding) {
+        if (encoding == encodingFor(version))
+            return null;
+        return version == 0
+                ? "version 0 witness program must use bech32"
+                : "version 1+ witness program must use bech32m";
+    }
+
+    private static void rejectArgument(final String error) {
+        if (error != null)
+            throw new IllegalArgumentException(error);
+    }
+
+    private static DecodedResult.Encoding encodingFor(final int version) {
+        return version == 0 ? DecodedResult.Encoding.BECH32 : DecodedResult.Encoding.BECH32M;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        SegwitAddress that = (SegwitAddress) o;
+        return version == that.version &&
+                hrp.equals(that.hrp) &&
+                Arrays.equals(program, that.program);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(hrp, version);
+        result = 31 * result + Arrays.hashCode(program);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,131 @@
+package design.contract.bech32;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Word-at-a-time ("SIMD within a register") pre-scan of a bech32 string held as ASCII
+// bytes. Eight bytes are loaded into a long and tested together for the range 33-126,
+// for upper and lower case letters, and for the separator; any remaining bytes are
+// tested one at a time.
+//
+// The tests rely on every byte being below 0x80: adding (0x80 - n) to such a byte sets
+// its top bit exactly when the byte is at least n, and can't carry into the next byte.
+// Words with a byte at or above 0x80 are simply reported as out of range, without
+// testing their case, so UPPER and LOWER are only exact when OUT_OF_RANGE is clear.
+//
+// The result packs the flags below with the index of the last separator plus one (zero
+// if there is none) in the bits above them.
+final class SwarAscii {
+
+    static final int UPPER = 1;
+    static final int LOWER = 2;
+    static final int OUT_OF_RANGE = 4;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+
+    // true if the string is within range, not mixed case and has a separator, so that
+    // only the HRP/data part lengths and data characters are left to check
+    static boolean isWellFormed(final int scan) {
+        return (scan & OUT_OF_RANGE) == 0 && (scan & (UPPER | LOWER)) != (UPPER | LOWER) && scan >>> 3 != 0;
+    }
+
+    // index of the last separator, or -1
+    static int separator(final int scan) {
+        return (scan >>> 3) - 1;
+    }
+
+    static int scan(final byte[] buf, final int offset, final int length) {
+        int flags = 0;
+        int separator = -1;
+        int i = 0;
+        for (; i <= length - 8; i += 8) {
+            long word = littleEndian(buf, offset + i);
+            flags |= flags(word);
+            long sep = separators(word);
+            if (sep != 0)
+                separator = i + ((63 - Long.numberOfLeadingZeros(sep)) >>> 3);
+        }
+        for (; i < length; i++) {
+            int c = buf[offset + i] & 0xff;
+            flags |= flags(c);
+            if (c == Bech32.SEPARATOR)
+                separator = i;
+        }
+        return flags | (separator + 1) << 3;
+    }
+
+    // as above, reading absolute indexes in the buffer's own byte order
+    static int scan(final ByteBuffer buf, final int offset, final int length) {
+        boolean bigEndian = buf.order() == ByteOrder.BIG_ENDIAN;
+        int flags = 0;
+        int separator = -1;
+        int i = 0;
+        for (; i <= length - 8; i += 8) {
+            long word = buf.getLong(offset + i);
+            flags |= flags(word);
+            long sep = separators(word);
+            if (sep != 0) {
+                separator = bigEndian
+                        ? i + 7 - (Long.numberOfTrailingZeros(sep) >>> 3)
+                        : i + ((63 - Long.numberOfLeadingZeros(sep)) >>> 3);
+            }
+        }
+        for (; i < length; i++) {
+            int c = buf.get(offset + i) & 0xff;
+            flags |= flags(c);
+            if (c == Bech32.SEPARATOR)
+                separator = i;
+        }
+        return flags | (separator + 1) << 3;
+    }
+
+    // flags for eight bytes
+    static int flags(final long word) {
+        if ((word & HIGH) != 0)
+            return OUT_OF_RANGE;
+        int flags = 0;
+        if ((atLeast(word, Bech32.Limits.MIN_BECH32_CHAR_VALUE) & ~atLeast(word, Bech32.Limits.MAX_BECH32_CHAR_VALUE + 1)) != HIGH)
+            flags |= OUT_OF_RANGE;
+        if ((atLeast(word, 'A') & ~atLeast(word, 'Z' + 1)) != 0)
+            flags |= UPPER;
+        if ((atLeast(word, 'a') & ~atLeast(word, 'z' + 1)) != 0)
+            flags |= LOWER;
+        return flags;
+    }
+
+    // flags for a single byte
+    private static int flags(final int c) {
+        int flags = 0;
+        if (c < Bech32.Limits.MIN_BECH32_CHAR_VALUE || c > Bech32.Limits.MAX_BECH32_CHAR_VALUE)
+            flags |= OUT_OF_RANGE;
+        if (c >= 'A' && c <= 'Z')
+            flags |= UPPER;
+        if (c >= 'a' && c <= 'z')
+            flags |= LOWER;
+        return flags;
+    }
+
+    // top bit of each byte set where that byte is at least n (1 <= n <= 128)
+    static long atLeast(final long word, final int n) {
+        return (word + (128 - n) * ONES) & HIGH;
+    }
+
+    // top bit of each byte set where that byte is the separator: XOR leaves zero bytes
+    // there, and only zero bytes stay below 0x80 after adding 0x7f to their low seven bits.
+    // Masking off the top bits first keeps this exact for bytes above 0x7f too.
+    static long separators(final long word) {
+        long xor = word ^ Bech32.SEPARATOR * ONES;
+        return ~(((xor & ~HIGH) + ~HIGH) | xor | ~HIGH);
+    }
+
+    private static long littleEndian(final byte[] buf, final int i) {
+        return (buf[i] & 0xffL) | (buf[i + 1] & 0xffL) << 8 | (buf[i + 2] & 0xffL) << 16 |
+                (buf[i + 3] & 0xffL) << 24 | (buf[i + 4] & 0xffL) << 32 | (buf[i + 5] & 0xffL) << 40 |
+                (buf[i + 6] & 0xffL) << 48 | (buf[i + 7] & 0xffL) << 56;
+    }
+
+    private SwarAscii() {
+        throw new IllegalStateException("should not instantiate");
+    }
+}
@@ -0,0 +1,29 @@
+package design.contract.bech32;
+
+// Chooses the AsciiKernel. This is the Java 17+ version from the multi-release JAR: it
+// uses VectorAsciiKernel when the jdk.incubator.vector module has been added to the
+// boot layer (e.g. with "--add-modules jdk.incubator.vector"), unless the
+// "design.contract.bech32.vector" system property is "false", and otherwise falls back
+// to the portable kernel.
+final class AsciiKernels {
+
+    static final String PROPERTY = "design.contract.bech32.vector";
+
+    static AsciiKernel load() {
+        if (!"false".equalsIgnoreCase(System.getProperty(PROPERTY, "").trim())
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // loaded by name so that nothing links against the module unless it's there
+                return (AsciiKernel) Class.forName("design.contract.bech32.VectorAsciiKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall through to the portable kernel
+            }
+        }
+        return new AsciiKernel();
+    }
+
+    private AsciiKernels() {
+        throw new IllegalStateException("should not instantiate");
+    }
+}
@@ -0,0 +1,28 @@
+package design.contract.bech32;
+
+// Loads the Java Flight Recorder metrics. This is the Java 17+ version from the
+// multi-release JAR: it loads JfrMetrics when the jdk.jfr module is in the boot layer,
+// as it is unless the runtime was linked without it.
+final class FlightRecorders {
+
+    static boolean isAvailable() {
+        return ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+    }
+
+    // metrics emitting events for operations of at least thresholdNanos, or null
+    static Bech32Metrics load(final long thresholdNanos) {
+        if (!isAvailable())
+            return null;
+        try {
+            // loaded by name so that nothing links against jdk.jfr unless it's there
+            return (Bech32Metrics) Class.forName("design.contract.bech32.JfrMetrics")
+                    .getDeclaredConstructor(long.class).newInstance(thresholdNanos);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private FlightRecorders() {
+        throw new IllegalStateException("should not instantiate");
+    }
+}
@@ -0,0 +1,198 @@
+package design.contract.bech32;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Bech32Metrics that emit Java Flight Recorder events, so that bech32 work shows up in a
+// recording as its own events instead of only as frames of whatever called it. Created
+// through Bech32Metrics.flightRecorder(), which loads it by name.
+//
+// Events are committed after the operation, so their built-in duration is not the one
+// measured: the time taken is the "elapsed" field. For the same reason the threshold is
+// applied here, not through the recording's threshold setting; a recording's "enabled"
+// setting still applies. Events record their stack trace by default, which shows where
+// the slow or failing calls come from.
+final class JfrMetrics extends Bech32Metrics {
+
+    private final long thresholdNanos;
+
+    JfrMetrics(long thresholdNanos) {
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    @Name("design.contract.bech32.Decode")
+    @Label("Bech32 Decode")
+    @Category("Bech32")
+    @Description("A decode that was slow or failed for a reason other than the checksum")
+    static final class DecodeEvent extends Event {
+        @Label("HRP")
+        String hrp;
+        @Label("Length")
+        int length;
+        @Label("Encoding")
+        String encoding;
+        @Label("Outcome")
+        String outcome;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("design.contract.bech32.ChecksumFailure")
+    @Label("Bech32 Checksum Failure")
+    @Category("Bech32")
+    @Description("A decode of a well-formed string whose checksum didn't match either encoding")
+    static final class ChecksumFailureEvent extends Event {
+        @Label("HRP")
+        String hrp;
+        @Label("Length")
+        int length;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("design.contract.bech32.Encode")
+    @Label("Bech32 Encode")
+    @Category("Bech32")
+    @Description("An encode that was slow")
+    static final class EncodeEvent extends Event {
+        @Label("HRP")
+        String hrp;
+        @Label("Length")
+        int length;
+        @Label("Encoding")
+        String encoding;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("design.contract.bech32.Batch")
+    @Label("Bech32 Batch")
+    @Category("Bech32")
+    @Description("A batch decode, batch encode or file scan that was slow or had failures")
+    static final class BatchEvent extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("HRP")
+        String hrp;
+        @Label("Items")
+        long items;
+        @Label("Failures")
+        long failures;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void onDecode(final int length, final DecodeStatus status, final DecodedResult.Encoding encoding,
+                         final long nanos) {
+        decode(null, length, status, encoding, nanos);
+    }
+
+    @Override
+    public void onDecode(final CharSequence input, final DecodeStatus status, final DecodedResult.Encoding encoding,
+                         final long nanos) {
+        // the HRP is only copied out of the input once an event is certain to be wanted
+        if (status == DecodeStatus.OK && nanos < thresholdNanos)
+            return;
+        decode(input, input.length(), status, encoding, nanos);
+    }
+
+    private void decode(final CharSequence input, final int length, final DecodeStatus status,
+                        final DecodedResult.Encoding encoding, final long nanos) {
+        if (status == DecodeStatus.BAD_CHECKSUM) {
+            ChecksumFailureEvent event = new ChecksumFailureEvent();
+            if (event.shouldCommit()) {
+                event.hrp = hrp(input);
+                event.length = length;
+                event.elapsed = nanos;
+                event.commit();
+            }
+            return;
+        }
+        if (status == DecodeStatus.OK && nanos < thresholdNanos)
+            return;
+        DecodeEvent event = new DecodeEvent();
+        if (event.shouldCommit()) {
+            event.hrp = hrp(input);
+            event.length = length;
+            event.encoding = encoding.name();
+            event.outcome = status.name();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onEncode(final int length, final DecodedResult.Encoding encoding, final long nanos) {
+        onEncode(null, length, encoding, nanos);
+    }
+
+    @Override
+    public void onEncode(final String hrp, final int length, final DecodedResult.Encoding encoding,
+                         final long nanos) {
+        if (nanos < thresholdNanos)
+            return;
+        EncodeEvent event = new EncodeEvent();
+        if (event.shouldCommit()) {
+            event.hrp = hrp;
+            event.length = length;
+            event.encoding = encoding.name();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onBatch(final String operation, final String hrp, final long items, final long failures,
+                        final long nanos) {
+        if (failures == 0 && nanos < thresholdNanos)
+            return;
+        BatchEvent event = new BatchEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.hrp = hrp;
+            event.items = items;
+            event.failures = failures;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return emptySnapshot();
+    }
+
+    // the lowercased text before the last separator, or null if there is none or it
+    // is too long to be an HRP
+    static String hrp(final CharSequence input) {
+        if (input == null)
+            return null;
+        int separator = -1;
+        for (int i = input.length() - 1; i >= 0; i--) {
+            if (input.charAt(i) == Bech32.SEPARATOR) {
+                separator = i;
+                break;
+            }
+        }
+        if (separator < 1 || separator > Bech32.Limits.MAX_HRP_LENGTH)
+            return null;
+        char[] hrp = new char[separator];
+        for (int i = 0; i < separator; i++)
+            hrp[i] = Bech32.toLowercase(input.charAt(i));
+        return new String(hrp);
+    }
+}
@@ -0,0 +1,209 @@
+package design.contract.bech32;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// AsciiKernel using the Vector API (jdk.incubator.vector), only present in the Java 17+
+// part of the multi-release JAR and only loaded by AsciiKernels when the module is.
+//
+// Bech32 strings are at most 90 characters, so the byte kernels use 128-bit vectors,
+// which every platform with vector support has, and leave any tail shorter than a
+// vector to the portable code. Chars are widened into two 128-bit halves too, as a
+// 256-bit shape would be emulated, and slow, on NEON or SSE-only hardware.
+final class VectorAsciiKernel extends AsciiKernel {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_128;
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_128;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    // REVERSE_CHARSET as three 16-entry tables, indexed by the low nibble of a character
+    // with bit 0x20 set (which lowercases letters and leaves digits as they are), for high
+    // nibbles 3, 6 and 7. No other high nibble holds a bech32 character.
+    private static final ByteVector DIGITS = table(0x30);
+    private static final ByteVector LETTERS_6 = table(0x60);
+    private static final ByteVector LETTERS_7 = table(0x70);
+
+    private static final int[] GENERATORS = {0x3b6a57b2, 0x26508e6d, 0x1ea119fa, 0x3d4233dd, 0x2a1462b3};
+
+    private static ByteVector table(final int base) {
+        byte[] values = new byte[16];
+        for (int i = 0; i < 16; i++)
+            values[i] = (byte) Bech32.REVERSE_CHARSET[base + i];
+        return ByteVector.fromArray(BYTES, values, 0);
+    }
+
+    @Override
+    int scan(final byte[] buf, final int offset, final int length) {
+        int step = BYTES.length();
+        VectorMask<Byte> outOfRange = BYTES.maskAll(false);
+        VectorMask<Byte> upper = outOfRange;
+        VectorMask<Byte> lower = outOfRange;
+        int separator = -1;
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            ByteVector v = ByteVector.fromArray(BYTES, buf, offset + i);
+            // bytes above 0x7f are negative, so below the minimum
+            outOfRange = outOfRange.or(v.compare(VectorOperators.LT, (byte) Bech32.Limits.MIN_BECH32_CHAR_VALUE))
+                    .or(v.compare(VectorOperators.GT, (byte) Bech32.Limits.MAX_BECH32_CHAR_VALUE));
+            upper = upper.or(v.compare(VectorOperators.GE, (byte) 'A').and(v.compare(VectorOperators.LE, (byte) 'Z')));
+            lower = lower.or(v.compare(VectorOperators.GE, (byte) 'a').and(v.compare(VectorOperators.LE, (byte) 'z')));
+            int last = v.compare(VectorOperators.EQ, (byte) Bech32.SEPARATOR).lastTrue();
+            if (last >= 0)
+                separator = i + last;
+        }
+        return merge(outOfRange, upper, lower, separator, i, SwarAscii.scan(buf, offset + i, length - i));
+    }
+
+    @Override
+    int scan(final ByteBuffer buf, final int offset, final int length) {
+        int step = BYTES.length();
+        VectorMask<Byte> outOfRange = BYTES.maskAll(false);
+        VectorMask<Byte> upper = outOfRange;
+        VectorMask<Byte> lower = outOfRange;
+        int separator = -1;
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            ByteVector v = ByteVector.fromByteBuffer(BYTES, buf, offset + i, ByteOrder.nativeOrder());
+            outOfRange = outOfRange.or(v.compare(VectorOperators.LT, (byte) Bech32.Limits.MIN_BECH32_CHAR_VALUE))
+                    .or(v.compare(VectorOperators.GT, (byte) Bech32.Limits.MAX_BECH32_CHAR_VALUE));
+            upper = upper.or(v.compare(VectorOperators.GE, (byte) 'A').and(v.compare(VectorOperators.LE, (byte) 'Z')));
+            lower = lower.or(v.compare(VectorOperators.GE, (byte) 'a').and(v.compare(VectorOperators.LE, (byte) 'z')));
+            int last = v.compare(VectorOperators.EQ, (byte) Bech32.SEPARATOR).lastTrue();
+            if (last >= 0)
+                separator = i + last;
+        }
+        return merge(outOfRange, upper, lower, separator, i, SwarAscii.scan(buf, offset + i, length - i));
+    }
+
+    // combine the vector part of a scan with the scan of the tail starting at index tail
+    private static int merge(final VectorMask<Byte> outOfRange, final VectorMask<Byte> upper,
+                             final VectorMask<Byte> lower, int separator, final int tail, final int rest) {
+        int flags = rest & (SwarAscii.UPPER | SwarAscii.LOWER | SwarAscii.OUT_OF_RANGE);
+        if (outOfRange.anyTrue())
+            flags |= SwarAscii.OUT_OF_RANGE;
+        if (upper.anyTrue())
+            flags |= SwarAscii.UPPER;
+        if (lower.anyTrue())
+            flags |= SwarAscii.LOWER;
+        if (SwarAscii.separator(rest) >= 0)
+            separator = tail + SwarAscii.separator(rest);
+        return flags | (separator + 1) << 3;
+    }
+
+    @Override
+    int map(final byte[] buf, final int offset, final int length, final char[] dst) {
+        int step = BYTES.length();
+        int invalid = 0;
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            ByteVector d = lookup(ByteVector.fromArray(BYTES, buf, offset + i));
+            invalid |= d.reduceLanes(VectorOperators.OR);
+            widen(d, dst, i);
+        }
+        for (; i < length; i++) {
+            int d = Bech32.REVERSE_CHARSET[buf[offset + i]];
+            invalid |= d;
+            dst[i] = (char) d;
+        }
+        return invalid;
+    }
+
+    @Override
+    int map(final ByteBuffer buf, final int offset, final int length, final char[] dst) {
+        int step = BYTES.length();
+        int invalid = 0;
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            ByteVector d = lookup(ByteVector.fromByteBuffer(BYTES, buf, offset + i, ByteOrder.nativeOrder()));
+            invalid |= d.reduceLanes(VectorOperators.OR);
+            widen(d, dst, i);
+        }
+        for (; i < length; i++) {
+            int d = Bech32.REVERSE_CHARSET[buf.get(offset + i)];
+            invalid |= d;
+            dst[i] = (char) d;
+        }
+        return invalid;
+    }
+
+    // the lanes of d as chars at dst[index], low half then high half. Widening
+    // sign-extends -1 to 0xffff, as the scalar (char) cast does
+    private static void widen(final ByteVector d, final char[] dst, final int index) {
+        ((ShortVector) d.convertShape(VectorOperators.B2S, CHARS, 0)).intoCharArray(dst, index);
+        ((ShortVector) d.convertShape(VectorOperators.B2S, CHARS, 1)).intoCharArray(dst, index + CHARS.length());
+    }
+
+    // REVERSE_CHARSET of each lane, -1 for non-bech32 characters. Setting bit 0x20 can't
+    // turn an invalid character into a valid one: it only changes 0x40-0x5f, which become
+    // 0x60-0x7f, and of the non-letters there ('@', '[' ... '_') none maps to a valid one.
+    private static ByteVector lookup(final ByteVector v) {
+        ByteVector c = v.or((byte) 0x20);
+        ByteVector low = c.and((byte) 0x0f);
+        ByteVector high = c.lanewise(VectorOperators.LSHR, 4);
+        return ByteVector.broadcast(BYTES, (byte) -1)
+                .blend(low.selectFrom(DIGITS), high.compare(VectorOperators.EQ, (byte) 3))
+                .blend(low.selectFrom(LETTERS_6), high.compare(VectorOperators.EQ, (byte) 6))
+                .blend(low.selectFrom(LETTERS_7), high.compare(VectorOperators.EQ, (byte) 7));
+    }
+
+    // items of equal length are checksummed a vector of lanes at a time, one item per
+    // lane, with the reference step done branch-free on every lane at once
+    @Override
+    void checksums(final ChecksumEngine engine, final long residue, final char[] data, final int[] offsets,
+                   final int from, final int to, final long[] out, final int outOffset) {
+        int lanes = INTS.length();
+        int[] values = new int[lanes];
+        int[] result = new int[lanes];
+        int item = from;
+        for (; item <= to - lanes; item += lanes) {
+            int length = offsets[item + 1] - offsets[item];
+            boolean sameLength = true;
+            for (int l = 1; l < lanes && sameLength; l++)
+                sameLength = offsets[item + l + 1] - offsets[item + l] == length;
+            if (!sameLength) {
+                super.checksums(engine, residue, data, offsets, item, item + lanes, out, outOffset + item - from);
+                continue;
+            }
+            IntVector chk = IntVector.broadcast(INTS, (int) residue);
+            for (int j = 0; j < length + Bech32.Limits.CHECKSUM_LENGTH; j++) {
+                IntVector v;
+                if (j < length) {
+                    for (int l = 0; l < lanes; l++)
+                        values[l] = data[offsets[item + l] + j];
+                    v = IntVector.fromArray(INTS, values, 0);
+                } else {
+                    v = IntVector.zero(INTS);
+                }
+                chk = step(chk, v);
+            }
+            chk.intoArray(result, 0);
+            for (int l = 0; l < lanes; l++)
+                out[outOffset + item - from + l] = result[l];
+        }
+        super.checksums(engine, residue, data, offsets, item, to, out, outOffset + item - from);
+    }
+
+    // Bech32.Impl.polymodStep() on every lane: each of the top five bits selects a
+    // generator, by shifting it up to the sign bit and back down across the whole lane
+    private static IntVector step(final IntVector chk, final IntVector value) {
+        IntVector top = chk.lanewise(VectorOperators.LSHR, 25);
+        IntVector next = chk.and(0x1ffffff).lanewise(VectorOperators.LSHL, 5).lanewise(VectorOperators.XOR, value);
+        for (int i = 0; i < GENERATORS.length; i++) {
+            IntVector select = top.lanewise(VectorOperators.LSHL, 31 - i).lanewise(VectorOperators.ASHR, 31);
+            next = next.lanewise(VectorOperators.XOR, select.and(GENERATORS[i]));
+        }
+        return next;
+    }
+
+    @Override
+    String name() {
+        return "vector";
+    }
+}
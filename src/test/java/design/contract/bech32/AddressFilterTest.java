@@ -0,0 +1,133 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AddressFilterTest {
+
+    private static final String P2TR = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+
+    // n random valid strings, mostly p2wpkh- and p2tr-sized
+    private static List<String> strings(int n, long seed) {
+        Random random = new Random(seed);
+        List<String> strings = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            char[] dp = new char[i % 2 == 0 ? 33 : 53];
+            for (int j = 0; j < dp.length; j++)
+                dp[j] = (char) random.nextInt(32);
+            strings.add(i % 2 == 0 ? Bech32.encodeUsingOriginalConstant("bc", dp) : Bech32.encode("bc", dp));
+        }
+        return strings;
+    }
+
+    @Test
+    public void mightContain_isTrueForEveryAddedString() {
+        List<String> strings = strings(10000, 1);
+        AddressFilter filter = new AddressFilter(strings.size(), 0.01);
+        // an add finding all its bits already set is a false positive, so a few don't count
+        int changed = 0;
+        for (String s : strings) {
+            if (filter.add(s))
+                changed++;
+        }
+        assertEquals(strings.size(), changed, strings.size() / 100);
+        assertEquals(changed, filter.getApproximateCount());
+        for (String s : strings) {
+            assertTrue(filter.mightContain(s));
+            assertTrue(filter.mightContain(s.toUpperCase()));
+        }
+    }
+
+    @Test
+    public void falsePositiveRateIsAboutAsConfigured() {
+        for (double rate : new double[]{0.1, 0.01, 0.001}) {
+            AddressFilter filter = AddressFilter.build(strings(20000, 2), rate);
+            int positives = 0;
+            List<String> others = strings(50000, 3);
+            for (String s : others) {
+                if (filter.mightContain(s))
+                    positives++;
+            }
+            double observed = (double) positives / others.size();
+            assertTrue(rate + ": " + observed, observed < rate * 1.5);
+            assertEquals(rate, filter.getExpectedFalsePositiveRate(), rate * 0.5);
+        }
+    }
+
+    @Test
+    public void mightContain_isFalseForInvalidStrings() {
+        AddressFilter filter = new AddressFilter(10, 0.01);
+        filter.add(P2TR);
+        assertFalse(filter.mightContain(P2TR.substring(0, P2TR.length() - 1) + "q"));
+        assertFalse(filter.mightContain("not bech32"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    public void add_rejectsInvalidStrings() {
+        AddressFilter filter = new AddressFilter(10, 0.01);
+        try {
+            filter.add(P2TR.substring(0, P2TR.length() - 1) + "q");
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(DecodeStatus.BAD_CHECKSUM, e.getStatus());
+        }
+        try {
+            filter.add("A1G7SGD8?");
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(DecodeStatus.INVALID_CHAR, e.getStatus());
+        }
+        assertTrue(filter.add(P2TR));
+        assertFalse(filter.add(P2TR));
+    }
+
+    @Test
+    public void build_skipsInvalidStrings() {
+        List<String> strings = new ArrayList<>(strings(3000, 4));
+        strings.add("garbage");
+        strings.add(null);
+        AddressFilter filter = new AddressFilter(strings.size(), 0.01);
+        assertEquals(3000, filter.addAll(strings));
+        for (String s : strings.subList(0, 3000))
+            assertTrue(filter.mightContain(s));
+    }
+
+    @Test
+    public void writeTo_readFrom_roundTrips() throws IOException {
+        List<String> strings = strings(1000, 5);
+        AddressFilter filter = AddressFilter.build(strings, 0.01);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(out);
+
+        AddressFilter read = AddressFilter.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(filter.getBitSize(), read.getBitSize());
+        assertEquals(filter.getHashCount(), read.getHashCount());
+        assertEquals(filter.getApproximateCount(), read.getApproximateCount());
+        for (String s : strings)
+            assertTrue(read.mightContain(s));
+        for (String s : strings(1000, 6))
+            assertEquals(filter.mightContain(s), read.mightContain(s));
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsOtherData() throws IOException {
+        byte[] data = new byte[64];
+        Arrays.fill(data, (byte) 7);
+        AddressFilter.readFrom(new ByteArrayInputStream(data));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsBadRates() {
+        new AddressFilter(100, 1.0);
+    }
+}
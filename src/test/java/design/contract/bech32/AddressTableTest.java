@@ -0,0 +1,193 @@
+package design.contract.bech32;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AddressTableTest {
+
+    private static final String P2TR = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+    private static final String P2WPKH = "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // n distinct strings, alternating HRPs, encodings and data lengths
+    private static List<String> strings(int n, long seed) {
+        Random random = new Random(seed);
+        String[] hrps = {"bc", "tb", "bcrt"};
+        List<String> strings = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            char[] dp = new char[20 + i % 33];
+            for (int j = 0; j < dp.length; j++)
+                dp[j] = (char) random.nextInt(32);
+            String hrp = hrps[i % hrps.length];
+            strings.add(i % 2 == 0 ? Bech32.encode(hrp, dp) : Bech32.encodeUsingOriginalConstant(hrp, dp));
+        }
+        return strings;
+    }
+
+    @Test
+    public void add_roundTrips() {
+        AddressTable table = new AddressTable();
+        int taproot = table.add(P2TR);
+        int segwit = table.add(P2WPKH);
+        assertEquals(0, taproot);
+        assertEquals(1, segwit);
+        assertEquals(2, table.size());
+        assertEquals(Bech32.decode(P2TR), table.get(taproot));
+        assertEquals(Bech32.decode(P2WPKH), table.get(segwit));
+        assertEquals(P2TR, table.getString(taproot));
+        assertEquals(P2WPKH, table.getString(segwit));
+        assertEquals(taproot, table.indexOf(P2TR));
+        assertEquals(segwit, table.indexOf(P2WPKH.toUpperCase()));
+    }
+
+    @Test
+    public void add_returnsTheExistingEntryForDuplicates() {
+        AddressTable table = new AddressTable();
+        assertEquals(0, table.add(P2TR));
+        assertEquals(0, table.add(P2TR.toUpperCase()));
+        assertEquals(0, table.add(Bech32.decode(P2TR)));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void add_growsPastItsExpectedSize() {
+        List<String> strings = strings(5000, 1);
+        AddressTable table = new AddressTable(10);
+        for (int i = 0; i < strings.size(); i++)
+            assertEquals(i, table.add(strings.get(i)));
+        assertEquals(strings.size(), table.size());
+        for (int i = 0; i < strings.size(); i++) {
+            assertEquals(i, table.indexOf(strings.get(i)));
+            assertEquals(strings.get(i), table.getString(i));
+        }
+        for (String absent : strings(100, 2))
+            assertFalse(table.contains(absent));
+    }
+
+    @Test
+    public void add_rejectsInvalidStrings() {
+        AddressTable table = new AddressTable();
+        try {
+            table.add(P2TR.substring(0, P2TR.length() - 1) + "q");
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(DecodeStatus.BAD_CHECKSUM, e.getStatus());
+        }
+        try {
+            table.add("no separator");
+            fail();
+        } catch (Bech32Exception e) {
+            assertNotEquals(DecodeStatus.BAD_CHECKSUM, e.getStatus());
+        }
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void add_lowercasesAndChecksDecodedResults() {
+        AddressTable table = new AddressTable();
+        DecodedResult decoded = Bech32.decode(P2TR);
+        int entry = table.add(new DecodedResult("BC", decoded.getDp(), decoded.getEncoding()));
+        assertEquals(entry, table.indexOf(P2TR));
+        assertEquals("bc", table.get(entry).getHrp());
+        for (DecodedResult bad : new DecodedResult[]{
+                new DecodedResult("b c", decoded.getDp(), decoded.getEncoding()),
+                new DecodedResult("", decoded.getDp(), decoded.getEncoding()),
+                new DecodedResult("bc", new char[]{1, 32}, decoded.getEncoding())}) {
+            try {
+                table.add(bad);
+                fail(bad.toString());
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void indexOf_isMinusOneForAbsentOrInvalidStrings() {
+        AddressTable table = new AddressTable();
+        table.add(P2TR);
+        assertEquals(-1, table.indexOf(P2WPKH));
+        assertEquals(-1, table.indexOf("not bech32"));
+        assertFalse(table.contains(P2TR.substring(0, P2TR.length() - 1) + "q"));
+    }
+
+    @Test
+    public void get_rejectsOutOfRangeIndexes() {
+        AddressTable table = new AddressTable();
+        table.add(P2TR);
+        try {
+            table.get(1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void load_addsTheValidLinesOfAFile() throws IOException {
+        List<String> strings = strings(1000, 3);
+        StringBuilder content = new StringBuilder();
+        for (String s : strings)
+            content.append(s).append('\n');
+        content.append("garbage\n").append(strings.get(0)).append("\r\n");
+        Path path = folder.newFile().toPath();
+        Files.write(path, content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        AddressTable table = new AddressTable();
+        Bech32FileScanner.Summary summary = table.load(path);
+        assertEquals(1002, summary.getLines());
+        assertEquals(1001, summary.getValid());
+        assertEquals(1, summary.getMalformed());
+        assertEquals(1000, table.size());
+        for (String s : strings)
+            assertTrue(table.contains(s));
+    }
+
+    @Test
+    public void offHeapBytes_countsRecordsAndIndex() {
+        AddressTable table = new AddressTable();
+        long empty = table.offHeapBytes();
+        table.add(P2TR);
+        assertTrue(table.offHeapBytes() > empty);
+    }
+
+    @Test
+    public void lookupsRunConcurrentlyWithAdds() throws InterruptedException {
+        List<String> strings = strings(20000, 4);
+        AddressTable table = new AddressTable();
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                // entries below size() must always be found, whatever adds are running
+                for (int round = 0; round < 20; round++) {
+                    int size = table.size();
+                    for (int i = 0; i < size; i += 7) {
+                        if (table.indexOf(strings.get(i)) != i)
+                            failures.incrementAndGet();
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        for (String s : strings)
+            table.add(s);
+        for (Thread reader : readers)
+            reader.join();
+        assertEquals(0, failures.get());
+        assertEquals(strings.size(), table.size());
+    }
+}
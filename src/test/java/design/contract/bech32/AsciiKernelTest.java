@@ -0,0 +1,155 @@
+package design.contract.bech32;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AsciiKernelTest {
+
+    // the portable kernel, plus the Vector API one when it's on the class path and its
+    // module is present (JDK 17+ builds)
+    private static List<AsciiKernel> kernels() {
+        List<AsciiKernel> kernels = new ArrayList<>();
+        kernels.add(new AsciiKernel());
+        try {
+            kernels.add((AsciiKernel) Class.forName("design.contract.bech32.VectorAsciiKernel")
+                    .getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Java 8 build, or no jdk.incubator.vector
+        }
+        return kernels;
+    }
+
+    @Test
+    public void instance_isOneOfTheKernels() {
+        assertNotNull(AsciiKernel.INSTANCE);
+        assertTrue(Arrays.asList("swar", "vector").contains(AsciiKernel.INSTANCE.name()));
+    }
+
+    // true when the Java 17 classes of the multi-release JAR are on the class path, as the
+    // JDK 17+ build puts them, ahead of the base ones and with the vector module added
+    static boolean hasJava17Classes() {
+        return AsciiKernelTest.class.getClassLoader()
+                .getResource("design/contract/bech32/VectorAsciiKernel.class") != null;
+    }
+
+    @Test
+    public void instance_isVectorWithJava17Classes() {
+        Assume.assumeTrue(hasJava17Classes());
+        assertEquals("vector", AsciiKernel.INSTANCE.name());
+        assertEquals("vector", AsciiKernels.load().name());
+    }
+
+    @Test
+    public void load_fallsBackWhenTurnedOff() {
+        String previous = System.getProperty(AsciiKernels.PROPERTY);
+        System.setProperty(AsciiKernels.PROPERTY, "false");
+        try {
+            assertEquals("swar", AsciiKernels.load().name());
+        } finally {
+            if (previous == null)
+                System.clearProperty(AsciiKernels.PROPERTY);
+            else
+                System.setProperty(AsciiKernels.PROPERTY, previous);
+        }
+    }
+
+    // case flags are only defined when the input is in range
+    private static void assertScan(final AsciiKernel kernel, final int expected, final int actual) {
+        assertEquals(kernel.name(), expected & SwarAscii.OUT_OF_RANGE, actual & SwarAscii.OUT_OF_RANGE);
+        assertEquals(kernel.name(), SwarAscii.separator(expected), SwarAscii.separator(actual));
+        if ((expected & SwarAscii.OUT_OF_RANGE) == 0)
+            assertEquals(kernel.name(), expected, actual);
+    }
+
+    @Test
+    public void scan_matchesSwarAscii() {
+        Random random = new Random(7);
+        byte[] alphabet = "qpzry9x8gf2tvdw0s3jn54khce6mua7lQPZ1 \u007f!~@[`{é".getBytes(StandardCharsets.ISO_8859_1);
+        for (AsciiKernel kernel : kernels()) {
+            for (int length = 0; length <= 90; length++) {
+                for (int n = 0; n < 20; n++) {
+                    int offset = random.nextInt(8);
+                    byte[] buf = new byte[offset + length + random.nextInt(8)];
+                    for (int i = 0; i < buf.length; i++)
+                        buf[i] = alphabet[random.nextInt(random.nextBoolean() ? 32 : alphabet.length)];
+                    int expected = SwarAscii.scan(buf, offset, length);
+                    assertScan(kernel, expected, kernel.scan(buf, offset, length));
+                    ByteBuffer direct = ByteBuffer.allocateDirect(buf.length);
+                    direct.put(buf).clear();
+                    assertScan(kernel, expected, kernel.scan(direct, offset, length));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void map_matchesReverseCharset() {
+        Random random = new Random(11);
+        for (AsciiKernel kernel : kernels()) {
+            for (int length = 0; length <= 90; length++) {
+                for (int n = 0; n < 20; n++) {
+                    // every byte in range, so invalid characters are mixed in too
+                    byte[] buf = new byte[length + 3];
+                    boolean upper = random.nextBoolean();
+                    boolean valid = random.nextBoolean();
+                    for (int i = 0; i < buf.length; i++) {
+                        char c = valid ? Bech32.CHARSET.charAt(random.nextInt(32))
+                                : (char) (Bech32.Limits.MIN_BECH32_CHAR_VALUE + random.nextInt(94));
+                        buf[i] = (byte) (upper ? Character.toUpperCase(c) : c);
+                    }
+                    char[] expected = new char[length];
+                    int invalid = 0;
+                    for (int i = 0; i < length; i++) {
+                        expected[i] = (char) Bech32.REVERSE_CHARSET[buf[3 + i]];
+                        invalid |= Bech32.REVERSE_CHARSET[buf[3 + i]];
+                    }
+
+                    char[] dst = new char[length];
+                    assertEquals(kernel.name(), invalid < 0, kernel.map(buf, 3, length, dst) < 0);
+                    assertArrayEquals(kernel.name(), expected, dst);
+                    ByteBuffer direct = ByteBuffer.allocateDirect(buf.length);
+                    direct.put(buf).clear();
+                    Arrays.fill(dst, (char) 0);
+                    assertEquals(kernel.name(), invalid < 0, kernel.map(direct, 3, length, dst) < 0);
+                    assertArrayEquals(kernel.name(), expected, dst);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checksums_matchPolymod() {
+        Random random = new Random(13);
+        long residue = new Bech32Checksum("bc").residue();
+        for (AsciiKernel kernel : kernels()) {
+            // runs of equal lengths, then ragged lengths
+            for (boolean ragged : new boolean[]{false, true}) {
+                int size = 1 + random.nextInt(40);
+                int[] offsets = new int[size + 1];
+                for (int i = 0; i < size; i++)
+                    offsets[i + 1] = offsets[i] + (ragged ? random.nextInt(60) : 58);
+                char[] data = new char[offsets[size]];
+                for (int i = 0; i < data.length; i++)
+                    data[i] = (char) random.nextInt(32);
+
+                long[] out = new long[size + 1];
+                kernel.checksums(ChecksumEngine.TABLE_10BIT, residue, data, offsets, 0, size, out, 1);
+                for (int i = 0; i < size; i++) {
+                    char[] values = Arrays.copyOfRange(data, offsets[i], offsets[i + 1] + 6);
+                    Arrays.fill(values, offsets[i + 1] - offsets[i], values.length, (char) 0);
+                    long expected = ChecksumEngine.REFERENCE.polymod(residue, values, 0, values.length);
+                    assertEquals(kernel.name(), expected, out[i + 1]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class AsciiSequenceTest {
+
+    @Test
+    public void wrap_byteArrayRange() {
+        AsciiSequence s = new AsciiSequence().wrap("xhelloy".getBytes(StandardCharsets.US_ASCII), 1, 5);
+        assertEquals(5, s.length());
+        assertEquals('h', s.charAt(0));
+        assertEquals('o', s.charAt(4));
+        assertEquals("hello", s.toString());
+        assertEquals("ell", s.subSequence(1, 4).toString());
+    }
+
+    @Test
+    public void wrap_directBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(8);
+        buffer.put("xhello".getBytes(StandardCharsets.US_ASCII));
+        buffer.flip();
+        buffer.position(1);
+        AsciiSequence s = new AsciiSequence().wrap(buffer);
+        assertEquals(5, s.length());
+        assertEquals('h', s.charAt(0));
+        assertEquals("hello", s.toString());
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void wrap_slicedHeapBuffer() {
+        ByteBuffer buffer = ByteBuffer.wrap("abhello".getBytes(StandardCharsets.US_ASCII));
+        buffer.position(2);
+        AsciiSequence s = new AsciiSequence().wrap(buffer.slice());
+        assertEquals("hello", s.toString());
+    }
+
+    @Test
+    public void highBytes_readAsLatin1() {
+        AsciiSequence s = new AsciiSequence().wrap(new byte[]{(byte) 0xc0}, 0, 1);
+        assertEquals('À', s.charAt(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void charAt_pastLength_throws() {
+        new AsciiSequence().wrap(new byte[4], 1, 2).charAt(2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void wrap_badRange_throws() {
+        new AsciiSequence().wrap(new byte[4], 3, 2);
+    }
+
+    @Test
+    public void clear_resetsLength() {
+        AsciiSequence s = new AsciiSequence().wrap(new byte[4], 0, 4);
+        s.clear();
+        assertEquals(0, s.length());
+    }
+
+}
@@ -0,0 +1,56 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BatchDecodeResultTest {
+
+    @Test
+    public void newResult_entriesHaveInvalidChecksumStatus() {
+        BatchDecodeResult results = new BatchDecodeResult(2);
+        assertEquals(2, results.size());
+        assertEquals(BatchDecodeResult.Status.INVALID_CHECKSUM, results.getStatus(0));
+        assertEquals(DecodedResult.Encoding.INVALID, results.get(0).getEncoding());
+        assertEquals(0, results.countValid());
+    }
+
+    @Test
+    public void get_invalidEntries_areNotShared() {
+        BatchDecodeResult results = new BatchDecodeResult(2);
+        results.get(0).setEncoding(DecodedResult.Encoding.BECH32);
+        assertEquals(DecodedResult.Encoding.INVALID, results.get(0).getEncoding());
+        assertEquals(DecodedResult.Encoding.INVALID, new BatchDecodeResult(1).get(0).getEncoding());
+    }
+
+    @Test
+    public void setters_updateStatus() {
+        BatchDecodeResult results = new BatchDecodeResult(3);
+        DecodedResult valid = new DecodedResult("a", new char[0], DecodedResult.Encoding.BECH32M);
+        results.setValid(0, valid);
+        results.setMalformed(1, "bech32 string too short");
+        results.setInvalidChecksum(2);
+
+        assertSame(valid, results.get(0));
+        assertTrue(results.isValid(0));
+        assertEquals(BatchDecodeResult.Status.MALFORMED, results.getStatus(1));
+        assertEquals("bech32 string too short", results.getError(1));
+        assertEquals(BatchDecodeResult.Status.INVALID_CHECKSUM, results.getStatus(2));
+        assertEquals(1, results.countValid());
+    }
+
+    @Test
+    public void reuse_overwritesPreviousEntries() {
+        BatchDecodeResult results = new BatchDecodeResult(1);
+        results.setMalformed(0, "bech32 string too short");
+        results.setValid(0, new DecodedResult("a", new char[0], DecodedResult.Encoding.BECH32));
+        assertNull(results.getError(0));
+        assertTrue(results.isValid(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSize_throws() {
+        new BatchDecodeResult(-1);
+    }
+
+}
@@ -0,0 +1,122 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class Bech32BatchEncoderTest {
+
+    @Test
+    public void encode_simple() {
+        EncodedBatch batch = new Bech32BatchEncoder("hello").encode(
+                new char[]{14, 15, 3, 31, 13}, new int[]{0, 0, 5});
+        assertEquals(2, batch.size());
+        assertEquals("hello1sn7ru8", batch.get(0));
+        assertEquals("hello1w0rldjn365x", batch.get(1));
+        assertEquals(0, batch.getOffset(0));
+        assertEquals(12, batch.getOffset(1));
+        assertEquals(29, batch.getOffset(2));
+    }
+
+    @Test
+    public void encode_originalConstant() {
+        EncodedBatch batch = new Bech32BatchEncoder("a", DecodedResult.Encoding.BECH32).encode(
+                new char[0], new int[]{0, 0});
+        assertArrayEquals(new String[]{"a12uel5l"}, batch.toArray());
+    }
+
+    @Test
+    public void encode_uppercaseHrp_isLowered() {
+        EncodedBatch batch = new Bech32BatchEncoder("A").encode(new char[0], new int[]{0, 0});
+        assertEquals("a1lqfn3a", batch.get(0));
+    }
+
+    @Test
+    public void encode_empty() {
+        EncodedBatch batch = new Bech32BatchEncoder("bc").encode(new char[0], new int[]{0});
+        assertEquals(0, batch.size());
+        assertEquals(0, batch.getBuffer().length);
+    }
+
+    @Test
+    public void encode_matchesEncode_sequentialAndParallel() {
+        Random random = new Random(11);
+        int items = 5000;
+        int[] offsets = new int[items + 1];
+        char[] data = new char[items * 40];
+        for (int i = 0; i < items; i++) {
+            int length = random.nextInt(41);
+            offsets[i + 1] = offsets[i] + length;
+            for (int j = offsets[i]; j < offsets[i + 1]; j++)
+                data[j] = (char) random.nextInt(32);
+        }
+
+        Bech32BatchEncoder encoder = new Bech32BatchEncoder("bcrt");
+        EncodedBatch sequential = encoder.encode(data, offsets);
+        EncodedBatch parallel = encoder.encode(data, offsets, 64, new ForkJoinPool(4));
+        assertArrayEquals(sequential.getBuffer(), parallel.getBuffer());
+
+        char[] chars = new char[Bech32.Limits.MAX_BECH32_LENGTH];
+        for (int i = 0; i < items; i++) {
+            char[] dp = Arrays.copyOfRange(data, offsets[i], offsets[i + 1]);
+            String expected = Bech32.encode("bcrt", dp);
+            assertEquals(expected, parallel.get(i));
+            assertEquals(expected.length(), parallel.getChars(i, chars, 0));
+            assertEquals(expected, new String(chars, 0, expected.length()));
+        }
+    }
+
+    @Test
+    public void encode_offsetsNotStartingAtZero() {
+        char[] data = {31, 14, 15, 3, 31, 13, 31};
+        EncodedBatch batch = new Bech32BatchEncoder("hello").encode(data, new int[]{1, 6});
+        assertEquals("hello1w0rldjn365x", batch.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_valueOutOfRange_throws() {
+        new Bech32BatchEncoder("a").encode(new char[]{32}, new int[]{0, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_tooLong_throws() {
+        new Bech32BatchEncoder("a").encode(new char[83], new int[]{0, 83});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_decreasingOffsets_throws() {
+        new Bech32BatchEncoder("a").encode(new char[4], new int[]{0, 3, 2});
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void encode_offsetsPastData_throws() {
+        new Bech32BatchEncoder("a").encode(new char[4], new int[]{0, 5});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyHrp_throws() {
+        new Bech32BatchEncoder("");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonAsciiHrp_throws() {
+        // "İ" lowercases to two chars, which would make the bytes disagree with the residue
+        new Bech32BatchEncoder("bİ");
+    }
+
+    @Test
+    public void encode_mixedCaseHrp_matchesEncode() {
+        EncodedBatch batch = new Bech32BatchEncoder("BcRt").encode(new char[]{1, 2}, new int[]{0, 2});
+        assertEquals(Bech32.encode("bcrt", new char[]{1, 2}), batch.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidEncoding_throws() {
+        new Bech32BatchEncoder("a", DecodedResult.Encoding.INVALID);
+    }
+
+}
@@ -0,0 +1,127 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static design.contract.bech32.DecodedResult.Encoding.BECH32;
+import static design.contract.bech32.DecodedResult.Encoding.BECH32M;
+import static design.contract.bech32.DecodedResult.Encoding.INVALID;
+import static org.junit.Assert.*;
+
+public class Bech32ChecksumTest {
+
+    @Test
+    public void finish_simple() {
+        char[] checksum = new Bech32Checksum("a").finish(BECH32M);
+        assertArrayEquals(Bech32.Impl.createChecksum("a", new char[0]).toCharArray(), checksum);
+        assertArrayEquals(new char[]{0x1f, 0x00, 0x09, 0x13, 0x11, 0x1d}, checksum);
+    }
+
+    @Test
+    public void finish_c1_simple() {
+        char[] checksum = new Bech32Checksum("a").finish(BECH32);
+        assertArrayEquals(new char[]{0x0a, 0x1c, 0x19, 0x1f, 0x14, 0x1f}, checksum);
+    }
+
+    @Test
+    public void finish_matchesCreateChecksum() {
+        Random random = new Random(3);
+        for (int n = 0; n < 200; n++) {
+            char[] dp = new char[random.nextInt(60)];
+            for (int i = 0; i < dp.length; i++)
+                dp[i] = (char) random.nextInt(32);
+            for (ChecksumEngine engine : ChecksumEngine.values()) {
+                Bech32Checksum checksum = new Bech32Checksum("bc", engine).update(dp);
+                assertArrayEquals(Bech32.Impl.createChecksum("bc", dp).toCharArray(), checksum.finish(BECH32M));
+                assertArrayEquals(Bech32.Impl.createChecksumUsingOriginalConstant("bc", dp).toCharArray(), checksum.finish(BECH32));
+            }
+        }
+    }
+
+    @Test
+    public void update_inChunks_equalsAllAtOnce() {
+        char[] dp = {14, 15, 3, 31, 13, 0, 1, 2, 3};
+        char[] expected = new Bech32Checksum("hello").update(dp).finish(BECH32M);
+
+        Bech32Checksum checksum = new Bech32Checksum("hello");
+        checksum.update(dp[0]);
+        checksum.update(dp, 1, 3);
+        checksum.update(Arrays.copyOfRange(dp, 4, dp.length));
+        assertEquals(dp.length, checksum.getLength());
+        assertArrayEquals(expected, checksum.finish(BECH32M));
+    }
+
+    @Test
+    public void finish_thenEncode_givesBech32String() {
+        char[] dp = {14, 15, 3, 31, 13};
+        char[] checksum = new Bech32Checksum("hello").update(dp).finish(BECH32M);
+        StringBuilder sb = new StringBuilder("hello1");
+        for (char c : dp)
+            sb.append(Bech32.CHARSET.charAt(c));
+        for (char c : checksum)
+            sb.append(Bech32.CHARSET.charAt(c));
+        assertEquals("hello1w0rldjn365x", sb.toString());
+    }
+
+    @Test
+    public void finish_doesNotChangeState() {
+        Bech32Checksum checksum = new Bech32Checksum("a").update(new char[]{1, 2});
+        long residue = checksum.residue();
+        checksum.finish(BECH32M);
+        assertEquals(residue, checksum.residue());
+    }
+
+    @Test
+    public void finish_intoArray() {
+        char[] dst = new char[8];
+        assertEquals(6, new Bech32Checksum("a").finish(BECH32M, dst, 1));
+        assertArrayEquals(new char[]{0, 0x1f, 0x00, 0x09, 0x13, 0x11, 0x1d, 0}, dst);
+    }
+
+    @Test
+    public void hrp_isTreatedAsLowercase() {
+        assertArrayEquals(new Bech32Checksum("abc").finish(BECH32M), new Bech32Checksum("ABC").finish(BECH32M));
+    }
+
+    @Test
+    public void verify_withChecksumAppended() {
+        Bech32Checksum checksum = new Bech32Checksum("a");
+        assertEquals(INVALID, checksum.verify());
+        checksum.update(new Bech32Checksum("a").finish(BECH32M));
+        assertEquals(BECH32M, checksum.verify());
+
+        checksum.reset("a").update(new Bech32Checksum("a").finish(BECH32));
+        assertEquals(BECH32, checksum.verify());
+
+        checksum.reset("b").update(new Bech32Checksum("a").finish(BECH32));
+        assertEquals(INVALID, checksum.verify());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void finish_invalidEncoding_throws() {
+        new Bech32Checksum("a").finish(INVALID);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void update_valueOutOfRange_throws() {
+        new Bech32Checksum("a").update(32);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void update_arrayValueOutOfRange_throws() {
+        new Bech32Checksum("a").update(new char[]{1, 2, 32});
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void update_badRange_throws() {
+        new Bech32Checksum("a").update(new char[]{1, 2}, 1, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyHrp_throws() {
+        new Bech32Checksum("");
+    }
+
+}
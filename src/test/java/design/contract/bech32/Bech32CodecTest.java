@@ -0,0 +1,102 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Bech32CodecTest {
+
+    @Test
+    public void encode_matchesBech32Encode() {
+        Bech32Codec codec = Bech32.forHrp("bc");
+        Random random = new Random(5);
+        for (int n = 0; n < 200; n++) {
+            char[] dp = new char[random.nextInt(60)];
+            for (int i = 0; i < dp.length; i++)
+                dp[i] = (char) random.nextInt(32);
+            assertEquals(Bech32.encode("bc", dp), codec.encode(dp));
+            assertEquals(Bech32.encodeUsingOriginalConstant("bc", dp), codec.encodeUsingOriginalConstant(dp));
+        }
+    }
+
+    @Test
+    public void encode_simple() {
+        assertEquals("hello1w0rldjn365x", Bech32.forHrp("hello").encode(new char[]{14, 15, 3, 31, 13}));
+        assertEquals("a12uel5l", Bech32.forHrp("A").encodeUsingOriginalConstant(new char[0]));
+    }
+
+    @Test
+    public void encodeTo_matchesEncode() throws IOException {
+        Bech32Codec codec = Bech32.forHrp("bc");
+        char[] dp = {0, 14, 20, 15, 7, 13, 26, 0, 25, 18, 6, 11, 13, 8, 21, 4, 20, 3, 17, 2, 29, 3, 12, 29, 3, 4, 15,
+                24, 20, 6, 14, 30, 22};
+        String expected = Bech32.encodeUsingOriginalConstant("bc", dp);
+        StringBuilder sb = new StringBuilder();
+        assertEquals(expected.length(), codec.encodeTo(dp, DecodedResult.Encoding.BECH32, sb));
+        assertEquals(expected, sb.toString());
+        char[] chars = new char[expected.length()];
+        assertEquals(expected.length(), codec.encodeTo(dp, DecodedResult.Encoding.BECH32, chars, 0));
+        assertEquals(expected, new String(chars));
+        byte[] bytes = new byte[expected.length() + 1];
+        assertEquals(expected.length(), codec.encodeTo(dp, DecodedResult.Encoding.BECH32, bytes, 1));
+        assertEquals(expected, new String(bytes, 1, expected.length(), StandardCharsets.US_ASCII));
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length());
+        assertEquals(expected.length(), codec.encodeTo(dp, DecodedResult.Encoding.BECH32, buffer));
+        assertEquals(expected, new String(buffer.array(), StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void encodeTo_noRoom_throws() {
+        Bech32.forHrp("a").encodeTo(new char[]{1, 2}, DecodedResult.Encoding.BECH32M, new char[9], 1);
+    }
+
+    @Test
+    public void getHrp_isLowercased() {
+        assertEquals("bcrt", Bech32.forHrp("BCRT").getHrp());
+    }
+
+    @Test
+    public void decode_pinnedAndOtherHrps() {
+        Bech32Codec codec = Bech32.forHrp("abcdef");
+        String pinned = "abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx";
+        assertEquals(Bech32.decode(pinned), codec.decode(pinned));
+        assertEquals(Bech32.decode("a12uel5l"), codec.decode("a12uel5l"));
+        assertEquals(DecodedResult.Encoding.INVALID, codec.decode("abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryq").getEncoding());
+        // the thread's decoder is reused, but its results aren't
+        DecodedResult first = codec.decode(pinned);
+        assertNotSame(first, codec.decode(pinned));
+        assertEquals(Bech32.decode(pinned), first);
+    }
+
+    @Test
+    public void newDecoder_reusable() {
+        Bech32Decoder decoder = Bech32.forHrp("split").newDecoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        assertEquals(DecodedResult.Encoding.BECH32M,
+                decoder.decode("split1checkupstagehandshakeupstreamerranterredcaperredlc445v", result));
+        assertTrue(result.hrpEquals("split"));
+        assertEquals(DecodedResult.Encoding.BECH32,
+                decoder.decode("split1checkupstagehandshakeupstreamerranterredcaperred2y9e3w", result));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forHrp_empty_throws() {
+        Bech32.forHrp("");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_tooLong_throws() {
+        Bech32.forHrp("a").encode(new char[83]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_valueOutOfRange_throws() {
+        Bech32.forHrp("a").encode(new char[]{32});
+    }
+
+}
@@ -0,0 +1,391 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static design.contract.bech32.DecodedResult.Encoding.BECH32;
+import static design.contract.bech32.DecodedResult.Encoding.BECH32M;
+import static design.contract.bech32.DecodedResult.Encoding.INVALID;
+import static org.junit.Assert.*;
+
+public class Bech32DecoderTest {
+
+    // valid test vectors from BIP-0173 and BIP-0350
+    private static final String[] VALID = {
+            "A12UEL5L",
+            "a12uel5l",
+            "an83characterlonghumanreadablepartthatcontainsthenumber1andtheexcludedcharactersbio1tt5tgs",
+            "abcdef1qpzry9x8gf2tvdw0s3jn54khce6mua7lmqqqxw",
+            "11" + repeat('q', 82) + "c8247j",
+            "split1checkupstagehandshakeupstreamerranterredcaperred2y9e3w",
+            "?1ezyfcl",
+            "A1LQFN3A",
+            "a1lqfn3a",
+            "an83characterlonghumanreadablepartthatcontainsthetheexcludedcharactersbioandnumber11sg7hg6",
+            "abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx",
+            "11" + repeat('l', 82) + "ludsr8",
+            "split1checkupstagehandshakeupstreamerranterredcaperredlc445v",
+            "?1v759aa"
+    };
+
+    private static final String[] MALFORMED = {
+            "",
+            "a",
+            "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa",
+            "aAaaaaaaaaaaaaaaaa",
+            "a aaaaaaaaaaaaaaaa",
+            "aaaaħaaaa",
+            "aaaaaaaaaaaaaaaaaaaaaaaaaaaa",
+            "1aaaaaaaaaaaaaaaaaaaaaaaaaaaa",
+            "an84characterlonghumanreadablepartaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa1a",
+            "a33characterlonghumanreadablepart1a",
+            "a1qqqqqqb"
+    };
+
+    private static String repeat(char c, int count) {
+        char[] buffer = new char[count];
+        Arrays.fill(buffer, c);
+        return new String(buffer);
+    }
+
+    @Test
+    public void decode_validVectors_matchesBech32Decode() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        for (String bstring : VALID) {
+            assertEquals(bstring, Bech32.decode(bstring), decoder.decode(bstring));
+        }
+    }
+
+    @Test
+    public void decode_malformed_throwsSameMessageAsBech32Decode() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        for (String bstring : MALFORMED) {
+            String expected = null;
+            try {
+                Bech32.decode(bstring);
+            } catch (IllegalArgumentException e) {
+                expected = e.getMessage();
+            }
+            assertNotNull(bstring, expected);
+            try {
+                decoder.decode(bstring);
+                fail(bstring);
+            } catch (IllegalArgumentException e) {
+                assertEquals(bstring, expected, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void decode_severalViolations_reportsFirstRuleInOrder() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        String[][] cases = {
+                {"aA aaaaaaaaaaaaaaaa", "bech32 string is mixed case"},
+                {"a aaaaaaaaaaaaaaab", "bech32 string has value out of range"},
+                {"aaaaaaaaaaaaaaaab", "bech32 string is missing separator character"},
+                {"1aaaaaaaaaaaaab", "HRP must be at least one character"},
+                {"ab1aaab", "bech32 string too short"},
+                {"abcdefgh1aaab", "data part must be at least six characters"},
+                {"a1b1qqqqqqb", "data part contains invalid character"},
+        };
+        for (String[] c : cases) {
+            try {
+                decoder.decode(c[0], new MutableDecodedResult());
+                fail(c[0]);
+            } catch (IllegalArgumentException e) {
+                assertEquals(c[0], c[1], e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void decode_invalidCharBeforeLastSeparator_belongsToHrp() {
+        // 'b' is not in the charset, but it is part of the HRP here
+        assertEquals(BECH32M, Bech32.decode(Bech32.encode("b1b", new char[]{1, 2})).getEncoding());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void decode_nullString_throws() {
+        new Bech32Decoder().decode(null, new MutableDecodedResult());
+    }
+
+    @Test
+    public void decode_intoResult_simple() {
+        MutableDecodedResult result = new MutableDecodedResult();
+        assertEquals(BECH32M, new Bech32Decoder().decode("a1lqfn3a", result));
+        assertEquals(BECH32M, result.getEncoding());
+        assertEquals(1, result.getHrpLength());
+        assertEquals('a', result.hrpCharAt(0));
+        assertEquals(0, result.getDpLength());
+    }
+
+    @Test
+    public void decode_intoResult_uppercaseHrpIsLowered() {
+        MutableDecodedResult result = new MutableDecodedResult();
+        assertEquals(BECH32, new Bech32Decoder().decode("A12UEL5L", result));
+        assertTrue(result.hrpEquals("a"));
+    }
+
+    @Test
+    public void decode_intoResult_longer() {
+        MutableDecodedResult result = new MutableDecodedResult();
+        new Bech32Decoder().decode("abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx", result);
+        assertTrue(result.hrpEquals("abcdef"));
+        assertEquals(32, result.getDpLength());
+        assertEquals(0x001f, result.dpAt(0));
+        assertEquals(0x0000, result.dpAt(31));
+    }
+
+    @Test
+    public void decode_badChecksum_returnsInvalidAndClearsResult() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        decoder.decode("a1lqfn3a", result);
+        assertEquals(INVALID, decoder.decode("a12uel5m", result));
+        assertFalse(result.isValid());
+        assertEquals(0, result.getHrpLength());
+        assertEquals(INVALID, result.toDecodedResult().getEncoding());
+    }
+
+    @Test
+    public void decode_reusedAcrossCalls_givesIndependentResults() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        for (String bstring : VALID) {
+            decoder.decode(bstring, result);
+            assertEquals(bstring, Bech32.decode(bstring), result.toDecodedResult());
+        }
+    }
+
+    @Test
+    public void decode_malformedLeavesResultCleared() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        decoder.decode("a1lqfn3a", result);
+        try {
+            decoder.decode("a1lqfn3b", result);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertFalse(result.isValid());
+        }
+    }
+
+    @Test
+    public void decode_charSequences_matchesString() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        for (String bstring : VALID) {
+            DecodedResult expected = Bech32.decode(bstring);
+            assertEquals(bstring, expected, decoder.decode(new StringBuilder(bstring)));
+            assertEquals(bstring, expected, decoder.decode(CharBuffer.wrap(bstring)));
+        }
+    }
+
+    @Test
+    public void decodeAscii_byteArray_matchesString() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        for (String bstring : VALID) {
+            byte[] bytes = ("  " + bstring + " ").getBytes(StandardCharsets.US_ASCII);
+            decoder.decodeAscii(bytes, 2, bstring.length(), result);
+            assertEquals(bstring, Bech32.decode(bstring), result.toDecodedResult());
+        }
+    }
+
+    @Test
+    public void decodeAscii_heapAndDirectBuffers_respectPositionAndLimit() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        for (String bstring : VALID) {
+            byte[] bytes = ("xx" + bstring + "yy").getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes);
+            ByteBuffer[] buffers = {
+                    ByteBuffer.wrap(bytes),
+                    direct,
+                    ((ByteBuffer) ByteBuffer.wrap(("z" + new String(bytes, StandardCharsets.US_ASCII)).getBytes(StandardCharsets.US_ASCII)).position(1)).slice()
+            };
+            for (ByteBuffer buffer : buffers) {
+                buffer.limit(2 + bstring.length());
+                buffer.position(2);
+                decoder.decodeAscii(buffer, result);
+                assertEquals(bstring, Bech32.decode(bstring), result.toDecodedResult());
+                assertEquals(2, buffer.position());
+                assertEquals(2 + bstring.length(), buffer.limit());
+            }
+        }
+    }
+
+    @Test
+    public void decodeAscii_malformed_throwsSameMessageAsString() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        for (String bstring : MALFORMED) {
+            if (!StandardCharsets.ISO_8859_1.newEncoder().canEncode(bstring))
+                continue;
+            String expected = null;
+            try {
+                Bech32.decode(bstring);
+            } catch (IllegalArgumentException e) {
+                expected = e.getMessage();
+            }
+            byte[] bytes = bstring.getBytes(StandardCharsets.ISO_8859_1);
+            try {
+                decoder.decodeAscii(ByteBuffer.wrap(bytes), new MutableDecodedResult());
+                fail(bstring);
+            } catch (IllegalArgumentException e) {
+                assertEquals(bstring, expected, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void decodeAscii_highByte_isOutOfRange() {
+        byte[] bytes = "a1lqfn3a".getBytes(StandardCharsets.US_ASCII);
+        bytes[3] = (byte) 0xf1;
+        try {
+            new Bech32Decoder().decodeAscii(bytes, 0, bytes.length, new MutableDecodedResult());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("bech32 string has value out of range", e.getMessage());
+        }
+    }
+
+    @Test
+    public void tryDecodeAscii_matchesTryDecode() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult expected = new MutableDecodedResult();
+        MutableDecodedResult result = new MutableDecodedResult();
+        String[] inputs = {"a1 2uel5l", "A12uEL5L", "pzry9x0s0muk", "1pzry9x0s0muk", repeat('a', 84) + "1qqqqq",
+                "abc1qqqqq", "x1b4n0q5v", "a1qqqqqbqqqq", "a12uel5m", "a12uel5l1", "a12u\u00e9l5l"};
+        for (String[] strings : new String[][]{VALID, MALFORMED, inputs}) {
+            for (String bstring : strings) {
+                if (!StandardCharsets.ISO_8859_1.newEncoder().canEncode(bstring))
+                    continue;
+                DecodeStatus status = decoder.tryDecode(bstring, expected);
+                byte[] bytes = ("xx" + bstring).getBytes(StandardCharsets.ISO_8859_1);
+                assertEquals(bstring, status, decoder.tryDecodeAscii(bytes, 2, bstring.length(), result));
+                assertEquals(bstring, expected.getErrorPosition(), result.getErrorPosition());
+                assertEquals(bstring, expected.toString(), result.toString());
+                ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+                direct.put(bytes).position(2);
+                assertEquals(bstring, status, decoder.tryDecodeAscii(direct, result));
+                assertEquals(bstring, expected.getErrorPosition(), result.getErrorPosition());
+                assertEquals(bstring, expected.toString(), result.toString());
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void decodeAscii_badRange_throws() {
+        new Bech32Decoder().decodeAscii(new byte[8], 4, 8, new MutableDecodedResult());
+    }
+
+    @Test
+    public void decodeToBytes_intoOffset() {
+        byte[] data = {(byte) 0xde, (byte) 0xad, (byte) 0xbe, (byte) 0xef, 0x00, 0x7f};
+        String bstring = Bech32.encodeBytes("bc", data);
+        byte[] dst = new byte[10];
+        MutableDecodedResult result = new MutableDecodedResult();
+        assertEquals(data.length, new Bech32Decoder().decodeToBytes(bstring.toUpperCase(), result, dst, 3));
+        assertArrayEquals(data, Arrays.copyOfRange(dst, 3, 3 + data.length));
+        assertEquals(0, dst[2]);
+        assertTrue(result.hrpEquals("bc"));
+        assertEquals(BECH32M, result.getEncoding());
+    }
+
+    @Test
+    public void decodeToBytes_dstTooSmall_throws() {
+        try {
+            new Bech32Decoder().decodeToBytes(Bech32.encodeBytes("bc", new byte[8]), new MutableDecodedResult(),
+                    new byte[10], 3);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("destination is too small for 8 bytes", e.getMessage());
+        }
+    }
+
+    private static void assertStatus(DecodeStatus status, int position, String bstring) {
+        MutableDecodedResult result = new MutableDecodedResult();
+        assertEquals(bstring, status, new Bech32Decoder().tryDecode(bstring, result));
+        assertEquals(bstring, status, result.getStatus());
+        assertEquals(bstring, position, result.getErrorPosition());
+        assertEquals(status, new Bech32Decoder().validate(bstring));
+    }
+
+    @Test
+    public void tryDecode_reportsStatusAndPosition() {
+        assertStatus(DecodeStatus.OK, -1, "a12uel5l");
+        assertStatus(DecodeStatus.TOO_SHORT, 7, "a12uel5");
+        assertStatus(DecodeStatus.TOO_LONG, 90, "a1" + repeat('q', 89));
+        assertStatus(DecodeStatus.MIXED_CASE, 3, "a12Uel5l");
+        assertStatus(DecodeStatus.MIXED_CASE, 4, "A12UeL5L");
+        assertStatus(DecodeStatus.OUT_OF_RANGE, 2, "a1 2uel5l");
+        assertStatus(DecodeStatus.OUT_OF_RANGE, 4, "a12u\u00e9l5l");
+        assertStatus(DecodeStatus.NO_SEPARATOR, -1, "pzry9x0s0muk");
+        assertStatus(DecodeStatus.HRP_TOO_SHORT, 0, "1pzry9x0s0muk");
+        assertStatus(DecodeStatus.HRP_TOO_LONG, 83, repeat('a', 84) + "1qqqqq");
+        assertStatus(DecodeStatus.DATA_TOO_SHORT, 3, "abc1qqqqq");
+        assertStatus(DecodeStatus.INVALID_CHAR, 2, "x1b4n0q5v");
+        assertStatus(DecodeStatus.INVALID_CHAR, 7, "a1qqqqqbqqqq");
+        assertStatus(DecodeStatus.BAD_CHECKSUM, -1, "a12uel5m");
+    }
+
+    @Test
+    public void tryDecode_matchesDecode() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        for (String bstring : MALFORMED) {
+            DecodeStatus status = decoder.tryDecode(bstring, result);
+            assertTrue(bstring, status.isMalformed());
+            assertFalse(result.isValid());
+            try {
+                decoder.decode(bstring, result);
+                fail(bstring);
+            } catch (Bech32Exception e) {
+                assertEquals(bstring, status.getMessage(), e.getMessage());
+                assertEquals(status, e.getStatus());
+                assertEquals(result.getErrorPosition(), e.getPosition());
+            }
+        }
+        for (String bstring : VALID) {
+            assertEquals(DecodeStatus.OK, decoder.tryDecode(bstring, result));
+            assertTrue(result.isValid());
+        }
+    }
+
+    @Test
+    public void tryDecode_statusIsClearedBySuccess() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        decoder.tryDecode("a1b2uel5l", result);
+        assertEquals(DecodeStatus.INVALID_CHAR, result.getStatus());
+        assertEquals(2, result.getErrorPosition());
+        decoder.tryDecode("a12uel5l", result);
+        assertEquals(DecodeStatus.OK, result.getStatus());
+        assertEquals(-1, result.getErrorPosition());
+    }
+
+    @Test
+    public void tryDecodeAscii_reportsStatus() {
+        byte[] bytes = "xa1b4n0q5vx".getBytes(StandardCharsets.US_ASCII);
+        MutableDecodedResult result = new MutableDecodedResult();
+        Bech32Decoder decoder = new Bech32Decoder();
+        assertEquals(DecodeStatus.INVALID_CHAR, decoder.tryDecodeAscii(bytes, 1, 9, result));
+        assertEquals(DecodeStatus.INVALID_CHAR, decoder.tryDecodeAscii(ByteBuffer.wrap(bytes), 1, 9, result));
+        assertEquals(2, result.getErrorPosition());
+    }
+
+    @Test
+    public void decode_exceptionsAreStackless() {
+        try {
+            new Bech32Decoder().decode("a12Uel5l", new MutableDecodedResult());
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package design.contract.bech32;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class Bech32FileScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String CONTENT =
+            "a1lqfn3a\n" +
+            "a12uel5l\r\n" +
+            "\n" +
+            "a12uel5m\n" +
+            "abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx\n" +
+            "aAaaaaaaaaaaaaaaaa\n" +
+            "split1checkupstagehandshakeupstreamerranterredcaperredlc445v";
+
+    private Path write(String content) throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, content.getBytes(StandardCharsets.US_ASCII));
+        return path;
+    }
+
+    private static final class Line {
+        final BatchDecodeResult.Status status;
+        final String hrp;
+        final String error;
+
+        Line(BatchDecodeResult.Status status, String hrp, String error) {
+            this.status = status;
+            this.hrp = hrp;
+            this.error = error;
+        }
+    }
+
+    private static Map<Long, Line> scan(Bech32FileScanner scanner) throws IOException {
+        Map<Long, Line> lines = new ConcurrentHashMap<>();
+        scanner.scan((offset, status, result, error) ->
+                lines.put(offset, new Line(status, result.getHrp(), error)));
+        return lines;
+    }
+
+    private static void assertContent(Map<Long, Line> lines) {
+        assertEquals(6, lines.size());
+        assertEquals(BatchDecodeResult.Status.VALID, lines.get(0L).status);
+        assertEquals("a", lines.get(0L).hrp);
+        assertEquals(BatchDecodeResult.Status.VALID, lines.get(9L).status);
+        assertEquals(BatchDecodeResult.Status.INVALID_CHECKSUM, lines.get(20L).status);
+        assertNull(lines.get(20L).hrp);
+        assertEquals("abcdef", lines.get(29L).hrp);
+        assertEquals(BatchDecodeResult.Status.MALFORMED, lines.get(75L).status);
+        assertEquals("bech32 string is mixed case", lines.get(75L).error);
+        assertEquals("split", lines.get(94L).hrp);
+    }
+
+    @Test
+    public void scan_singleRegion() throws IOException {
+        assertContent(scan(new Bech32FileScanner(write(CONTENT))));
+    }
+
+    @Test
+    public void scan_manySmallRegions_givesSameResults() throws IOException {
+        Path path = write(CONTENT);
+        for (int regionSize = 1; regionSize < 40; regionSize++) {
+            assertContent(scan(new Bech32FileScanner(path, regionSize, new ForkJoinPool(3))));
+        }
+    }
+
+    @Test
+    public void scan_summary() throws IOException {
+        Bech32FileScanner.Summary summary = new Bech32FileScanner(write(CONTENT), 16, ForkJoinPool.commonPool()).scan();
+        assertEquals(6, summary.getLines());
+        assertEquals(4, summary.getValid());
+        assertEquals(3, summary.getBech32m());
+        assertEquals(1, summary.getInvalidChecksum());
+        assertEquals(1, summary.getMalformed());
+    }
+
+    @Test
+    public void scan_emptyFile() throws IOException {
+        assertEquals(0, new Bech32FileScanner(write("")).scan().getLines());
+    }
+
+    @Test
+    public void split_regionsEndOnLineBoundaries() throws IOException {
+        Path path = write(CONTENT);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<long[]> regions = Bech32FileScanner.split(channel, 10);
+            long expectedStart = 0;
+            for (long[] region : regions) {
+                assertEquals(expectedStart, region[0]);
+                assertTrue(region[1] > region[0]);
+                if (region[1] < CONTENT.length())
+                    assertEquals('\n', CONTENT.charAt((int) region[1] - 1));
+                expectedStart = region[1];
+            }
+            assertEquals(CONTENT.length(), expectedStart);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void scan_missingFile_throws() throws IOException {
+        new Bech32FileScanner(folder.getRoot().toPath().resolve("missing")).scan();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroRegionSize_throws() throws IOException {
+        new Bech32FileScanner(write(""), 0, ForkJoinPool.commonPool());
+    }
+
+}
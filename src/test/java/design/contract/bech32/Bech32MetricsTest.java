@@ -0,0 +1,235 @@
+package design.contract.bech32;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class Bech32MetricsTest {
+
+    private static final String P2TR = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+    private static final String P2WPKH = "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4";
+
+    @After
+    public void uninstall() {
+        Bech32Metrics.uninstall();
+    }
+
+    // records the inputs, HRPs and batches it is told of
+    private static final class Recording extends Bech32Metrics {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void onDecode(int length, DecodeStatus status, DecodedResult.Encoding encoding, long nanos) {
+        }
+
+        @Override
+        public void onEncode(int length, DecodedResult.Encoding encoding, long nanos) {
+        }
+
+        @Override
+        public void onDecode(CharSequence input, DecodeStatus status, DecodedResult.Encoding encoding, long nanos) {
+            calls.add("decode " + input + " " + status);
+        }
+
+        @Override
+        public void onEncode(String hrp, int length, DecodedResult.Encoding encoding, long nanos) {
+            calls.add("encode " + hrp + " " + length);
+        }
+
+        @Override
+        public void onBatch(String operation, String hrp, long items, long failures, long nanos) {
+            calls.add(operation + " " + hrp + " " + items + " " + failures);
+        }
+
+        @Override
+        public Snapshot snapshot() {
+            return emptySnapshot();
+        }
+    }
+
+    private static long sum(long[] histogram) {
+        long sum = 0;
+        for (long n : histogram)
+            sum += n;
+        return sum;
+    }
+
+    @Test
+    public void noopByDefault() {
+        assertFalse(Bech32Metrics.get().isEnabled());
+        Bech32.decode(P2TR);
+        assertEquals(0, Bech32Metrics.get().snapshot().getDecodes());
+    }
+
+    @Test
+    public void countsDecodesByOutcome() {
+        Bech32Metrics metrics = Bech32Metrics.counting();
+        Bech32Metrics.install(metrics);
+        Bech32.decode(P2TR);
+        Bech32.tryDecode(P2WPKH);
+        Bech32.tryDecode(P2TR.substring(0, P2TR.length() - 1) + "q");
+        Bech32.tryDecode("a1");
+        new Bech32Decoder().tryDecodeAscii(P2TR.getBytes(StandardCharsets.US_ASCII), 0, P2TR.length(),
+                new MutableDecodedResult());
+        try {
+            Bech32.decode("BC1Qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4");
+            fail();
+        } catch (Bech32Exception expected) {
+        }
+
+        Bech32Metrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(6, snapshot.getDecodes());
+        assertEquals(2, snapshot.getDecoded(DecodedResult.Encoding.BECH32M));
+        assertEquals(1, snapshot.getDecoded(DecodedResult.Encoding.BECH32));
+        assertEquals(1, snapshot.getRejected(DecodeStatus.BAD_CHECKSUM));
+        assertEquals(1, snapshot.getRejected(DecodeStatus.TOO_SHORT));
+        assertEquals(1, snapshot.getRejected(DecodeStatus.MIXED_CASE));
+        assertEquals(0, snapshot.getRejected(DecodeStatus.OK));
+        assertEquals(6, sum(snapshot.getLengthHistogram()));
+        assertEquals(6, sum(snapshot.getLatencyHistogram()));
+        assertEquals(3, snapshot.getLengthHistogram()[Bech32Metrics.lengthBucket(P2TR.length())]);
+    }
+
+    @Test
+    public void countsEncodes() throws Exception {
+        Bech32Metrics metrics = Bech32Metrics.counting();
+        Bech32Metrics.install(metrics);
+        char[] dp = {1, 2, 3};
+        Bech32.encode("a", dp);
+        Bech32.encodeUsingOriginalConstant("a", dp);
+        Bech32.forHrp("a").encodeTo(dp, DecodedResult.Encoding.BECH32M, new StringBuilder());
+        Bech32.encodeBytes("a", new byte[]{1, 2});
+        try {
+            Bech32.encode("a", new char[]{32});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        Bech32Metrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(4, snapshot.getEncodes());
+        assertEquals(3, snapshot.getEncoded(DecodedResult.Encoding.BECH32M));
+        assertEquals(1, snapshot.getEncoded(DecodedResult.Encoding.BECH32));
+        assertEquals(0, snapshot.getDecodes());
+        assertEquals(4, sum(snapshot.getLengthHistogram()));
+    }
+
+    @Test
+    public void buckets() {
+        assertEquals(0, Bech32Metrics.lengthBucket(7));
+        assertEquals(1, Bech32Metrics.lengthBucket(8));
+        assertEquals(Bech32Metrics.LENGTH_BUCKETS - 1, Bech32Metrics.lengthBucket(1000));
+        assertEquals(0, Bech32Metrics.latencyBucket(0));
+        assertEquals(1, Bech32Metrics.latencyBucket(1));
+        assertEquals(10, Bech32Metrics.latencyBucket(1023));
+        assertEquals(11, Bech32Metrics.latencyBucket(1024));
+        assertEquals(Bech32Metrics.LATENCY_BUCKETS - 1, Bech32Metrics.latencyBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void reportsInputsAndBatches() {
+        Recording recording = new Recording();
+        Bech32Metrics.install(recording);
+        Bech32.tryDecode(P2TR);
+        Bech32.encode("A", new char[]{1, 2, 3});
+        Bech32.decodeAll(new String[]{P2TR, "garbage"});
+        new Bech32BatchEncoder("Tb").encode(new char[]{1, 2}, new int[]{0, 1, 2});
+        assertEquals(Arrays.asList(
+                "decode " + P2TR + " OK",
+                "encode a 11",
+                "decode " + P2TR + " OK",
+                "decode garbage TOO_SHORT",
+                "decodeAll null 2 1",
+                "encodeBatch tb 2 0"), recording.calls);
+    }
+
+    @Test
+    public void combine_reportsToBoth() {
+        Recording recording = new Recording();
+        Bech32Metrics counting = Bech32Metrics.counting();
+        Bech32Metrics.install(Bech32Metrics.combine(counting, recording));
+        Bech32.decode(P2TR);
+        assertEquals(1, counting.snapshot().getDecodes());
+        assertEquals(1, Bech32Metrics.get().snapshot().getDecodes());
+        assertEquals(Arrays.asList("decode " + P2TR + " OK"), recording.calls);
+    }
+
+    @Test
+    public void flightRecorder_isAvailableWithJava17Classes() {
+        Assume.assumeTrue(AsciiKernelTest.hasJava17Classes());
+        assertTrue(Bech32Metrics.isFlightRecorderAvailable());
+    }
+
+    @Test
+    public void flightRecorder_isUnsupportedWithoutJfr() {
+        Assume.assumeFalse(Bech32Metrics.isFlightRecorderAvailable());
+        try {
+            Bech32Metrics.flightRecorder(0);
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    // runs a jdk.jfr Recording around some bech32 work, reflectively since the tests are
+    // compiled for Java 8, and checks which event types came out of it
+    @Test
+    public void flightRecorder_emitsEvents() throws Exception {
+        // only failures get past a threshold of an hour
+        Assume.assumeTrue(Bech32Metrics.isFlightRecorderAvailable());
+        Bech32Metrics metrics = Bech32Metrics.flightRecorder(3_600_000_000_000L);
+        Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        Object jfr = recordingClass.getConstructor().newInstance();
+        for (String name : new String[]{"Decode", "ChecksumFailure", "Encode", "Batch"})
+            recordingClass.getMethod("enable", String.class).invoke(jfr, "design.contract.bech32." + name);
+        Path file = Files.createTempFile("bech32", ".jfr");
+        try {
+            recordingClass.getMethod("start").invoke(jfr);
+            Bech32Metrics.install(metrics);
+            Bech32.tryDecode(P2TR);
+            Bech32.tryDecode(P2TR.substring(0, P2TR.length() - 1) + "q");
+            Bech32.tryDecode("no separator");
+            Bech32.encode("a", new char[]{1, 2, 3});
+            Bech32.decodeAll(new String[]{P2TR, "garbage"});
+            recordingClass.getMethod("stop").invoke(jfr);
+            recordingClass.getMethod("dump", Path.class).invoke(jfr, file);
+
+            Set<String> names = new HashSet<>();
+            Method getEventType = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getEventType");
+            Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+            Method getString = Class.forName("jdk.jfr.consumer.RecordedObject").getMethod("getString", String.class);
+            List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                    .getMethod("readAllEvents", Path.class).invoke(null, file);
+            List<String> outcomes = new ArrayList<>();
+            for (Object event : events) {
+                String name = (String) getName.invoke(getEventType.invoke(event));
+                names.add(name);
+                if (name.equals("design.contract.bech32.Decode"))
+                    outcomes.add((String) getString.invoke(event, "outcome"));
+                if (name.equals("design.contract.bech32.ChecksumFailure"))
+                    assertEquals("bc", getString.invoke(event, "hrp"));
+            }
+            assertEquals(new HashSet<>(Arrays.asList("design.contract.bech32.Decode",
+                    "design.contract.bech32.ChecksumFailure", "design.contract.bech32.Batch")), names);
+            assertEquals(Arrays.asList("OUT_OF_RANGE", "TOO_SHORT"), outcomes);
+        } finally {
+            recordingClass.getMethod("close").invoke(jfr);
+            Files.delete(file);
+        }
+    }
+}
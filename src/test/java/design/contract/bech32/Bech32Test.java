@@ -2,7 +2,18 @@ package design.contract.bech32;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static design.contract.bech32.DecodedResult.Encoding.BECH32;
 import static design.contract.bech32.DecodedResult.Encoding.BECH32M;
@@ -111,6 +122,33 @@ public class Bech32Test {
         Bech32.Impl.rejectBStringWithNoSeparator("abcd");
     }
 
+    @Test
+    public void rejectBStringThatIsntWellFormed_withWellFormedString_wontThrow() {
+        Bech32.Impl.rejectBStringThatIsntWellFormed("abcdef1qpzry9x8gf2tvdw0s3jn54khce6mua7lmqqqxw");
+    }
+
+    @Test
+    public void rejectBStringThatIsntWellFormed_reportsInOrder() {
+        try {
+            Bech32.Impl.rejectBStringThatIsntWellFormed("aB aaaaaaaa");
+            fail();
+        } catch(IllegalArgumentException e) {
+            assertEquals("bech32 string is mixed case", e.getMessage());
+        }
+        try {
+            Bech32.Impl.rejectBStringThatIsntWellFormed("ab aaaaaaaa");
+            fail();
+        } catch(IllegalArgumentException e) {
+            assertEquals("bech32 string has value out of range", e.getMessage());
+        }
+        try {
+            Bech32.Impl.rejectBStringThatIsntWellFormed("abaaaaaaaa");
+            fail();
+        } catch(IllegalArgumentException e) {
+            assertEquals("bech32 string is missing separator character", e.getMessage());
+        }
+    }
+
     @Test
     public void findSeparatorPosition_withSeparator() {
         int pos = Bech32.Impl.findSeparatorPosition("ab1cd");
@@ -203,6 +241,17 @@ public class Bech32Test {
         assertEquals(0x000d, dp[2]);
     }
 
+    @Test
+    public void mapDP_withOutOfRangeData_throws() {
+        try {
+            Bech32.Impl.mapDP(new char[]{'q', (char) 0x100});
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(DecodeStatus.OUT_OF_RANGE, e.getStatus());
+            assertEquals("data part contains character value out of range", e.getMessage());
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void mapDP_withInvalidData_throws() {
         char[] dp = Bech32.Impl.extractDataPart("1abc"); // 'b' is invalid
@@ -546,4 +595,327 @@ public class Bech32Test {
         assertEquals(bstr, enc);
     }
 
+    private static final String[] BATCH = {
+            "a1lqfn3a",           // valid, bech32m
+            "a12uel5l",           // valid, bech32
+            "a12uel5m",           // bad checksum
+            "a",                  // too short
+            "abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx",
+            "aAaaaaaaaaaaaaaaaa", // mixed case
+    };
+
+    private static void assertBatch(BatchDecodeResult results, int offset) {
+        assertEquals(BatchDecodeResult.Status.VALID, results.getStatus(offset));
+        assertEquals(BECH32M, results.get(offset).getEncoding());
+        assertEquals(BatchDecodeResult.Status.VALID, results.getStatus(offset + 1));
+        assertEquals(BECH32, results.get(offset + 1).getEncoding());
+        assertEquals(BatchDecodeResult.Status.INVALID_CHECKSUM, results.getStatus(offset + 2));
+        assertNull(results.getError(offset + 2));
+        assertEquals(BatchDecodeResult.Status.MALFORMED, results.getStatus(offset + 3));
+        assertEquals("bech32 string too short", results.getError(offset + 3));
+        assertEquals(Bech32.decode(BATCH[4]), results.get(offset + 4));
+        assertEquals("bech32 string is mixed case", results.getError(offset + 5));
+    }
+
+    @Test
+    public void decodeAll_array_reportsPerItemStatus() {
+        BatchDecodeResult results = Bech32.decodeAll(BATCH);
+        assertEquals(BATCH.length, results.size());
+        assertBatch(results, 0);
+        assertEquals(3, results.countValid());
+    }
+
+    @Test
+    public void decodeAll_list_reportsPerItemStatus() {
+        assertBatch(Bech32.decodeAll(new LinkedList<>(Arrays.asList(BATCH))), 0);
+    }
+
+    @Test
+    public void decodeAll_largeBatchWithSmallThreshold_forks() {
+        List<String> bstrings = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            bstrings.addAll(Arrays.asList(BATCH));
+        BatchDecodeResult results = new BatchDecodeResult(bstrings.size());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Bech32.decodeAll(bstrings, results, 7, pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < 1000; i++)
+            assertBatch(results, i * BATCH.length);
+        assertEquals(3000, results.countValid());
+    }
+
+    @Test
+    public void decodeAll_nullEntry_isMalformed() {
+        BatchDecodeResult results = Bech32.decodeAll(new String[]{null, "a1lqfn3a"});
+        assertEquals(BatchDecodeResult.Status.MALFORMED, results.getStatus(0));
+        assertTrue(results.isValid(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeAll_resultSizeMismatch_throws() {
+        Bech32.decodeAll(BATCH, new BatchDecodeResult(1), 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeAll_zeroThreshold_throws() {
+        Bech32.decodeAll(BATCH, new BatchDecodeResult(BATCH.length), 0);
+    }
+
+    @Test
+    public void decodeAll_stream_mapsFailuresToInvalid() {
+        List<DecodedResult> results = Bech32.decodeAll(Stream.of(BATCH).parallel()).collect(Collectors.toList());
+        assertEquals(BATCH.length, results.size());
+        assertEquals(BECH32M, results.get(0).getEncoding());
+        assertEquals(BECH32, results.get(1).getEncoding());
+        assertEquals(DecodedResult.Encoding.INVALID, results.get(2).getEncoding());
+        assertEquals(DecodedResult.Encoding.INVALID, results.get(3).getEncoding());
+        assertEquals(Bech32.decode(BATCH[4]), results.get(4));
+        assertEquals(DecodedResult.Encoding.INVALID, results.get(5).getEncoding());
+    }
+
+    @Test
+    public void decode_fromCharSequence() {
+        DecodedResult decodedResult = Bech32.decode(new StringBuilder("abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx"));
+        assertEquals(Bech32.decode("abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx"), decodedResult);
+    }
+
+    @Test
+    public void decodeAscii_fromByteArray() {
+        byte[] bytes = "[a12uel5l]".getBytes(StandardCharsets.US_ASCII);
+        DecodedResult decodedResult = Bech32.decodeAscii(bytes, 1, 8);
+        assertEquals("a", decodedResult.getHrp());
+        assertEquals(BECH32, decodedResult.getEncoding());
+    }
+
+    @Test
+    public void decodeAscii_fromDirectByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+        buffer.put("a1lqfn3a".getBytes(StandardCharsets.US_ASCII));
+        buffer.flip();
+        DecodedResult decodedResult = Bech32.decodeAscii(buffer);
+        assertEquals("a", decodedResult.getHrp());
+        assertEquals(BECH32M, decodedResult.getEncoding());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void decodeAscii_badChecksum_isInvalid() {
+        byte[] bytes = "a12uel5m".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(DecodedResult.Encoding.INVALID, Bech32.decodeAscii(bytes, 0, bytes.length).getEncoding());
+    }
+
+    // reference 8-to-5 bit regrouping with zero padding, as in BIP-0173's convertbits
+    private static char[] toFiveBit(byte[] data, int offset, int length) {
+        char[] ret = new char[(length * 8 + 4) / 5];
+        int acc = 0, bits = 0, j = 0;
+        for (int i = offset; i < offset + length; i++) {
+            acc = acc << 8 | data[i] & 0xff;
+            bits += 8;
+            while (bits >= 5) {
+                bits -= 5;
+                ret[j++] = (char) ((acc >> bits) & 31);
+            }
+        }
+        if (bits > 0)
+            ret[j] = (char) ((acc << (5 - bits)) & 31);
+        return ret;
+    }
+
+    @Test
+    public void encodeBytes_matchesEncodeOfRegroupedData() {
+        Random random = new Random(12);
+        for (int length = 0; length <= Bech32.MAX_DECODED_BYTES; length++) {
+            byte[] data = new byte[length + 3];
+            random.nextBytes(data);
+            assertEquals(Bech32.encode("a", toFiveBit(data, 3, length)), Bech32.encodeBytes("A", data, 3, length));
+            assertEquals(Bech32.encodeUsingOriginalConstant("a", toFiveBit(data, 3, length)),
+                    Bech32.encodeBytesUsingOriginalConstant("a", data, 3, length));
+        }
+    }
+
+    @Test
+    public void encodeBytes_decodeToBytes_roundTrip() {
+        Random random = new Random(13);
+        for (int length = 0; length <= Bech32.MAX_DECODED_BYTES; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            assertArrayEquals(data, Bech32.decodeToBytes(Bech32.encodeBytes("a", data)));
+            assertArrayEquals(data, Bech32.decodeToBytes(Bech32.encodeBytesUsingOriginalConstant("a", data, 0, length)));
+        }
+    }
+
+    @Test
+    public void encodeBytes_tooLong_throws() {
+        try {
+            Bech32.encodeBytes("a", new byte[Bech32.MAX_DECODED_BYTES + 1]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("length of hrp + length of dp is too large", e.getMessage());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void encodeBytes_badRange_throws() {
+        Bech32.encodeBytes("a", new byte[4], 2, 3);
+    }
+
+    @Test
+    public void encodeTo_matchesEncode() throws IOException {
+        Random random = new Random(14);
+        for (int n = 0; n < 200; n++) {
+            char[] dp = new char[random.nextInt(60)];
+            for (int i = 0; i < dp.length; i++)
+                dp[i] = (char) random.nextInt(32);
+            DecodedResult.Encoding encoding = n % 2 == 0 ? DecodedResult.Encoding.BECH32M : DecodedResult.Encoding.BECH32;
+            String expected = encoding == DecodedResult.Encoding.BECH32M
+                    ? Bech32.encode("bc", dp) : Bech32.encodeUsingOriginalConstant("bc", dp);
+            int length = expected.length();
+            assertEquals(length, Bech32.encodedLength("bc", dp.length));
+
+            StringBuilder sb = new StringBuilder("x");
+            assertEquals(length, Bech32.encodeTo("BC", dp, encoding, sb));
+            assertEquals("x" + expected, sb.toString());
+
+            char[] chars = new char[length + 4];
+            assertEquals(length, Bech32.encodeTo("bc", dp, encoding, chars, 2));
+            assertEquals(expected, new String(chars, 2, length));
+
+            byte[] bytes = new byte[length + 4];
+            assertEquals(length, Bech32.encodeTo("bc", dp, encoding, bytes, 3));
+            assertEquals(expected, new String(bytes, 3, length, StandardCharsets.US_ASCII));
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(length + 1);
+            buffer.put((byte) 'x');
+            assertEquals(length, Bech32.encodeTo("bc", dp, encoding, buffer));
+            assertEquals(length + 1, buffer.position());
+            byte[] written = new byte[length];
+            buffer.position(1);
+            buffer.get(written);
+            assertEquals(expected, new String(written, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void encodeTo_checksRoomBeforeWriting() {
+        char[] dp = {14, 15, 3, 31, 13};
+        char[] chars = new char[16];
+        try {
+            Bech32.encodeTo("hello", dp, DecodedResult.Encoding.BECH32M, chars, 0);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertArrayEquals(new char[16], chars);
+        assertEquals(17, Bech32.encodeTo("hello", dp, DecodedResult.Encoding.BECH32M, new char[17], 0));
+        try {
+            Bech32.encodeTo("hello", dp, DecodedResult.Encoding.BECH32M, new byte[20], 4);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        try {
+            Bech32.encodeTo("hello", dp, DecodedResult.Encoding.BECH32M, buffer);
+            fail();
+        } catch (BufferOverflowException expected) {
+        }
+        assertEquals(0, buffer.position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encodeTo_invalidEncoding_throws() {
+        Bech32.encodeTo("a", new char[0], DecodedResult.Encoding.INVALID, new char[8], 0);
+    }
+
+    @Test
+    public void encode_rejectsHrpCharsOutOfRange() {
+        // "İ" lowercases to two chars under Locale.ROOT, so it must be rejected before sizing
+        for (String hrp : new String[]{"bİ", "a ", "a\u007f", "é"}) {
+            char[] chars = new char[32];
+            try {
+                Bech32.encodeTo(hrp, new char[0], DecodedResult.Encoding.BECH32M, chars, 0);
+                fail(hrp);
+            } catch (Bech32Exception e) {
+                assertEquals(DecodeStatus.OUT_OF_RANGE, e.getStatus());
+                assertEquals(hrp.length() - 1, e.getPosition());
+            }
+            assertArrayEquals(new char[32], chars);
+            try {
+                Bech32.encode(hrp, new char[0]);
+                fail(hrp);
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                new Bech32Checksum(hrp);
+                fail(hrp);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void decodeToBytes_rejectsInvalidPadding() {
+        // one 5-bit value is not a whole byte, and is more than 4 bits of padding
+        try {
+            Bech32.decodeToBytes(Bech32.encode("a", new char[]{0}));
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(DecodeStatus.INVALID_PAYLOAD, e.getStatus());
+            assertEquals("data part has invalid padding", e.getMessage());
+            assertEquals(0, e.getStackTrace().length);
+        }
+        // two 5-bit values hold one byte and two bits of padding, which must be zero
+        try {
+            Bech32.decodeToBytes(Bech32.encode("a", new char[]{0, 1}));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("data part has invalid padding", e.getMessage());
+        }
+    }
+
+    @Test
+    public void decodeToBytes_badChecksum_throws() {
+        try {
+            Bech32.decodeToBytes("a12uel5m");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("bech32 checksum is invalid", e.getMessage());
+        }
+    }
+
+    @Test
+    public void tryDecode_doesNotThrow() {
+        MutableDecodedResult result = Bech32.tryDecode("a12uel5l");
+        assertEquals(DecodeStatus.OK, result.getStatus());
+        assertEquals(Bech32.decode("a12uel5l"), result.toDecodedResult());
+
+        result = Bech32.tryDecode("A12UeL5L");
+        assertEquals(DecodeStatus.MIXED_CASE, result.getStatus());
+        assertEquals(4, result.getErrorPosition());
+        assertFalse(result.isValid());
+
+        assertEquals(DecodeStatus.BAD_CHECKSUM, Bech32.tryDecode("a12uel5m").getStatus());
+    }
+
+    @Test
+    public void validate_reportsStatus() {
+        assertEquals(DecodeStatus.OK, Bech32.validate("a12uel5l"));
+        assertEquals(DecodeStatus.TOO_SHORT, Bech32.validate("a12uel5"));
+        assertEquals(DecodeStatus.NO_SEPARATOR, Bech32.validate("pzry9x0s0muk"));
+        assertEquals(DecodeStatus.BAD_CHECKSUM, Bech32.validate("a12uel5m"));
+    }
+
+    @Test
+    public void decode_throwsStacklessBech32Exception() {
+        try {
+            Bech32.decode("pzry9x0s0muk");
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(DecodeStatus.NO_SEPARATOR, e.getStatus());
+            assertEquals("bech32 string is missing separator character", e.getMessage());
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
 }
@@ -0,0 +1,201 @@
+package design.contract.bech32;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class Bech32ToolTest {
+
+    private static final String P2TR = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+    private static final String P2WPKH = "BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4";
+    private static final String BAD_CHECKSUM = "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t5";
+    private static final String HEADER = "line,input,status,hrp,encoding,output,position,message";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int status;
+    private String err;
+
+    // run the tool over stdin, returning its output lines
+    private List<String> run(String stdin, String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        status = Bech32Tool.run(args, new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8)), out,
+                new PrintStream(errBytes, true));
+        err = new String(errBytes.toByteArray(), StandardCharsets.UTF_8);
+        String output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        return output.isEmpty() ? Arrays.<String>asList() : Arrays.asList(output.split("\n"));
+    }
+
+    @Test
+    public void decode_writesCsvRows() {
+        List<String> lines = run(P2WPKH + "\n\n  " + BAD_CHECKSUM + "  \r\n", "decode");
+        assertEquals(Arrays.asList(HEADER,
+                "1," + P2WPKH + ",OK,bc,BECH32,000e140f070d1a001912060b0d081504140311021d030c1d03040f1814060e1e16,,",
+                "3," + BAD_CHECKSUM + ",BAD_CHECKSUM,,,,,bech32 checksum is invalid"), lines);
+        assertEquals(Bech32Tool.EXIT_INVALID, status);
+        assertTrue(err, err.startsWith("bech32: decode 2 lines (1 valid, 1 invalid)"));
+    }
+
+    @Test
+    public void validate_writesJsonLines() {
+        List<String> lines = run(P2TR + "\nbc1\"\n", "validate", "--format", "jsonl");
+        assertEquals(Arrays.asList(
+                "{\"line\":1,\"input\":\"" + P2TR + "\",\"status\":\"OK\",\"hrp\":\"bc\",\"encoding\":\"BECH32M\"}",
+                "{\"line\":2,\"input\":\"bc1\\\"\",\"status\":\"TOO_SHORT\",\"position\":4," +
+                        "\"message\":\"bech32 string too short\"}"), lines);
+        assertEquals(Bech32Tool.EXIT_INVALID, status);
+    }
+
+    @Test
+    public void encode_roundTripsDecode() {
+        List<String> lines = run("Hello,0e0f031f0d\n0e0f\n", "encode", "--format=jsonl");
+        assertEquals("{\"line\":1,\"input\":\"Hello,0e0f031f0d\",\"status\":\"OK\",\"hrp\":\"hello\"," +
+                "\"encoding\":\"BECH32M\",\"output\":\"hello1w0rldjn365x\"}", lines.get(0));
+        assertTrue(lines.get(1), lines.get(1).contains("\"status\":\"INVALID_INPUT\""));
+
+        lines = run("0e0f031f0d\n20\n", "encode", "--hrp", "hello", "--encoding", "bech32");
+        assertEquals("1,0e0f031f0d,OK,hello,BECH32," + Bech32.encodeUsingOriginalConstant("hello",
+                new char[]{14, 15, 3, 31, 13}) + ",,", lines.get(1));
+        assertTrue(lines.get(2), lines.get(2).startsWith("2,20,INVALID_INPUT,"));
+    }
+
+    @Test
+    public void convert_reencodes() {
+        List<String> lines = run(P2WPKH + "\n", "convert", "--hrp", "tb");
+        DecodedResult decoded = Bech32.decode(P2WPKH);
+        assertEquals("1," + P2WPKH + ",OK,tb,BECH32M," + Bech32.encode("tb", decoded.getDp()) + ",,",
+                lines.get(1));
+        assertEquals(Bech32Tool.EXIT_VALID, status);
+    }
+
+    @Test
+    public void keepsInputOrderAcrossBatchesAndThreads() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            input.append(i % 100 == 99 ? BAD_CHECKSUM : P2TR).append('\n');
+        Path file = folder.newFile().toPath();
+        Files.write(file, input.toString().getBytes(StandardCharsets.US_ASCII));
+
+        List<String> lines = run("", "validate", "--threads", "4", "--batch-size", "7", file.toString(), "-");
+        assertEquals(5001, lines.size());
+        for (int i = 0; i < 5000; i++) {
+            String expected = (i + 1) + "," + (i % 100 == 99 ? BAD_CHECKSUM + ",BAD_CHECKSUM" : P2TR + ",OK");
+            assertTrue(lines.get(i + 1), lines.get(i + 1).startsWith(expected + ","));
+        }
+        assertTrue(err, err.startsWith("bech32: validate 5000 lines (4950 valid, 50 invalid)"));
+    }
+
+    @Test
+    public void failFast_stopsAfterTheFirstInvalidLine() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            input.append(i == 10 ? BAD_CHECKSUM : P2TR).append('\n');
+        List<String> lines = run(input.toString(), "validate", "--fail-fast", "--threads", "3", "--batch-size", "4");
+        assertEquals(12, lines.size());
+        assertTrue(lines.get(11), lines.get(11).startsWith("11," + BAD_CHECKSUM + ",BAD_CHECKSUM"));
+        assertEquals(Bech32Tool.EXIT_INVALID, status);
+        assertTrue(err, err.contains("stopped at the first invalid line"));
+    }
+
+    @Test
+    public void writeError_stopsTheReaderAndWorkers() throws InterruptedException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            input.append(P2TR).append('\n');
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        status = Bech32Tool.run(new String[]{"validate", "--threads", "2", "--batch-size", "4"},
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.US_ASCII)), broken,
+                new PrintStream(errBytes, true));
+        assertEquals(Bech32Tool.EXIT_ERROR, status);
+        assertTrue(new String(errBytes.toByteArray(), StandardCharsets.UTF_8).contains("Broken pipe"));
+
+        // the reader would otherwise stay blocked on the full queue of batches
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (toolThreadsAlive()) {
+            assertTrue("tool threads still running", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void workerError_isReportedAsAnError() {
+        // an Error from inside a worker's decode, as an OutOfMemoryError would be
+        Bech32Metrics.install(new Bech32Metrics() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void onDecode(int length, DecodeStatus status, DecodedResult.Encoding encoding, long nanos) {
+                throw new OutOfMemoryError("simulated");
+            }
+
+            @Override
+            public void onEncode(int length, DecodedResult.Encoding encoding, long nanos) {
+            }
+
+            @Override
+            public Snapshot snapshot() {
+                return emptySnapshot();
+            }
+        });
+        try {
+            StringBuilder input = new StringBuilder();
+            for (int i = 0; i < 100; i++)
+                input.append(P2TR).append('\n');
+            run(input.toString(), "validate", "--threads", "1", "--batch-size", "4");
+        } finally {
+            Bech32Metrics.uninstall();
+        }
+        assertEquals(Bech32Tool.EXIT_ERROR, status);
+        assertEquals("bech32: internal error: java.lang.OutOfMemoryError: simulated" + System.lineSeparator(), err);
+    }
+
+    private static boolean toolThreadsAlive() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("bech32-reader") || thread.getName().startsWith("bech32-worker"))
+                return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void rejectsBadUsage() {
+        assertEquals(Arrays.<String>asList(), run("", "frobnicate"));
+        assertEquals(Bech32Tool.EXIT_ERROR, status);
+        assertTrue(err, err.contains("unknown mode: frobnicate"));
+        run("", "decode", "--threads", "0");
+        assertEquals(Bech32Tool.EXIT_ERROR, status);
+        run("", "validate", "--hrp", "bc");
+        assertEquals(Bech32Tool.EXIT_ERROR, status);
+    }
+
+    @Test
+    public void reportsMissingFiles() {
+        run("", "validate", folder.getRoot().toPath().resolve("missing.txt").toString());
+        assertEquals(Bech32Tool.EXIT_ERROR, status);
+        assertTrue(err, err.contains("missing.txt"));
+    }
+}
@@ -0,0 +1,95 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ChecksumEngineTest {
+
+    @Test
+    public void polymod_short() {
+        char[] e = Bech32.Impl.expandHrp("A").toCharArray();
+        for (ChecksumEngine engine : ChecksumEngine.values()) {
+            assertEquals(engine.name(), 34817, engine.polymod(e));
+        }
+    }
+
+    @Test
+    public void polymod_long() {
+        char[] e = Bech32.Impl.expandHrp("qwerty").toCharArray();
+        for (ChecksumEngine engine : ChecksumEngine.values()) {
+            assertEquals(engine.name(), 448484437, engine.polymod(e));
+        }
+    }
+
+    @Test
+    public void polymod_empty_isOne() {
+        for (ChecksumEngine engine : ChecksumEngine.values()) {
+            assertEquals(engine.name(), 1, engine.polymod(new char[0]));
+        }
+    }
+
+    @Test
+    public void polymod_randomInputs_matchesReference() {
+        Random random = new Random(42);
+        for (int length = 0; length <= Bech32.Limits.MAX_BECH32_LENGTH * 2; length++) {
+            char[] values = new char[length];
+            for (int i = 0; i < length; i++)
+                values[i] = (char) random.nextInt(32);
+            long expected = Bech32.Impl.polymod(values);
+            for (ChecksumEngine engine : ChecksumEngine.values()) {
+                assertEquals(engine.name() + " length " + length, expected, engine.polymod(values));
+            }
+        }
+    }
+
+    @Test
+    public void polymod_withOffset_matchesReference() {
+        char[] values = {31, 1, 2, 3, 4, 5, 6, 31};
+        long expected = Bech32.Impl.polymod(new char[]{1, 2, 3, 4, 5, 6});
+        for (ChecksumEngine engine : ChecksumEngine.values()) {
+            assertEquals(engine.name(), expected, engine.polymod(1, values, 1, 6));
+        }
+    }
+
+    @Test
+    public void step2_equalsTwoSteps() {
+        Random random = new Random(7);
+        for (int n = 0; n < 10000; n++) {
+            long chk = random.nextInt(1 << 30);
+            int first = random.nextInt(32);
+            int second = random.nextInt(32);
+            long expected = Bech32.Impl.polymodStep(Bech32.Impl.polymodStep(chk, first), second);
+            for (ChecksumEngine engine : ChecksumEngine.values()) {
+                assertEquals(engine.name(), expected, engine.step2(chk, first, second));
+            }
+        }
+    }
+
+    @Test
+    public void fromProperty() {
+        assertEquals(ChecksumEngine.TABLE_10BIT, ChecksumEngine.fromProperty(null));
+        assertEquals(ChecksumEngine.TABLE_10BIT, ChecksumEngine.fromProperty(""));
+        assertEquals(ChecksumEngine.TABLE_10BIT, ChecksumEngine.fromProperty("nonsense"));
+        assertEquals(ChecksumEngine.REFERENCE, ChecksumEngine.fromProperty("REFERENCE"));
+        assertEquals(ChecksumEngine.TABLE, ChecksumEngine.fromProperty(" table "));
+    }
+
+    @Test
+    public void decoder_withEachEngine_decodes() {
+        String[] bstrings = {"a12uel5l", "a1lqfn3a", "abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx",
+                "split1checkupstagehandshakeupstreamerranterredcaperred2y9e3w"};
+        for (ChecksumEngine engine : ChecksumEngine.values()) {
+            Bech32Decoder decoder = new Bech32Decoder(engine);
+            for (String bstring : bstrings) {
+                DecodedResult expected = Bech32.decode(bstring);
+                assertEquals(engine.name(), expected, decoder.decode(bstring));
+            }
+            assertEquals(DecodedResult.Encoding.INVALID,
+                    decoder.decode("a12uel5m", new MutableDecodedResult()));
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompactDecodedResultTest {
+
+    @Test
+    public void of_roundTripsEveryLength() {
+        Random random = new Random(3);
+        for (int length = 0; length <= MutableDecodedResult.MAX_DP_LENGTH; length++) {
+            char[] dp = new char[length];
+            for (int i = 0; i < length; i++)
+                dp[i] = (char) random.nextInt(32);
+            CompactDecodedResult compact = CompactDecodedResult.of("hrp", dp, DecodedResult.Encoding.BECH32M);
+            assertEquals(length, compact.getDpLength());
+            assertArrayEquals(dp, compact.getDp());
+            for (int i = 0; i < length; i++)
+                assertEquals(dp[i], compact.dpAt(i));
+            assertEquals(new DecodedResult("hrp", dp, DecodedResult.Encoding.BECH32M), compact.toDecodedResult());
+        }
+    }
+
+    @Test
+    public void of_decodedResultMutableResultAndViewAgree() {
+        String bstring = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+        DecodedResult decoded = Bech32.decode(bstring);
+        MutableDecodedResult mutable = Bech32.tryDecode(bstring);
+        CompactDecodedResult compact = CompactDecodedResult.of(decoded);
+        assertEquals(compact, CompactDecodedResult.of(mutable));
+        assertEquals(compact, CompactDecodedResult.of(Bech32.decodeView(bstring)));
+        assertEquals(decoded, compact.toDecodedResult());
+        assertEquals("bc", compact.getHrp());
+        assertEquals(DecodedResult.Encoding.BECH32M, compact.getEncoding());
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        char[] dp = {1, 2, 3};
+        CompactDecodedResult a = CompactDecodedResult.of("bc", dp, DecodedResult.Encoding.BECH32);
+        CompactDecodedResult b = CompactDecodedResult.of("bc", dp.clone(), DecodedResult.Encoding.BECH32);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, CompactDecodedResult.of("tb", dp, DecodedResult.Encoding.BECH32));
+        assertNotEquals(a, CompactDecodedResult.of("bc", dp, DecodedResult.Encoding.BECH32M));
+        assertNotEquals(a, CompactDecodedResult.of("bc", new char[]{1, 2, 4}, DecodedResult.Encoding.BECH32));
+        // the same packed bytes, but a different number of values
+        assertNotEquals(CompactDecodedResult.of("bc", new char[]{0}, DecodedResult.Encoding.BECH32),
+                CompactDecodedResult.of("bc", new char[]{0, 0}, DecodedResult.Encoding.BECH32));
+    }
+
+    @Test
+    public void worksAsMapKey() {
+        Map<CompactDecodedResult, Integer> map = new HashMap<>();
+        for (int i = 0; i < 100; i++)
+            map.put(CompactDecodedResult.of("bc", new char[]{(char) (i & 31), (char) (i >> 5)}, DecodedResult.Encoding.BECH32M), i);
+        for (int i = 0; i < 100; i++)
+            assertEquals(Integer.valueOf(i), map.get(CompactDecodedResult.of("bc", new char[]{(char) (i & 31), (char) (i >> 5)},
+                    DecodedResult.Encoding.BECH32M)));
+    }
+
+    @Test
+    public void isNotAffectedByChangesToTheSource() {
+        char[] dp = {1, 2, 3};
+        CompactDecodedResult compact = CompactDecodedResult.of("bc", dp, DecodedResult.Encoding.BECH32);
+        dp[0] = 9;
+        compact.getDp()[1] = 9;
+        assertArrayEquals(new char[]{1, 2, 3}, compact.getDp());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_valueOutOfRange_throws() {
+        CompactDecodedResult.of("bc", new char[]{32}, DecodedResult.Encoding.BECH32);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_invalidMutableResult_throws() {
+        CompactDecodedResult.of(Bech32.tryDecode("a12uel5m"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void copyDp_tooSmall_throws() {
+        CompactDecodedResult.of("bc", new char[]{1, 2, 3}, DecodedResult.Encoding.BECH32).copyDp(new char[3], 1);
+    }
+}
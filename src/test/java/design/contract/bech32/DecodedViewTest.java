@@ -0,0 +1,119 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DecodedViewTest {
+
+    private static final String[] VALID = {
+            "A12UEL5L",
+            "a12uel5l",
+            "an83characterlonghumanreadablepartthatcontainsthenumber1andtheexcludedcharactersbio1tt5tgs",
+            "abcdef1qpzry9x8gf2tvdw0s3jn54khce6mua7lmqqqxw",
+            "split1checkupstagehandshakeupstreamerranterredcaperred2y9e3w",
+            "?1ezyfcl",
+            "A1LQFN3A",
+            "abcdef1l7aum6echk45nj3s0wdvt2fg8x9yrzpqzd3ryx",
+            "split1checkupstagehandshakeupstreamerranterredcaperredlc445v",
+            "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0",
+            "BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4"
+    };
+
+    @Test
+    public void decodeView_matchesDecode() {
+        for (String bstring : VALID) {
+            DecodedView view = Bech32.decodeView(bstring);
+            DecodedResult expected = Bech32.decode(bstring);
+            assertSame(bstring, view.getInput());
+            assertEquals(bstring, expected.getEncoding(), view.getEncoding());
+            assertEquals(bstring, expected.getHrp(), view.getHrp());
+            assertArrayEquals(bstring, expected.getDp(), view.getDp());
+            assertEquals(bstring, expected.getHrp().length(), view.getHrpLength());
+            assertEquals(bstring, expected.getDp().length, view.getDpLength());
+            for (int i = 0; i < view.getDpLength(); i++)
+                assertEquals(bstring, expected.getDp()[i], view.dpAt(i));
+            assertEquals(bstring, expected, view.toDecodedResult());
+        }
+    }
+
+    @Test
+    public void getHrp_isCachedAndGetDpIsCopied() {
+        DecodedView view = Bech32.decodeView("ABCDEF1QPZRY9X8GF2TVDW0S3JN54KHCE6MUA7LMQQQXW");
+        assertSame(view.getHrp(), view.getHrp());
+        char[] dp = view.getDp();
+        Arrays.fill(dp, 'x');
+        assertNotEquals('x', view.getDp()[0]);
+    }
+
+    @Test
+    public void hrpEquals_ignoresCase() {
+        DecodedView view = Bech32.decodeView("BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4");
+        assertTrue(view.hrpEquals("bc"));
+        assertTrue(view.hrpEquals("BC"));
+        assertFalse(view.hrpEquals("tb"));
+        assertFalse(view.hrpEquals("b"));
+        assertFalse(view.hrpEquals(null));
+    }
+
+    @Test
+    public void decodeView_badChecksum_isInvalid() {
+        DecodedView view = Bech32.decodeView("a12uel5m");
+        assertFalse(view.isValid());
+        assertEquals(DecodedResult.Encoding.INVALID, view.getEncoding());
+        assertNull(view.getHrp());
+        assertNull(view.getDp());
+        assertEquals(1, view.getSeparatorIndex());
+    }
+
+    @Test
+    public void decodeView_malformed_throws() {
+        try {
+            Bech32.decodeView("a1b2uel5l");
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(DecodeStatus.INVALID_CHAR, e.getStatus());
+            assertEquals(2, e.getPosition());
+        }
+    }
+
+    @Test
+    public void decodeView_separatorIsTheLastOne() {
+        DecodedView view = Bech32.decodeView("an83characterlonghumanreadablepartthatcontainsthenumber1andtheexcludedcharactersbio1tt5tgs");
+        assertEquals(83, view.getSeparatorIndex());
+    }
+
+    @Test
+    public void verify_matchesDecodeAndHrp() {
+        for (String bstring : VALID) {
+            DecodedResult decoded = Bech32.decode(bstring);
+            assertEquals(bstring, decoded.getEncoding(), Bech32.verify(bstring, decoded.getHrp()));
+            assertEquals(bstring, decoded.getEncoding(), Bech32.verify(bstring, decoded.getHrp().toUpperCase()));
+            assertEquals(bstring, DecodedResult.Encoding.INVALID, Bech32.verify(bstring, decoded.getHrp() + "x"));
+            assertEquals(bstring, DecodedResult.Encoding.INVALID, Bech32.verify(bstring, "x" + decoded.getHrp().substring(1)));
+        }
+    }
+
+    @Test
+    public void verify_rejectsWithoutThrowing() {
+        String[] rejected = {
+                "", "a", "a12uel5m", "A12uEL5L", "a1b2uel5l", "a12uel5lé", "a 12uel5l", "1pzry9x0s0muk",
+                "a1" + "qqqq"
+        };
+        for (String bstring : rejected)
+            assertEquals(bstring, DecodedResult.Encoding.INVALID, Bech32.verify(bstring, "a"));
+        assertEquals(DecodedResult.Encoding.INVALID, Bech32.verify("a12uel5l", ""));
+    }
+
+    @Test
+    public void verify_matchesForEveryEngine() {
+        for (ChecksumEngine engine : ChecksumEngine.values()) {
+            Bech32Decoder decoder = new Bech32Decoder(engine);
+            assertEquals(DecodedResult.Encoding.BECH32M,
+                    decoder.verify("bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0", "bc"));
+            assertEquals(DecodedResult.Encoding.BECH32, decoder.verify("a12uel5l", "a"));
+        }
+    }
+}
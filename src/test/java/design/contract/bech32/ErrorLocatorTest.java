@@ -0,0 +1,167 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static design.contract.bech32.DecodedResult.Encoding.BECH32;
+import static design.contract.bech32.DecodedResult.Encoding.BECH32M;
+import static design.contract.bech32.DecodedResult.Encoding.INVALID;
+import static org.junit.Assert.*;
+
+public class ErrorLocatorTest {
+
+    @Test
+    public void tables_areInverse() {
+        for (int i = 0; i < 31; i++)
+            assertEquals(i, ErrorLocator.GF32_LOG[ErrorLocator.GF32_EXP[i]]);
+        for (int i = 0; i < 1023; i++)
+            assertEquals(i, ErrorLocator.GF1024_LOG[ErrorLocator.GF1024_EXP[i]]);
+        assertEquals(-1, ErrorLocator.GF1024_LOG[0]);
+    }
+
+    @Test
+    public void syndrome_ofZeroResidue_isZero() {
+        assertEquals(0, ErrorLocator.syndrome(0));
+    }
+
+    @Test
+    public void locate_validString_hasNoErrors() {
+        ErrorLocation location = Bech32.locateErrors("a12uel5l");
+        assertTrue(location.isValid());
+        assertFalse(location.isCorrectable());
+        assertEquals(BECH32, location.getEncoding());
+        assertEquals(BECH32M, Bech32.locateErrors("a1lqfn3a").getEncoding());
+    }
+
+    @Test
+    public void locate_singleError() {
+        // bech32m "bc1p..." with the '7' at index 53 replaced by 'x'
+        String valid = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+        String broken = valid.substring(0, 53) + 'x' + valid.substring(54);
+        ErrorLocation location = Bech32.locateErrors(broken);
+        assertEquals(BECH32M, location.getEncoding());
+        assertArrayEquals(new int[]{53}, location.getPositions());
+        assertArrayEquals(new char[]{'7'}, location.getCorrections());
+        assertEquals(valid, location.apply(broken));
+    }
+
+    @Test
+    public void locate_keepsCase() {
+        String valid = "BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4";
+        String broken = valid.substring(0, 10) + 'Q' + valid.substring(11);
+        ErrorLocation location = Bech32.locateErrors(broken);
+        assertEquals(BECH32, location.getEncoding());
+        assertEquals(valid, location.apply(broken));
+    }
+
+    @Test
+    public void locate_randomSingleAndDoubleErrors() {
+        Random random = new Random(13);
+        for (int n = 0; n < 2000; n++) {
+            char[] dp = new char[random.nextInt(60)];
+            for (int i = 0; i < dp.length; i++)
+                dp[i] = (char) random.nextInt(32);
+            boolean m = random.nextBoolean();
+            String valid = m ? Bech32.encode("tb", dp) : Bech32.encodeUsingOriginalConstant("tb", dp);
+
+            int errors = 1 + random.nextInt(2);
+            char[] chars = valid.toCharArray();
+            int first = 3 + random.nextInt(chars.length - 3);
+            int second = first;
+            while (errors == 2 && second == first)
+                second = 3 + random.nextInt(chars.length - 3);
+            substitute(chars, first, random);
+            if (errors == 2)
+                substitute(chars, second, random);
+            String broken = new String(chars);
+
+            ErrorLocation location = Bech32.locateErrors(broken);
+            assertEquals(broken, m ? BECH32M : BECH32, location.getEncoding());
+            assertEquals(broken, errors, location.getErrorCount());
+            assertEquals(broken, valid, location.apply(broken));
+            assertEquals(broken, Math.min(first, second), location.getPositions()[0]);
+        }
+    }
+
+    @Test
+    public void locate_tooManyErrors_usuallyNotCorrectable() {
+        Random random = new Random(14);
+        int correctable = 0;
+        for (int n = 0; n < 500; n++) {
+            char[] dp = new char[40];
+            for (int i = 0; i < dp.length; i++)
+                dp[i] = (char) random.nextInt(32);
+            char[] chars = Bech32.encode("bc", dp).toCharArray();
+            for (int i = 0; i < 6; i++)
+                substitute(chars, 3 + random.nextInt(chars.length - 3), random);
+            ErrorLocation location = Bech32.locateErrors(new String(chars));
+            if (location.isCorrectable()) {
+                correctable++;
+                assertNotEquals(INVALID, location.getEncoding());
+                // whatever was suggested must at least verify
+                assertEquals(location.getEncoding(), Bech32.decode(location.apply(new String(chars))).getEncoding());
+            } else {
+                assertEquals(INVALID, location.getEncoding());
+            }
+        }
+        assertTrue(correctable < 500);
+    }
+
+    @Test
+    public void locate_underEachEncoding() {
+        String valid = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+        String broken = valid.substring(0, 53) + 'x' + valid.substring(54);
+        ErrorLocation bech32m = Bech32.locateErrors(broken, BECH32M);
+        assertEquals(Bech32.locateErrors(broken), bech32m);
+        ErrorLocation bech32 = Bech32.locateErrors(broken, BECH32);
+        if (bech32.isCorrectable()) {
+            assertEquals(BECH32, bech32.getEncoding());
+            assertEquals(BECH32, Bech32.decode(bech32.apply(broken)).getEncoding());
+        } else {
+            assertEquals(INVALID, bech32.getEncoding());
+        }
+
+        assertTrue(Bech32.locateErrors(valid, BECH32M).isValid());
+        // a valid bech32m string needs corrections to verify as bech32, if it can at all
+        assertFalse(Bech32.locateErrors(valid, BECH32).isValid());
+    }
+
+    @Test
+    public void locate_randomErrorsUnderBothEncodings() {
+        Random random = new Random(15);
+        for (int n = 0; n < 500; n++) {
+            char[] dp = new char[random.nextInt(60)];
+            for (int i = 0; i < dp.length; i++)
+                dp[i] = (char) random.nextInt(32);
+            char[] chars = Bech32.encode("tb", dp).toCharArray();
+            substitute(chars, 3 + random.nextInt(chars.length - 3), random);
+            String broken = new String(chars);
+            ErrorLocation best = Bech32.locateErrors(broken);
+            ErrorLocation bech32 = Bech32.locateErrors(broken, BECH32);
+            ErrorLocation bech32m = Bech32.locateErrors(broken, BECH32M);
+            assertEquals(broken, 1, bech32m.getErrorCount());
+            assertTrue(broken, best.equals(bech32) || best.equals(bech32m));
+            for (ErrorLocation location : new ErrorLocation[]{bech32, bech32m}) {
+                if (location.isCorrectable())
+                    assertEquals(broken, location.getEncoding(), Bech32.decode(location.apply(broken)).getEncoding());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void locate_invalidEncoding_throws() {
+        Bech32.locateErrors("a12uel5l", INVALID);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void locate_malformed_throws() {
+        Bech32.locateErrors("a1b2uel5l");
+    }
+
+    private static void substitute(char[] chars, int index, Random random) {
+        int value = Bech32.REVERSE_CHARSET[chars[index]];
+        char c = Bech32.CHARSET.charAt((value + 1 + random.nextInt(31)) % 32);
+        chars[index] = Character.isUpperCase(chars[index]) ? Character.toUpperCase(c) : c;
+    }
+}
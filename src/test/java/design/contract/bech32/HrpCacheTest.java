@@ -0,0 +1,112 @@
+package design.contract.bech32;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HrpCacheTest {
+
+    @Before
+    public void clear() {
+        HrpCache.clear();
+    }
+
+    @Test
+    public void get_residueMatchesPolymodOfExpandedHrp() {
+        for (String hrp : new String[]{"a", "bc", "tb", "bcrt", "an83characterlonghumanreadablepart"}) {
+            long expected = Bech32.Impl.polymod(Bech32.Impl.expandHrp(hrp).toCharArray());
+            assertEquals(hrp, expected, HrpCache.get(hrp).residue);
+        }
+    }
+
+    @Test
+    public void get_lowercasesHrp() {
+        HrpCache.HrpState entry = HrpCache.get("BC");
+        assertEquals("bc", entry.hrp);
+        assertSame(entry, HrpCache.get("bc"));
+        assertEquals(1, HrpCache.size());
+    }
+
+    @Test
+    public void lookup_byChars() {
+        HrpCache.HrpState entry = HrpCache.get("tb");
+        char[] chars = {'t', 'b', 'x'};
+        HrpCache.Key probe = new HrpCache.Key();
+        assertSame(entry, HrpCache.lookup(probe.set(chars, 2, HrpCache.hash(chars, 2))));
+        assertNull(HrpCache.lookup(probe.set(chars, 3, HrpCache.hash(chars, 3))));
+    }
+
+    @Test
+    public void put_addsEntryOnce() {
+        char[] chars = {'b', 'c', 'r', 't'};
+        HrpCache.Key probe = new HrpCache.Key().set(chars, 4, HrpCache.hash(chars, 4));
+        HrpCache.HrpState entry = HrpCache.put(probe);
+        assertEquals("bcrt", entry.hrp);
+        assertSame(entry, HrpCache.put(probe));
+        assertSame(entry, HrpCache.get("bcrt"));
+    }
+
+    @Test
+    public void cache_isBounded() {
+        for (int i = 0; i < HrpCache.DEFAULT_CAPACITY * 3; i++)
+            HrpCache.get("hrp" + i);
+        assertEquals(HrpCache.DEFAULT_CAPACITY, HrpCache.size());
+    }
+
+    @Test
+    public void cache_evictsLeastRecentlyUsed() {
+        HrpCache.HrpState bc = HrpCache.get("bc");
+        for (int i = 0; i < HrpCache.DEFAULT_CAPACITY * 3; i++) {
+            HrpCache.get("hrp" + i);
+            HrpCache.get("bc");
+        }
+        assertSame(bc, HrpCache.get("bc"));
+        HrpCache.HrpState first = HrpCache.get("hrp0");
+        assertEquals("hrp0", first.hrp);
+    }
+
+    @Test
+    public void decode_addsOnlyVerifiedHrps() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        decoder.decode("a12uel5m", result); // bad checksum
+        assertEquals(0, HrpCache.size());
+        decoder.decode("a12uel5l", result);
+        assertEquals(1, HrpCache.size());
+        assertEquals("a", HrpCache.get("a").hrp);
+    }
+
+    @Test
+    public void capacity_fromProperty() {
+        assertEquals(HrpCache.DEFAULT_CAPACITY, HrpCache.capacity(null));
+        assertEquals(HrpCache.DEFAULT_CAPACITY, HrpCache.capacity("nonsense"));
+        assertEquals(HrpCache.DEFAULT_CAPACITY, HrpCache.capacity("0"));
+        assertEquals(8, HrpCache.capacity(" 8 "));
+    }
+
+    @Test
+    public void get_isConsistentAcrossThreads() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    HrpCache.HrpState state = HrpCache.get(i % 2 == 0 ? "BC" : "hrp" + (i + offset) % 100);
+                    String expected = i % 2 == 0 ? "bc" : "hrp" + (i + offset) % 100;
+                    if (!state.hrp.equals(expected)
+                            || state.residue != Bech32.Impl.polymod(Bech32.Impl.expandHrp(expected).toCharArray()))
+                        failures.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(0, failures.get());
+        assertTrue(HrpCache.size() <= HrpCache.DEFAULT_CAPACITY);
+    }
+}
@@ -0,0 +1,98 @@
+package design.contract.bech32;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class HrpPoolTest {
+
+    @Before
+    public void clear() {
+        HrpPool.clear();
+    }
+
+    @Test
+    public void intern_returnsCanonicalLowercaseInstance() {
+        String first = HrpPool.intern(new StringBuilder("BC"));
+        assertEquals("bc", first);
+        assertSame(first, HrpPool.intern("bc"));
+        assertSame(first, HrpPool.intern(new char[]{'b', 'c', 'x'}, 2));
+        assertSame(first, HrpPool.intern("xBCx", 1, 2));
+        assertEquals(1, HrpPool.size());
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        HrpPool.intern("bc");
+        HrpPool.intern("bc");
+        HrpPool.intern("tb");
+        HrpPool.intern("bc");
+        assertEquals(2, HrpPool.getHits());
+        assertEquals(2, HrpPool.getMisses());
+    }
+
+    @Test
+    public void decode_sharesHrpInstances() {
+        DecodedResult a = Bech32.decode("bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0");
+        DecodedResult b = Bech32.decode("BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4");
+        assertSame(a.getHrp(), b.getHrp());
+        assertSame(a.getHrp(), Bech32.decodeView("BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4").getHrp());
+        assertSame(a.getHrp(), Bech32.tryDecode("bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0").getHrp());
+    }
+
+    @Test
+    public void staysBounded() {
+        for (int i = 0; i < HrpPool.capacity() * 4; i++)
+            assertEquals("h" + i, HrpPool.intern("h" + i));
+        assertTrue(HrpPool.size() <= HrpPool.capacity());
+        assertEquals(HrpPool.capacity() * 4L, HrpPool.getMisses());
+        // a replaced HRP still comes back equal
+        assertEquals("h0", HrpPool.intern("h0"));
+    }
+
+    @Test
+    public void intern_concurrentCallsAgree() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    String[] seen = new String[64];
+                    for (int round = 0; round < 100; round++) {
+                        for (int i = 0; i < seen.length; i++) {
+                            String s = HrpPool.intern("hrp" + i);
+                            assertEquals("hrp" + i, s);
+                            seen[i] = s;
+                        }
+                    }
+                    return seen;
+                }));
+            }
+            String[] first = futures.get(0).get();
+            for (Future<String[]> future : futures) {
+                String[] seen = future.get();
+                for (int i = 0; i < seen.length; i++)
+                    assertSame(first[i], seen[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void capacity_roundsUpToPowerOfTwo() {
+        assertEquals(HrpPool.DEFAULT_CAPACITY, HrpPool.capacity(null));
+        assertEquals(HrpPool.DEFAULT_CAPACITY, HrpPool.capacity("x"));
+        assertEquals(HrpPool.DEFAULT_CAPACITY, HrpPool.capacity("-5"));
+        assertEquals(1, HrpPool.capacity("1"));
+        assertEquals(128, HrpPool.capacity("100"));
+        assertEquals(256, HrpPool.capacity(" 256 "));
+    }
+}
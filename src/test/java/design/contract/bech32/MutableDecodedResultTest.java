@@ -0,0 +1,82 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MutableDecodedResultTest {
+
+    @Test
+    public void newResult_isInvalidAndEmpty() {
+        MutableDecodedResult result = new MutableDecodedResult();
+        assertFalse(result.isValid());
+        assertEquals(DecodedResult.Encoding.INVALID, result.getEncoding());
+        assertEquals(0, result.getHrpLength());
+        assertEquals(0, result.getDpLength());
+        assertNull(result.getHrp());
+        assertNull(result.getDp());
+    }
+
+    @Test
+    public void set_exposesBuffers() {
+        MutableDecodedResult result = new MutableDecodedResult();
+        result.hrpBuffer()[0] = 'h';
+        result.hrpBuffer()[1] = 'i';
+        result.dpBuffer()[0] = 7;
+        result.set(2, 1, DecodedResult.Encoding.BECH32);
+
+        assertEquals("hi", result.getHrp());
+        assertArrayEquals(new char[]{7}, result.getDp());
+        assertTrue(result.hrpEquals("hi"));
+        assertFalse(result.hrpEquals("ho"));
+        assertFalse(result.hrpEquals("hii"));
+        assertFalse(result.hrpEquals(null));
+    }
+
+    @Test
+    public void copyHrpAndDp() {
+        MutableDecodedResult result = new MutableDecodedResult();
+        result.hrpBuffer()[0] = 'b';
+        result.hrpBuffer()[1] = 'c';
+        result.dpBuffer()[0] = 1;
+        result.dpBuffer()[1] = 2;
+        result.set(2, 2, DecodedResult.Encoding.BECH32M);
+
+        char[] dst = new char[4];
+        assertEquals(2, result.copyHrp(dst, 1));
+        assertArrayEquals(new char[]{0, 'b', 'c', 0}, dst);
+        assertEquals(2, result.copyDp(dst, 2));
+        assertArrayEquals(new char[]{0, 'b', 1, 2}, dst);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void hrpCharAt_pastLength_throws() {
+        new MutableDecodedResult().hrpCharAt(0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void dpAt_pastLength_throws() {
+        new MutableDecodedResult().dpAt(0);
+    }
+
+    @Test
+    public void toDecodedResult_equalsImmutableCopy() {
+        MutableDecodedResult result = new MutableDecodedResult();
+        result.hrpBuffer()[0] = 'a';
+        result.dpBuffer()[0] = 3;
+        result.set(1, 1, DecodedResult.Encoding.BECH32M);
+
+        assertEquals(new DecodedResult("a", new char[]{3}, DecodedResult.Encoding.BECH32M), result.toDecodedResult());
+    }
+
+    @Test
+    public void clear_resetsResult() {
+        MutableDecodedResult result = new MutableDecodedResult();
+        result.set(1, 1, DecodedResult.Encoding.BECH32M);
+        result.clear();
+        assertFalse(result.isValid());
+        assertEquals(0, result.getHrpLength());
+        assertEquals(0, result.getDpLength());
+    }
+
+}
@@ -0,0 +1,212 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SegwitAddressTest {
+
+    // BIP-0350 test vectors, with the scriptPubKey each address stands for
+    private static final String[][] VALID = {
+            {"BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4", "0014751e76e8199196d454941c45d1b3a323f1433bd6"},
+            {"tb1qrp33g0q5c5txsp9arysrx4k6zdkfs4nce4xj0gdcccefvpysxf3q0sl5k7", "00201863143c14c5166804bd19203356da136c985678cd4d27a1b8c6329604903262"},
+            {"bc1pw508d6qejxtdg4y5r3zarvary0c5xw7kw508d6qejxtdg4y5r3zarvary0c5xw7kt5nd6y", "5128751e76e8199196d454941c45d1b3a323f1433bd6751e76e8199196d454941c45d1b3a323f1433bd6"},
+            {"BC1SW50QGDZ25J", "6002751e"},
+            {"bc1zw508d6qejxtdg4y5r3zarvaryvaxxpcs", "5210751e76e8199196d454941c45d1b3a323"},
+            {"tb1qqqqqp399et2xygdj5xreqhjjvcmzhxw4aywxecjdzew6hylgvsesrxh6hy", "0020000000c4a5cad46221b2a187905e5266362b99d5e91c6ce24d165dab93e86433"},
+            {"tb1pqqqqp399et2xygdj5xreqhjjvcmzhxw4aywxecjdzew6hylgvsesf3hn0c", "5120000000c4a5cad46221b2a187905e5266362b99d5e91c6ce24d165dab93e86433"},
+            {"bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0", "512079be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798"},
+    };
+
+    private static final String[] INVALID = {
+            "tc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq5zuyut", // invalid HRP
+            "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqh2y7hd", // bech32 instead of bech32m
+            "tb1z0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqglt7rf",
+            "BC1S0XLXVLHEMJA6C4DQV22UAPCTQUPFHLXM9H8Z3K2E72Q4K9HCZ7VQ54WELL",
+            "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kemeawh",                     // bech32m instead of bech32
+            "tb1q0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq24jc47",
+            "bc1p38j9r5y49hruaue7wxjce0updqjuyyx0kh56v8s25huc6995vvpql3jow4", // invalid character
+            "BC130XLXVLHEMJA6C4DQV22UAPCTQUPFHLXM9H8Z3K2E72Q4K9HCZ7VQ7ZWS8R", // version 17
+            "bc1pw5dgrnzv",                                                   // 1 byte program
+            "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7v8n0nx0muaewav253zgeav", // 41 byte program
+            "BC1QR508D6QEJXTDG4Y5R3ZARVARYV98GJ9P",                           // 16 byte version 0 program
+            "tb1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq47Zagq", // mixed case
+            "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7v07qwwzcrf", // too much padding
+            "tb1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vpggkg4j", // non-zero padding
+            "bc1gmk9yu",                                                      // empty data part
+    };
+
+    @Test
+    public void decode_validVectors() {
+        for (String[] vector : VALID) {
+            String hrp = vector[0].toLowerCase().startsWith("bc") ? "bc" : "tb";
+            SegwitAddress address = SegwitAddress.decode(hrp, vector[0]);
+            assertEquals(vector[0], vector[1], toHex(scriptPubKey(address)));
+            assertEquals(hrp, address.getHrp());
+            assertEquals(vector[0].toLowerCase(), address.encode());
+            assertEquals(address.getVersion() == 0 ? DecodedResult.Encoding.BECH32 : DecodedResult.Encoding.BECH32M,
+                    address.getEncoding());
+        }
+    }
+
+    @Test
+    public void decode_invalidVectors() {
+        for (String vector : INVALID) {
+            for (String hrp : new String[]{"bc", "tb"}) {
+                try {
+                    SegwitAddress.decode(hrp, vector);
+                    fail(vector);
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test
+    public void decode_messages() {
+        assertMessage("bech32 checksum is invalid", "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj2");
+        assertMessage("version 1+ witness program must use bech32m", "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqh2y7hd");
+        assertMessage("version 0 witness program must use bech32", "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kemeawh");
+        assertMessage("witness version is out of range", "BC130XLXVLHEMJA6C4DQV22UAPCTQUPFHLXM9H8Z3K2E72Q4K9HCZ7VQ7ZWS8R");
+        assertMessage("witness program length is out of range", "bc1pw5dgrnzv");
+        assertMessage("witness program length is out of range", "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7v8n0nx0muaewav253zgeav");
+        assertMessage("version 0 witness program must be 20 or 32 bytes", "BC1QR508D6QEJXTDG4Y5R3ZARVARYV98GJ9P");
+        assertMessage("witness program has invalid padding", "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7v07qwwzcrf");
+        assertMessage("witness program has invalid padding", "tb1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vpggkg4j");
+        assertMessage("witness version is missing", "bc1gmk9yu");
+        assertMessage("bech32 string is mixed case", "tb1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq47Zagq");
+    }
+
+    @Test
+    public void decode_wrongHrp() {
+        try {
+            SegwitAddress.decode("tb", "BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4");
+            fail();
+        } catch (Bech32Exception e) {
+            assertEquals(DecodeStatus.HRP_MISMATCH, e.getStatus());
+            assertEquals("HRP does not match expected HRP", e.getMessage());
+        }
+    }
+
+    @Test
+    public void decode_anyHrp() {
+        SegwitAddress address = SegwitAddress.decode("tc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq5zuyut");
+        assertEquals("tc", address.getHrp());
+        assertEquals(1, address.getVersion());
+        assertEquals(32, address.getProgramLength());
+    }
+
+    @Test
+    public void decoder_reusable() {
+        Bech32Decoder decoder = new Bech32Decoder();
+        MutableDecodedResult result = new MutableDecodedResult();
+        byte[] program = new byte[SegwitAddress.MAX_PROGRAM_LENGTH];
+        for (String[] vector : VALID) {
+            int length = decoder.decodeSegwit(vector[0], result, program);
+            SegwitAddress address = SegwitAddress.decode(vector[0]);
+            assertEquals(address.getVersion(), result.dpAt(0));
+            assertArrayEquals(address.getProgram(), Arrays.copyOf(program, length));
+        }
+        // plain decoding on the same instance is unaffected
+        assertEquals(DecodedResult.Encoding.BECH32, decoder.decode("a12uel5l", result));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decoder_smallProgramBuffer_throws() {
+        new Bech32Decoder().decodeSegwit(VALID[0][0], new MutableDecodedResult(), new byte[20]);
+    }
+
+    @Test
+    public void encode_roundTrip() {
+        for (int version = 0; version <= SegwitAddress.MAX_WITNESS_VERSION; version++) {
+            for (int length = SegwitAddress.MIN_PROGRAM_LENGTH; length <= SegwitAddress.MAX_PROGRAM_LENGTH; length++) {
+                if (version == 0 && length != 20 && length != 32)
+                    continue;
+                byte[] program = new byte[length];
+                for (int i = 0; i < length; i++)
+                    program[i] = (byte) (i * 37 + version);
+                String encoded = SegwitAddress.encode("BCRT", version, program);
+                assertTrue(encoded.startsWith("bcrt1"));
+                SegwitAddress decoded = SegwitAddress.decode("bcrt", encoded);
+                assertEquals(new SegwitAddress("bcrt", version, program), decoded);
+                assertArrayEquals(program, decoded.getProgram());
+                assertEquals(encoded, decoded.toString());
+            }
+        }
+    }
+
+    @Test
+    public void encode_matchesBech32Encode() {
+        SegwitAddress address = SegwitAddress.decode("bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0");
+        DecodedResult decoded = Bech32.decode(address.encode());
+        assertEquals(address.encode(), Bech32.encode(decoded.getHrp(), decoded.getDp()));
+    }
+
+    @Test
+    public void getProgram_returnsCopy() {
+        byte[] program = new byte[20];
+        SegwitAddress address = new SegwitAddress("bc", 0, program);
+        program[0] = 1;
+        address.getProgram()[1] = 1;
+        assertArrayEquals(new byte[20], address.getProgram());
+    }
+
+    @Test
+    public void constructor_rejectsInvalidParts() {
+        assertConstructorThrows("bc", -1, new byte[20]);
+        assertConstructorThrows("bc", 17, new byte[20]);
+        assertConstructorThrows("bc", 0, new byte[21]);
+        assertConstructorThrows("bc", 1, new byte[1]);
+        assertConstructorThrows("bc", 1, new byte[41]);
+        assertConstructorThrows("", 1, new byte[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_tooLong_throws() {
+        SegwitAddress.encode(repeat('a', 30), 1, new byte[40]);
+    }
+
+    private static void assertConstructorThrows(String hrp, int version, byte[] program) {
+        try {
+            new SegwitAddress(hrp, version, program);
+            fail(hrp + " " + version + " " + program.length);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void assertMessage(String message, String address) {
+        try {
+            SegwitAddress.decode(address);
+            fail(address);
+        } catch (Bech32Exception e) {
+            assertEquals(address, message, e.getMessage());
+            assertEquals(address, 0, e.getStackTrace().length);
+        }
+    }
+
+    private static byte[] scriptPubKey(SegwitAddress address) {
+        byte[] program = address.getProgram();
+        byte[] script = new byte[program.length + 2];
+        script[0] = (byte) (address.getVersion() == 0 ? 0 : 0x50 + address.getVersion());
+        script[1] = (byte) program.length;
+        System.arraycopy(program, 0, script, 2, program.length);
+        return script;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes)
+            sb.append(String.format("%02x", b & 0xff));
+        return sb.toString();
+    }
+
+    private static String repeat(char c, int n) {
+        char[] chars = new char[n];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,97 @@
+package design.contract.bech32;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SwarAsciiTest {
+
+    // the same scan, one byte at a time
+    private static int reference(final byte[] buf, final int offset, final int length) {
+        int flags = 0;
+        int separator = -1;
+        for (int i = 0; i < length; i++) {
+            int c = buf[offset + i] & 0xff;
+            if (c < 33 || c > 126)
+                flags |= SwarAscii.OUT_OF_RANGE;
+            if (c >= 'A' && c <= 'Z')
+                flags |= SwarAscii.UPPER;
+            if (c >= 'a' && c <= 'z')
+                flags |= SwarAscii.LOWER;
+            if (c == '1')
+                separator = i;
+        }
+        return flags | (separator + 1) << 3;
+    }
+
+    private static void assertScan(final byte[] buf, final int offset, final int length) {
+        int expected = reference(buf, offset, length);
+        assertEquals(expected, SwarAscii.scan(buf, offset, length));
+        assertEquals(expected, SwarAscii.scan(ByteBuffer.wrap(buf), offset, length));
+        assertEquals(expected, SwarAscii.scan(ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN), offset, length));
+        ByteBuffer direct = ByteBuffer.allocateDirect(buf.length);
+        direct.put(buf).clear();
+        assertEquals(expected, SwarAscii.scan(direct, offset, length));
+        assertEquals(expected, SwarAscii.scan(direct.order(ByteOrder.LITTLE_ENDIAN), offset, length));
+    }
+
+    @Test
+    public void scan_matchesReferenceForEveryLength() {
+        Random random = new Random(42);
+        // mostly bech32-like characters, with the odd separator, case or range error
+        byte[] alphabet = "qpzry9x8gf2tvdw0s3jn54khce6mua7lQPZ1 \u007f!~@[`{".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+        for (int length = 0; length <= 90; length++) {
+            for (int n = 0; n < 50; n++) {
+                int offset = random.nextInt(8);
+                byte[] buf = new byte[offset + length + random.nextInt(8)];
+                for (int i = 0; i < buf.length; i++)
+                    buf[i] = alphabet[random.nextInt(random.nextBoolean() ? 32 : alphabet.length)];
+                assertScan(buf, offset, length);
+            }
+        }
+    }
+
+    @Test
+    public void scan_findsLastSeparatorInEachLane() {
+        for (int length = 8; length <= 24; length++) {
+            for (int i = 0; i < length; i++) {
+                for (int j = i; j < length; j++) {
+                    byte[] buf = new byte[length];
+                    java.util.Arrays.fill(buf, (byte) 'q');
+                    buf[i] = '1';
+                    buf[j] = '1';
+                    assertScan(buf, 0, length);
+                    assertEquals(j, SwarAscii.separator(SwarAscii.scan(buf, 0, length)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scan_everyByteValueInEveryLane() {
+        for (int c = 0; c < 256; c++) {
+            for (int i = 0; i < 16; i++) {
+                byte[] buf = "abcdefgh1jklmnop".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+                buf[i] = (byte) c;
+                assertScan(buf, 0, buf.length);
+            }
+        }
+    }
+
+    @Test
+    public void isWellFormed() {
+        byte[] valid = "a12uel5l".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        int scan = SwarAscii.scan(valid, 0, valid.length);
+        assertTrue(SwarAscii.isWellFormed(scan));
+        assertEquals(1, SwarAscii.separator(scan));
+
+        assertFalse(SwarAscii.isWellFormed(SwarAscii.scan("a12Uel5l".getBytes(), 0, 8)));
+        assertFalse(SwarAscii.isWellFormed(SwarAscii.scan("a12 el5l".getBytes(), 0, 8)));
+        assertFalse(SwarAscii.isWellFormed(SwarAscii.scan("aq2uel5l".getBytes(), 0, 8)));
+        assertFalse(SwarAscii.isWellFormed(SwarAscii.scan(new byte[]{'a', '1', (byte) 0xe9, 'u', 'e', 'l', '5', 'l'}, 0, 8)));
+    }
+}